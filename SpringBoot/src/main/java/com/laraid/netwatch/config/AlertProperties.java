@@ -0,0 +1,18 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.alerts")
+@Data
+public class AlertProperties {
+
+    private int maxPollRecords = 500;     // packet-events records handed to the detector per poll (one batch)
+    private int concurrency = 0;          // consumers in alert-group; 0 = one per packet-events partition
+    private int portScanPorts = 30;       // distinct destination ports from one source before PORT_SCAN
+    private int spikePackets = 500;       // more packets than this from one source ...
+    private long spikeWindowMs = 10_000;  // ... within this window is a TRAFFIC_SPIKE
+
+}
@@ -0,0 +1,77 @@
+package com.laraid.netwatch.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Two connection pools behind one {@link DataSource}: {@code netwatch-write} for ingestion and
+ * everything else, {@code netwatch-read} for read-only transactions
+ * ({@code @Transactional(readOnly = true)}, read-only {@code TransactionTemplate}s).
+ * <p>
+ * The {@link LazyConnectionDataSourceProxy} hands out a placeholder connection and only borrows a
+ * real one at the first statement; by then the transaction manager has called
+ * {@code setReadOnly(true)} on it, which selects the read pool. A dashboard query therefore never
+ * waits for a connection the ingestion workers hold, and vice versa. Each pool reports its own
+ * {@code hikaricp.*} metrics (tag {@code pool}) and {@code application_name}, so
+ * {@code pg_stat_activity} shows which side a backend belongs to.
+ * <p>
+ * {@code netwatch.read-datasource.url} may point at a streaming replica; reads then see data as of
+ * the replica's replay position.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public static final String WRITE_POOL = "netwatch-write";
+    public static final String READ_POOL = "netwatch-read";
+
+    /** 🔹 spring.datasource.* as before, plus spring.datasource.hikari.* for sizing */
+    @Bean(autowireCandidate = false)
+    public HikariDataSource writePool(DataSourceProperties props, Environment env, ObjectProvider<MeterRegistry> registry) {
+        HikariDataSource pool = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        return named(pool, WRITE_POOL, registry);
+    }
+
+    @Bean(autowireCandidate = false)
+    public HikariDataSource readPool(DataSourceProperties props, ReadDataSourceProperties read,
+                                     ObjectProvider<MeterRegistry> registry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(StringUtils.hasText(read.getUrl()) ? read.getUrl() : props.determineUrl());
+        pool.setUsername(StringUtils.hasText(read.getUsername()) ? read.getUsername() : props.determineUsername());
+        pool.setPassword(StringUtils.hasText(read.getPassword()) ? read.getPassword() : props.determinePassword());
+        pool.setMaximumPoolSize(read.getMaximumPoolSize());
+        pool.setMinimumIdle(read.getMinimumIdle());
+        pool.setConnectionTimeout(read.getConnectionTimeoutMs());
+        pool.setReadOnly(true);
+        return named(pool, READ_POOL, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadDataSourceProperties read, ObjectProvider<MeterRegistry> registry,
+                                 DataSourceProperties props, Environment env) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(writePool(props, env, registry));
+        if (read.isEnabled()) proxy.setReadOnlyDataSource(readPool(props, read, registry));
+        return proxy;
+    }
+
+    private static HikariDataSource named(HikariDataSource pool, String name, ObjectProvider<MeterRegistry> registry) {
+        pool.setPoolName(name);
+        pool.addDataSourceProperty("ApplicationName", name);
+        registry.ifAvailable(r -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(r)));
+        return pool;
+    }
+}
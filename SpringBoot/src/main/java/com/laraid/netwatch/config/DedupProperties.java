@@ -0,0 +1,16 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.dedup")
+@Data
+public class DedupProperties {
+
+    private boolean enabled = false;      // drop packets another agent already reported (overlapping sensors)
+    private long windowMs = 5_000;        // a duplicate must arrive within one to two windows of the first copy
+    private int slots = 1 << 18;          // fingerprints per generation (two generations, 8 bytes each)
+
+}
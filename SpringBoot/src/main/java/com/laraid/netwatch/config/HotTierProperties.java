@@ -0,0 +1,21 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.hot-tier")
+@Data
+public class HotTierProperties {
+
+    private boolean enabled = true;
+    private String directory = "data/hot-tier";     // segment files, re-mapped on restart
+    private long segmentBytes = 64L << 20;          // size of one mapped segment file
+    private long maxBytes = 1L << 30;               // oldest segments are deleted above this
+    private Duration window = Duration.ofMinutes(15);   // segments whose newest packet is older are deleted
+    private long evictIntervalMs = 60_000;
+
+}
@@ -0,0 +1,26 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.ingest")
+@Data
+public class IngestProperties {
+
+    private int queueCapacity = 50_000;    // packets buffered in memory before agents get 429
+    private int workers = 2;               // dedicated persistence threads
+    private int maxRowsPerWrite = 5_000;   // packets grouped into one DB write
+    private long pollTimeoutMs = 50;       // how long an idle worker waits for work
+    private int retryAfterSeconds = 1;     // Retry-After sent with 429
+    private int chunkSize = 500;           // packets per hand-off from the streaming batch reader
+    private long offerTimeoutMs = 200;     // max wait for queue room once a body is being streamed
+    private long maxDecompressedBytes = 64L * 1024 * 1024;  // cap for gzip/zstd request bodies
+    private long shutdownTimeoutMs = 30_000;
+    private boolean internStrings = true;  // share low-cardinality strings across mapped packets
+    private int sequenceWindow = 1024;     // batchSeq values remembered per agent for replay detection
+    private int maxTrackedAgents = 4096;   // agents with a replay window (LRU beyond that)
+    private int maxPayloadBytes = 1024;    // payload bytes kept per packet; payloadLength keeps the captured size
+
+}
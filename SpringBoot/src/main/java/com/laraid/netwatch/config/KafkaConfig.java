@@ -28,7 +28,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic packetEventTopic() {
         return TopicBuilder.name(props.getLivePacketEvents())
-                .partitions(3)
+                .partitions(props.getLivePacketEventsPartitions())
                 .replicas(1)
                 .build();
     }
@@ -4,6 +4,7 @@ package com.laraid.netwatch.config;
 import com.laraid.netwatch.entity.Packet;
 import com.laraid.netwatch.utils.AgentHeartbeat;
 import com.laraid.netwatch.utils.AgentInfo;
+import com.laraid.netwatch.utils.PacketBinaryDeserializer;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -25,6 +26,8 @@ import java.util.Map;
 public class KafkaConsumerConfig {
 
     private final com.laraid.netwatch.config.KafkaProperties kafkaProperties;
+    private final KafkaTopicProperties kafkaTopicProperties;
+    private final AlertProperties alertProperties;
 
 
     @Bean
@@ -33,19 +36,23 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "alert-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*"); // Allow all packages or specify your entity package
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, alertProperties.getMaxPollRecords());
+        // reads both formats spring.kafka.topic.formats may select, whatever the topic's producers use
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(Packet.class)
+                new PacketBinaryDeserializer()
         );
     }
 
+    /** 🔹 Batch listener, one consumer thread per packet-events partition unless netwatch.alerts.concurrency says otherwise */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Packet> packetKafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Packet> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(packetConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(alertProperties.getConcurrency() > 0
+                ? alertProperties.getConcurrency() : kafkaTopicProperties.getLivePacketEventsPartitions());
         return factory;
     }
 
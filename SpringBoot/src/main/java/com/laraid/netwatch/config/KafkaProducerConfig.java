@@ -2,40 +2,67 @@ package com.laraid.netwatch.config;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.support.serializer.JsonSerializer; // ✅ Correct import
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.PacketBinarySerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Configuration
 @RequiredArgsConstructor
 public class KafkaProducerConfig {
 
     private final KafkaProperties kafkaProperties;
+    private final KafkaTopicProperties kafkaTopicProperties;
+    private final PublishProperties publishProperties;
+    private final MeterRegistry meterRegistry;
 
+    /**
+     * 🔹 Throughput profile for the packet publish stage (netwatch.publish): large compressed batches,
+     * idempotent retries until the delivery timeout. Values are JSON or {@link PacketBinarySerializer}
+     * per topic (spring.kafka.topic.formats); client metrics are exported as kafka.producer.*
+     */
     @Bean
     public ProducerFactory<String, Packet> packetProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers()); // Replace with your Kafka broker
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all"); // Ensure message durability
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);  // Retry if broker is unavailable
-        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5); // Batch send optimization
-        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384); // 16KB batch size
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, publishProperties.isIdempotence());
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, publishProperties.getMaxInFlightRequests());
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, publishProperties.getDeliveryTimeoutMs());
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, publishProperties.getMaxBlockMs());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, publishProperties.getCompression());
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, publishProperties.getLingerMs());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, publishProperties.getBatchSize());
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, publishProperties.getBufferMemory());
+        DefaultKafkaProducerFactory<String, Packet> factory = new DefaultKafkaProducerFactory<>(configProps,
+                new StringSerializer(), byTopic(new PacketBinarySerializer(), new JsonSerializer<>()));
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
     public KafkaTemplate<String, Packet> packetKafkaTemplate() {
-        return new KafkaTemplate<>(packetProducerFactory());
+        KafkaTemplate<String, Packet> template = new KafkaTemplate<>(packetProducerFactory());
+        template.setProducerListener(new ProducerListener<>() {
+        });   // PacketPublisher counts failures and logs them rate-limited, not one ERROR per record
+        return template;
     }
 
     @Bean
@@ -56,18 +83,29 @@ public class KafkaProducerConfig {
         return new KafkaTemplate<>(StringProducerFactory());
     }
 
+    /** 🔹 Values are JSON or Smile (binary JSON, no type headers) per topic */
     @Bean
     public ProducerFactory<String, Map<String, Object>> alertProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        JsonSerializer<Map<String, Object>> smile = new JsonSerializer<Map<String, Object>>(new ObjectMapper(new SmileFactory()))
+                .noTypeInfo();
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), byTopic(smile, new JsonSerializer<>()));
     }
 
     @Bean
     public KafkaTemplate<String, Map<String, Object>> alertKafkaTemplate() {
         return new KafkaTemplate<>(alertProducerFactory());
     }
+
+    /** {@code binary} for the topics configured BINARY, {@code json} for the rest */
+    @SuppressWarnings("unchecked")
+    <T> Serializer<T> byTopic(Serializer<T> binary, Serializer<T> json) {
+        Map<Pattern, Serializer<?>> delegates = new LinkedHashMap<>();
+        for (String topic : kafkaTopicProperties.getFormats().keySet()) {
+            boolean isBinary = kafkaTopicProperties.format(topic) == KafkaTopicProperties.Format.BINARY;
+            delegates.put(Pattern.compile(Pattern.quote(topic)), isBinary ? binary : json);
+        }
+        return (Serializer<T>) (Serializer<?>) new DelegatingByTopicSerializer(delegates, json);
+    }
 }
@@ -4,17 +4,32 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "spring.kafka.topic")
 @Data
 public class KafkaTopicProperties {
 
+    /** how a topic's values are encoded */
+    public enum Format {
+        JSON,       // Spring's JsonSerializer, with type headers
+        BINARY      // Packet: PacketBinaryCodec; maps (alerts): Smile
+    }
+
     private String livePacketEvents;
+    private int livePacketEventsPartitions = 3;   // also the number of alert-group consumers by default
     private String liveNetWatchAlerts;
     private String liveTopPorts;
     private String liveProtocolStats;
     private String liveTopTalkers;
     private String liveAgentHeartbeat;
     private String liveRawPackets;
+    private Map<String, Format> formats = new HashMap<>();   // by topic name; topics not listed are JSON
+
+    public Format format(String topic) {
+        return formats.getOrDefault(topic, Format.JSON);
+    }
 
 }
@@ -0,0 +1,19 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.outbox")
+@Data
+public class OutboxProperties {
+
+    private boolean enabled = true;        // false: ingestion publishes to packet-events itself, after the commit
+    private int chunkSize = 5_000;         // outbox rows relayed per transaction
+    private long pollIntervalMs = 500;     // idle relay wait; ingestion also wakes it after each commit
+    private long ackGraceMs = 30_000;      // waited for a chunk's acks beyond netwatch.publish.delivery-timeout-ms
+    private long errorBackoffMs = 5_000;   // pause after a failed chunk (broker down); its rows are retried
+    private long shutdownTimeoutMs = 10_000;
+
+}
@@ -0,0 +1,35 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.partitions")
+@Data
+public class PartitionProperties {
+
+    public enum Interval {
+        HOURLY(ChronoUnit.HOURS, "yyyyMMddHH"),
+        DAILY(ChronoUnit.DAYS, "yyyyMMdd");
+
+        public final ChronoUnit unit;
+        public final String suffixPattern;
+
+        Interval(ChronoUnit unit, String suffixPattern) {
+            this.unit = unit;
+            this.suffixPattern = suffixPattern;
+        }
+    }
+
+    private boolean enabled = true;                     // manage packets as RANGE partitions on received_at
+    private Interval interval = Interval.DAILY;
+    private int premake = 7;                            // partitions created ahead of the current one
+    private Duration retention = Duration.ofDays(30);   // partitions entirely older than this are detached
+    private boolean dropDetached = true;                // false keeps detached partitions as plain tables
+    private long maintenanceIntervalMs = 3_600_000;
+
+}
@@ -0,0 +1,33 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.persistence")
+@Data
+public class PersistenceProperties {
+
+    public enum Mode {
+        JPA,    // packetRepository.saveAll, one INSERT round-trip per packet (IDENTITY)
+        JDBC,   // sequence-allocated ids + JDBC batch INSERT
+        COPY,   // sequence-allocated ids + COPY FROM STDIN (FORMAT binary)
+        AUTO    // JDBC below copyThreshold, COPY above
+    }
+
+    private Mode mode = Mode.AUTO;
+    private int copyThreshold = 1_000;
+    private int jdbcBatchSize = 500;
+    private int copyBufferSize = 64 * 1024;
+    private String captureTimeZone;        // zone of agent timestamps sent without offset (default: JVM zone)
+    private int payloadCompressionLevel = 3;      // zstd level for packet_payloads (stored raw when that is smaller)
+    private int payloadCacheSlots = 1 << 16;      // recently stored payload hashes skipped without a DB round-trip
+
+    public ZoneId captureZone() {
+        return captureTimeZone == null || captureTimeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(captureTimeZone);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.publish")
+@Data
+public class PublishProperties {
+
+    /** what publishing a batch does when maxPendingRecords records are already unacknowledged */
+    public enum Overflow {
+        BLOCK,      // wait up to overflowWaitMs for acks, then drop the batch
+        DROP        // drop the batch at once
+    }
+
+    // producer profile for packet-events: few large compressed requests, exactly once per producer session
+    private String compression = "zstd";        // none | gzip | snappy | lz4 | zstd
+    private int batchSize = 256 * 1024;         // bytes per partition batch
+    private int lingerMs = 20;                  // how long a batch waits to fill
+    private long bufferMemory = 64L * 1024 * 1024;
+    private boolean idempotence = true;         // broker drops producer retries it already has (needs acks=all)
+    private int maxInFlightRequests = 5;        // per connection; at most 5 keeps ordering with idempotence
+    private int deliveryTimeoutMs = 120_000;    // producer retries a record this long before failing it
+    private int maxBlockMs = 1_000;             // max time send() may block the ingest thread (metadata, full buffer)
+
+    // publish stage
+    private int maxPendingRecords = 100_000;    // records sent but not yet acknowledged
+    private Overflow overflow = Overflow.BLOCK;
+    private long overflowWaitMs = 500;
+    private int retries = 2;                    // resends after the producer gave up with a retriable error
+    private long retryBackoffMs = 1_000;
+
+}
@@ -0,0 +1,21 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.query")
+@Data
+public class QueryProperties {
+
+    private int defaultPageSize = 500;    // rows per page when the client does not ask for a size
+    private int maxPageSize = 2_000;      // hard cap for page size and /latest/{count}
+
+    /** requested size clamped to [1, maxPageSize]; null → default */
+    public int pageSize(Integer requested) {
+        int size = requested == null ? defaultPageSize : requested;
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.read-datasource")
+@Data
+public class ReadDataSourceProperties {
+
+    private boolean enabled = true;       // false: read-only transactions share the write pool
+    private String url;                   // replica URL; empty = same database as spring.datasource.url
+    private String username;              // empty = spring.datasource.username
+    private String password;              // empty = spring.datasource.password
+    private int maximumPoolSize = 10;
+    private int minimumIdle = 2;
+    private long connectionTimeoutMs = 5_000;
+
+}
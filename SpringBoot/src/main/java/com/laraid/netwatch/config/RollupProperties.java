@@ -0,0 +1,21 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.rollups")
+@Data
+public class RollupProperties {
+
+    private boolean enabled = true;
+    private long flushIntervalMs = 5_000;         // in-memory minute counters → packet_rollup_minute
+    private long compactIntervalMs = 300_000;     // minute rows → hour rows → day rows
+    private Duration minuteRetention = Duration.ofDays(2);
+    private Duration hourRetention = Duration.ofDays(90);
+    private Duration dayRetention = Duration.ofDays(730);
+
+}
@@ -54,7 +54,7 @@ public class SecurityConfig {
                     config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                     config.setAllowedHeaders(List.of("*"));
                     config.setAllowCredentials(true);
-                    config.setExposedHeaders(List.of("Authorization"));
+                    config.setExposedHeaders(List.of("Authorization", "X-Next-Cursor"));
                     return config;
                 }))
                 .csrf(csrf -> csrf.ignoringRequestMatchers("/actuator/**").disable())
@@ -62,7 +62,10 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/ws").permitAll()
                         .requestMatchers("/api/v1/packets/stream").authenticated()
+                        .requestMatchers("/api/v1/packets/stream/subscribers").authenticated()
                         .requestMatchers("/api/v1/packets").authenticated()
+                        .requestMatchers("/api/v1/packets/search").authenticated()
+                        .requestMatchers("/api/v1/rollups/**").authenticated()
                         .requestMatchers("api/v1/packets/batch").authenticated()
                         .requestMatchers("/api/v1/agents").authenticated()
                         .requestMatchers("/actuator/info").permitAll()
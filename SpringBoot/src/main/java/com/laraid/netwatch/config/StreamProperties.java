@@ -0,0 +1,26 @@
+package com.laraid.netwatch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "netwatch.stream")
+@Data
+public class StreamProperties {
+
+    /** what a full SSE subscriber buffer gives up; only that subscriber is affected */
+    public enum Overflow {
+        DROP_OLDEST,    // evict the oldest buffered item for the new one
+        SAMPLE,         // keep one in sampleEvery arriving items (evicting the oldest), drop the rest
+        DISCONNECT      // end the subscriber's stream; the client reconnects and starts from now
+    }
+
+    private long frameIntervalMs = 100;     // framed subscribers get at most this old a frame (latency budget)
+    private int frameMaxEvents = 500;       // ... or one as soon as this many events are pending
+    private int bufferSize = 256;           // items (packets or frames) buffered per SSE subscriber
+    private Overflow overflow = Overflow.DROP_OLDEST;   // default; a subscriber may ask for another (?overflow=)
+    private int sampleEvery = 10;
+    private int replaySize = 500;           // last events kept per stream and replayed to new subscribers (?replay=)
+
+}
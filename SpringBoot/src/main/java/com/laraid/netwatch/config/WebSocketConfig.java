@@ -2,7 +2,9 @@ package com.laraid.netwatch.config;
 
 import com.laraid.netwatch.websocket.AuthChannelInterceptor;
 import com.laraid.netwatch.websocket.AuthHandshakeInterceptor;
+import com.laraid.netwatch.websocket.DeflateSessionMetrics;
 import com.laraid.netwatch.websocket.StompAuthChannelInterceptor;
+import com.laraid.netwatch.websocket.StreamFilterInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -10,6 +12,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -18,12 +21,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final StompAuthChannelInterceptor stompAuthInterceptor;
     private final AuthChannelInterceptor authChannelInterceptor;
+    private final StreamFilterInterceptor streamFilterInterceptor;
+    private final DeflateSessionMetrics deflateSessionMetrics;
 
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // ✅ Register both interceptors
-        registration.interceptors(authChannelInterceptor, stompAuthInterceptor);
+        // ✅ Register the auth interceptors, then the filter check for /queue/rawPackets subscriptions
+        registration.interceptors(authChannelInterceptor, stompAuthInterceptor, streamFilterInterceptor);
     }
 
     @Override
@@ -34,6 +39,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // .withSockJS(); // uncomment if SockJS is required
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // room for a few full frames (frame-max-events packets each) queued on a slow session
+        registration.addDecoratorFactory(deflateSessionMetrics)
+                .setSendBufferSizeLimit(4 * 1024 * 1024);
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.enableSimpleBroker("/topic", "/queue");
@@ -1,17 +1,40 @@
 package com.laraid.netwatch.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.config.QueryProperties;
+import com.laraid.netwatch.config.StreamProperties;
 import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.dto.PacketCursor;
 import com.laraid.netwatch.dto.PacketDTO;
+import com.laraid.netwatch.dto.PacketSearchCriteria;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.dto.StreamSubscriberStats;
 import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketStorageStats;
+import com.laraid.netwatch.service.BatchSequenceTracker;
+import com.laraid.netwatch.service.LiveStreamService;
+import com.laraid.netwatch.service.PacketBatchReader;
+import com.laraid.netwatch.service.PacketIngestionQueue;
+import com.laraid.netwatch.service.PacketQueryService;
 import com.laraid.netwatch.service.PacketService;
+import com.laraid.netwatch.web.MalformedRequestBodyException;
+import com.laraid.netwatch.web.RequestBodyTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -21,16 +44,46 @@ public class PacketController {
 
     private static final Logger log = LoggerFactory.getLogger(PacketController.class);
 
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
     private final PacketService packetService;
+    private final PacketIngestionQueue packetIngestionQueue;
+    private final PacketBatchReader packetBatchReader;
+    private final IngestProperties ingestProperties;
+    private final BatchSequenceTracker batchSequenceTracker;
+    private final PacketQueryService packetQueryService;
+    private final QueryProperties queryProperties;
+    private final LiveStreamService liveStreamService;
 
+    /**
+     * 🔹 One page of packet history, newest first, streamed as a JSON array.
+     * Pass the {@value #NEXT_CURSOR} header of a response as {@code cursor} to get the next (older) page;
+     * the header is absent once the history is exhausted.
+     */
 //    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
-    @GetMapping
-    public ResponseEntity<List<Packet>> getAllPackets() {
-        //log.info("PacketController - getAllPackets-0");
-        //List<Packet> packetList = packetService.getAllPackets();
-        List<Packet> packets = packetService.getLatestPackets(30000);
-        //log.info("PacketController - getAllPackets-1");
-        return ResponseEntity.ok(packets);
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getAllPackets(@RequestParam(required = false) String cursor,
+                              @RequestParam(required = false) Integer size,
+                              HttpServletResponse response) throws IOException {
+        writePage(null, cursor, size, response);
+    }
+
+    /**
+     * 🔹 Packets matching every given filter, e.g. {@code ?srcIp=10.0.0.5&dstPort=443&within=15m},
+     * paged exactly like {@link #getAllPackets}. An unusable filter value is a 400.
+     */
+    //@PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void searchPackets(@ModelAttribute PacketSearchCriteria criteria,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(required = false) Integer size,
+                              HttpServletResponse response) throws IOException {
+        try {
+            criteria.validate();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        writePage(criteria, cursor, size, response);
     }
 
     //@PreAuthorize("hasAnyRole('ROLE_USER')")
@@ -41,27 +94,151 @@ public class PacketController {
     }
 
     //@PreAuthorize("hasAnyRole('USER','ADMIN')")
-    @PostMapping("/batch")
-    public ResponseEntity<Void> ingestBatch(@RequestBody PacketBatchDTO batch) {
-        log.info("PacketController - ingestBatch-0");
-        packetService.ingestBatch(batch);
-        log.info("PacketController - ingestBatch-1");
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, PacketBatchReader.SMILE_VALUE})
+    public ResponseEntity<Void> ingestBatch(HttpServletRequest request,
+                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+        log.debug("PacketController - ingestBatch");
+        // body (JSON or Smile) is decoded as a stream and persisted asynchronously by the ingestion workers
+        QueueSink sink = new QueueSink();
+        PacketBatchReader.Result result;
+        try {
+            result = packetBatchReader.read(request.getInputStream(), contentType, ingestProperties.getChunkSize(), sink);
+        } catch (RequestBodyTooLargeException | MalformedRequestBodyException e) {
+            // chunks queued before the body went bad are kept (and their batchSeq claimed): say how many
+            sink.releaseIfNothingQueued();
+            log.warn("Rejected packet batch after {} queued packets: {}", sink.queued, e.getMessage());
+            HttpStatus status = e instanceof RequestBodyTooLargeException ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status)
+                    .header("X-Accepted-Packets", String.valueOf(sink.queued))
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            sink.releaseIfNothingQueued();
+            throw e;
+        }
+        if (result.skipped()) {
+            // resend of a batch we already have (e.g. the agent timed out waiting for our answer)
+            return ResponseEntity.accepted().header("X-Batch-Replay", "true").build();
+        }
+        if (!result.completed()) {
+            sink.releaseIfNothingQueued();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(packetIngestionQueue.getRetryAfterSeconds()))
+                    .header("X-Accepted-Packets", String.valueOf(result.packets()))
+                    .build();
+        }
         return ResponseEntity.accepted().build();
     }
 
     //@PreAuthorize("hasAnyRole('USER','ADMIN')")
     @GetMapping("/latest/{count}")
-    public List<Packet> listAll(@PathVariable Integer count) {
+    public List<PacketSummary> listAll(@PathVariable Integer count) {
         log.info("PacketController - listAll");
-        return packetService.findLatest(count); // limit for UI
+        return packetQueryService.latest(queryProperties.pageSize(count)); // limit for UI
+    }
+
+    // full packet (payload, HTTP/TLS detail) for the row the UI expands
+    //@PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/{id:\\d+}")
+    public ResponseEntity<Packet> getPacket(@PathVariable long id) {
+        return ResponseEntity.of(packetQueryService.findById(id));
     }
 
-    // Live stream via SSE (Server-Sent Events)
+    // exact captured payload bytes (up to netwatch.ingest.max-payload-bytes)
+    //@PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping(value = "/{id:\\d+}/payload", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getPayload(@PathVariable long id) {
+        return ResponseEntity.of(packetQueryService.findPayload(id));
+    }
+
+    // table/index bytes per row, to compare storage layouts
+    //@PreAuthorize("hasAnyRole('ADMIN')")
+    @GetMapping("/storage")
+    public PacketStorageStats storageStats() {
+        return packetService.storageStats();
+    }
+
+    /**
+     * 🔹 Live stream via SSE (Server-Sent Events) of newly persisted packets, narrowed server-side by
+     * optional filters, e.g. {@code ?agentId=agent-1&ip=10.0.0.0/24&port=443}. An unusable filter is a 400.
+     * With {@code frames=true} each event is a JSON array of packets (every netwatch.stream.frame-interval-ms).
+     * {@code overflow} (DROP_OLDEST, SAMPLE, DISCONNECT) says what to give up when this client falls behind.
+     * The stream starts with the last {@code replay} matching packets (default netwatch.stream.replay-size,
+     * 0 = none), with no gap or overlap to the live ones, so no {@code /latest} query is needed.
+     */
     //@PreAuthorize("hasAnyRole('USER','ADMIN')")
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<Packet> liveStream() {
-        log.info("PacketController - liveStream");
-        return packetService.streamPackets(); // emits latest packets
+    public Flux<?> liveStream(@ModelAttribute StreamFilter filter,
+                              @RequestParam(defaultValue = "false") boolean frames,
+                              @RequestParam(required = false) StreamProperties.Overflow overflow,
+                              @RequestParam(required = false) Integer replay) {
+        log.info("PacketController - liveStream {} frames={} overflow={} replay={}", filter, frames, overflow, replay);
+        try {
+            filter.validate();
+            if (replay != null && replay < 0) throw new IllegalArgumentException("replay: must be 0 or more");
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return frames ? liveStreamService.subscribeFrames(filter, overflow, replay)
+                : liveStreamService.subscribe(filter, overflow, replay);
     }
-}
 
+    // connected SSE subscribers with their lag (buffered, unsent) and drop counts
+    //@PreAuthorize("hasAnyRole('ADMIN')")
+    @GetMapping("/stream/subscribers")
+    public List<StreamSubscriberStats> streamSubscribers() {
+        return liveStreamService.subscribers();
+    }
+
+    /**
+     * 🔹 Hands decoded chunks to the ingestion queue after claiming the batch sequence.
+     * A claim is kept once any packet was queued, so a resend cannot duplicate that prefix;
+     * the agent resends the remainder (see X-Accepted-Packets on a 429, 413 or 400) under a new batchSeq.
+     */
+    private final class QueueSink implements PacketBatchReader.ChunkSink {
+
+        private PacketBatchDTO claimed;
+        private int queued;
+
+        @Override
+        public boolean begin(PacketBatchDTO header) {
+            if (!batchSequenceTracker.claim(header)) return false;
+            claimed = header;
+            return true;
+        }
+
+        @Override
+        public boolean accept(List<Packet> chunk) {
+            if (!packetIngestionQueue.offer(chunk, ingestProperties.getOfferTimeoutMs())) return false;
+            queued += chunk.size();
+            return true;
+        }
+
+        void releaseIfNothingQueued() {
+            if (claimed != null && queued == 0) batchSequenceTracker.release(claimed);
+        }
+    }
+
+    private void writePage(PacketSearchCriteria criteria, String cursor, Integer size,
+                           HttpServletResponse response) throws IOException {
+        packetQueryService.writePage(criteria, parseCursor(cursor), queryProperties.pageSize(size), next -> {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            if (next != null) response.setHeader(NEXT_CURSOR, next.encode());
+            return response.getOutputStream();
+        });
+    }
+
+    private static PacketCursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            return PacketCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<String> malformedBody(JsonProcessingException e) {
+        log.warn("Rejected malformed packet body: {}", e.getOriginalMessage());
+        return ResponseEntity.badRequest().body(e.getOriginalMessage());
+    }
+}
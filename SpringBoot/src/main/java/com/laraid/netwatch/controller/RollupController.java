@@ -0,0 +1,71 @@
+package com.laraid.netwatch.controller;
+
+import com.laraid.netwatch.dto.RollupPoint;
+import com.laraid.netwatch.dto.RollupTotal;
+import com.laraid.netwatch.repo.PacketRollupRepository.Dimension;
+import com.laraid.netwatch.repo.PacketRollupRepository.Level;
+import com.laraid.netwatch.service.PacketRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DurationFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregates served from the rollup tables, never from {@code packets}:
+ * {@code /series?dimension=PROTOCOL&within=1h} (bytes per protocol per minute),
+ * {@code /top?dimension=DST_PORT&within=24h} (top ports over the day). The range is
+ * {@code [from, to)} or {@code within} back from now (default 1h); {@code level} is chosen from
+ * the range unless given.
+ */
+@RestController
+@RequestMapping("/api/v1/rollups")
+@RequiredArgsConstructor
+public class RollupController {
+
+    private static final int MAX_TOP = 1_000;
+
+    private final PacketRollupService rollupService;
+
+    //@PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/series")
+    public List<RollupPoint> series(@RequestParam Dimension dimension,
+                                    @RequestParam(required = false) Level level,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(required = false) @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration within) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return rollupService.series(dimension, level, start(from, end, within), end);
+    }
+
+    //@PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/top")
+    public List<RollupTotal> top(@RequestParam Dimension dimension,
+                                 @RequestParam(required = false) Level level,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                 @RequestParam(required = false) @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration within,
+                                 @RequestParam(defaultValue = "bytes") String by,
+                                 @RequestParam(defaultValue = "10") int limit) {
+        if (!by.equals("bytes") && !by.equals("packets")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "by: bytes or packets");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return rollupService.top(dimension, level, start(from, end, within), end, by.equals("packets"),
+                Math.max(1, Math.min(limit, MAX_TOP)));
+    }
+
+    private static LocalDateTime start(LocalDateTime from, LocalDateTime end, Duration within) {
+        LocalDateTime start = from != null ? from : end.minus(within != null ? within : Duration.ofHours(1));
+        if (!start.isBefore(end)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        return start;
+    }
+}
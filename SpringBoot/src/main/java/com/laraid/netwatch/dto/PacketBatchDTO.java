@@ -13,5 +13,11 @@ public class PacketBatchDTO {
     private String agentId;         // optional top-level
     private String hostName;        // optional top-level
     private String interfaceName;   // optional top-level
+    private Long epoch;             // optional: agent start time (ms), scopes batchSeq to one agent run
+    private Long batchSeq;          // optional: per-agent batch counter, same value on resend
     private List<PacketDTO> packets;
+
+    public PacketBatchDTO(String agentId, String hostName, String interfaceName, List<PacketDTO> packets) {
+        this(agentId, hostName, interfaceName, null, null, packets);
+    }
 }
@@ -0,0 +1,36 @@
+package com.laraid.netwatch.dto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Keyset position in the packet history: the (receivedAt, id) of the last row of a page.
+ * The next page is everything strictly older in {@code ORDER BY received_at DESC, id DESC}.
+ * <p>
+ * Encoded as URL-safe base64 of two longs (microseconds of the wall-clock time, id), so it is
+ * opaque to clients and stays valid no matter how many rows arrive in the meantime.
+ */
+public record PacketCursor(LocalDateTime receivedAt, long id) {
+
+    private static final int BYTES = 2 * Long.BYTES;
+
+    public String encode() {
+        long micros = receivedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + receivedAt.getNano() / 1_000;
+        ByteBuffer buf = ByteBuffer.allocate(BYTES).putLong(micros).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+    public static PacketCursor decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != BYTES) throw new IllegalArgumentException("Malformed cursor");
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        long micros = buf.getLong();
+        long id = buf.getLong();
+        LocalDateTime receivedAt = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+        return new PacketCursor(receivedAt, id);
+    }
+}
@@ -48,7 +48,9 @@ public class PacketDTO {
     private String dnsAnswer;
 
     // App Layer
-    private String payload;
+    private String payload;             // legacy agents: text, already lossy
+    private byte[] rawPayload;          // base64 in JSON, binary in Smile
+    private Integer payloadLength;      // captured payload length before any agent-side cut
     private String httpInfo;
     private String tlsInfo;
 
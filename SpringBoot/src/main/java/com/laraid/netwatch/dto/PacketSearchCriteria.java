@@ -0,0 +1,64 @@
+package com.laraid.netwatch.dto;
+
+import com.laraid.netwatch.utils.PacketColumns;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DurationFormat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Filters for {@code GET /api/v1/packets/search}; every field is optional and they combine with AND.
+ * Times are server wall-clock time, like {@code receivedAt}. {@code srcIp}/{@code dstIp} take an
+ * address or a CIDR block ("10.0.0.0/24"), {@code protocol} a number or a name ("tcp").
+ */
+@Data
+public class PacketSearchCriteria {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    @DurationFormat(style = DurationFormat.Style.SIMPLE)
+    private Duration within;        // "15m": shorthand for from = now - within
+
+    private String srcIp;
+    private String dstIp;
+    private Integer srcPort;
+    private Integer dstPort;
+    private String protocol;
+    private String agentId;
+    private String packetType;
+
+    /** 🔹 Lower time bound: the later of {@code from} and {@code now - within} */
+    public LocalDateTime effectiveFrom(LocalDateTime now) {
+        LocalDateTime recent = within == null ? null : now.minus(within);
+        if (from == null) return recent;
+        return recent == null || from.isAfter(recent) ? from : recent;
+    }
+
+    /** @throws IllegalArgumentException naming the first filter that cannot match anything */
+    public void validate() {
+        checkAddress("srcIp", srcIp);
+        checkAddress("dstIp", dstIp);
+        checkPort("srcPort", srcPort);
+        checkPort("dstPort", dstPort);
+        if (protocol != null && PacketColumns.protocol(protocol) == null) {
+            throw new IllegalArgumentException("protocol: expected a number 0-255 or tcp/udp/icmp/icmpv6");
+        }
+        if (within != null && within.isNegative()) throw new IllegalArgumentException("within: must not be negative");
+    }
+
+    private static void checkAddress(String name, String value) {
+        if (value != null && !PacketColumns.isInet(value) && !PacketColumns.isCidr(value)) {
+            throw new IllegalArgumentException(name + ": expected an IP address or CIDR block");
+        }
+    }
+
+    private static void checkPort(String name, Integer value) {
+        if (value != null && (value < 0 || value > 65535)) {
+            throw new IllegalArgumentException(name + ": expected 0-65535");
+        }
+    }
+}
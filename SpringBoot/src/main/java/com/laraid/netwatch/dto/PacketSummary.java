@@ -0,0 +1,45 @@
+package com.laraid.netwatch.dto;
+
+import com.laraid.netwatch.entity.Packet;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the packet table view shows, for list and stream endpoints. Heavy fields
+ * (payload, {@code httpInfo}, {@code tlsInfo}, DNS answers, ARP/ICMP detail) are left out, only
+ * {@code payloadLength} says whether there is a payload; {@code GET /api/v1/packets/{id}}
+ * returns the full {@link Packet}.
+ * Component names match the entity's JSON properties, so clients read both the same way.
+ */
+public record PacketSummary(
+        Long id,
+        String timestamp,
+        LocalDateTime receivedAt,
+        String agentId,
+        String hostName,
+        String interfaceName,
+        String srcMAC,
+        String dstMAC,
+        String srcIp,
+        String dstIp,
+        Integer srcPort,
+        Integer dstPort,
+        String protocol,
+        String packetType,
+        String tcpFlags,
+        Integer length,
+        Integer payloadLength,
+        String dnsQueryName) {
+
+    /** table columns in component order, for SELECT lists */
+    public static final String COLUMNS = "id, captured_at, received_at, agent_id, host_name, interface_name, "
+            + "srcmac, dstmac, src_ip, dst_ip, src_port, dst_port, protocol, packet_type, tcp_flags, length, "
+            + "payload_length, dns_query_name";
+
+    public static PacketSummary of(Packet p) {
+        return new PacketSummary(p.getId(), p.getTimestamp(), p.getReceivedAt(), p.getAgentId(), p.getHostName(),
+                p.getInterfaceName(), p.getSrcMAC(), p.getDstMAC(), p.getSrcIp(), p.getDstIp(), p.getSrcPort(),
+                p.getDstPort(), p.getProtocol(), p.getPacketType(), p.getTcpFlags(), p.getLength(), p.getPayloadLength(),
+                p.getDnsQueryName());
+    }
+}
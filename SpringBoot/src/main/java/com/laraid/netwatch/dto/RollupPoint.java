@@ -0,0 +1,7 @@
+package com.laraid.netwatch.dto;
+
+import java.time.LocalDateTime;
+
+/** One bucket of a rollup time series; {@code key} is the grouped value (null = not reported) */
+public record RollupPoint(LocalDateTime bucket, String key, long packets, long bytes) {
+}
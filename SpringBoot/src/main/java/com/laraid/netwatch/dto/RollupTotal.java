@@ -0,0 +1,5 @@
+package com.laraid.netwatch.dto;
+
+/** Totals for one grouped value over a time range, e.g. one destination port */
+public record RollupTotal(String key, long packets, long bytes) {
+}
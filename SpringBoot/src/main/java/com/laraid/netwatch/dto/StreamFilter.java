@@ -0,0 +1,64 @@
+package com.laraid.netwatch.dto;
+
+import com.laraid.netwatch.utils.PacketColumns;
+import lombok.Data;
+
+import java.util.function.Function;
+
+/**
+ * What a live-stream subscriber wants to see; every field is optional and they combine with AND.
+ * {@code ip} takes an address or a CIDR block and matches either end of the packet, {@code port}
+ * likewise; {@code protocol} takes a number or a name ("tcp"), {@code packetType} is compared
+ * ignoring case. Given as query parameters on the SSE stream and as SUBSCRIBE headers on STOMP.
+ */
+@Data
+public class StreamFilter {
+
+    /** header / parameter names */
+    public static final String AGENT_ID = "agentId";
+    public static final String IP = "ip";
+    public static final String PORT = "port";
+    public static final String PROTOCOL = "protocol";
+    public static final String PACKET_TYPE = "packetType";
+
+    private String agentId;
+    private String ip;
+    private Integer port;
+    private String protocol;
+    private String packetType;
+
+    /** 🔹 Filter from named values (STOMP native headers); absent or blank values are no filter */
+    public static StreamFilter of(Function<String, String> values) {
+        StreamFilter f = new StreamFilter();
+        f.setAgentId(blankToNull(values.apply(AGENT_ID)));
+        f.setIp(blankToNull(values.apply(IP)));
+        String port = blankToNull(values.apply(PORT));
+        if (port != null) {
+            try {
+                f.setPort(Integer.parseInt(port.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("port: expected 0-65535");
+            }
+        }
+        f.setProtocol(blankToNull(values.apply(PROTOCOL)));
+        f.setPacketType(blankToNull(values.apply(PACKET_TYPE)));
+        return f;
+    }
+
+    /** @throws IllegalArgumentException naming the first filter that cannot match anything */
+    public void validate() {
+        if (ip != null && !PacketColumns.isInet(ip) && !PacketColumns.isCidr(ip)) {
+            throw new IllegalArgumentException("ip: expected an IP address or CIDR block");
+        }
+        if (port != null && (port < 0 || port > 65535)) {
+            throw new IllegalArgumentException("port: expected 0-65535");
+        }
+        if (protocol != null && PacketColumns.protocol(protocol) == null) {
+            throw new IllegalArgumentException("protocol: expected a number 0-255 or tcp/udp/icmp/icmpv6");
+        }
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
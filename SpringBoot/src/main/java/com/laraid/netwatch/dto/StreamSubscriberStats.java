@@ -0,0 +1,22 @@
+package com.laraid.netwatch.dto;
+
+import com.laraid.netwatch.config.StreamProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * One connected SSE subscriber: {@code lag} is what sits in its buffer unsent, {@code dropped} what
+ * its overflow policy discarded so far. {@code capacity} and {@code lag} are in items (packets, or
+ * frames when {@code framed}); {@code delivered} and {@code dropped} are always packets.
+ */
+public record StreamSubscriberStats(
+        long id,
+        LocalDateTime connectedAt,
+        boolean framed,
+        StreamFilter filter,
+        StreamProperties.Overflow overflow,
+        int capacity,
+        int lag,
+        long delivered,
+        long dropped) {
+}
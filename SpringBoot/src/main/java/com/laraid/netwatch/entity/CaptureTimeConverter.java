@@ -0,0 +1,33 @@
+package com.laraid.netwatch.entity;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.utils.PacketColumns;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * Agent capture time: ISO text on the entity (and in every JSON/Kafka payload), {@code timestamptz}
+ * in the table. Created by Spring through Hibernate's bean container, hence the injected properties.
+ */
+@Converter
+public class CaptureTimeConverter implements AttributeConverter<String, OffsetDateTime> {
+
+    private final ZoneId zone;
+
+    public CaptureTimeConverter(PersistenceProperties props) {
+        this.zone = props.captureZone();
+    }
+
+    @Override
+    public OffsetDateTime convertToDatabaseColumn(String attribute) {
+        return PacketColumns.captureTime(attribute, zone);
+    }
+
+    @Override
+    public String convertToEntityAttribute(OffsetDateTime dbData) {
+        return dbData == null ? null : PacketColumns.captureTime(dbData.toInstant(), zone);
+    }
+}
@@ -1,9 +1,11 @@
 package com.laraid.netwatch.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.LocalDateTime;
 
@@ -17,20 +19,36 @@ public class Packet {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // agent capture time, ISO text here, timestamptz in the table
+    @Convert(converter = CaptureTimeConverter.class)
+    @Column(name = "captured_at")
     private String timestamp;
 
-    // Ethernet
+    // Ethernet (macaddr, 6 bytes)
+    @Column(name = "srcmac", columnDefinition = "macaddr")
+    @ColumnTransformer(write = "?::macaddr")
     private String srcMAC;
+    @Column(name = "dstmac", columnDefinition = "macaddr")
+    @ColumnTransformer(write = "?::macaddr")
     private String dstMAC;
 
     // ARP
     private String arpOp;
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(write = "?::inet")
     private String arpSrcIp;
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(write = "?::inet")
     private String arpDstIp;
 
-    // IP
+    // IP (inet), protocol number as smallint
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(write = "?::inet")
     private String srcIp;
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(write = "?::inet")
     private String dstIp;
+    @Convert(converter = ProtocolConverter.class)
     private String protocol;
     private Integer ttl;
     private String ipFlags;
@@ -39,7 +57,8 @@ public class Packet {
     private Integer srcPort;
     private Integer dstPort;
     private Long seq;
-    private String tcpFlags;
+    @Convert(converter = TcpFlagsConverter.class)
+    private String tcpFlags;            // bitmask (smallint) in the table
 
     // UDP
     private Integer udpLen;
@@ -54,8 +73,18 @@ public class Packet {
     private String dnsAnswer;
 
     // App Layer
-    @Column(columnDefinition = "TEXT",length = 1000)
-    private String payload;
+    // payload bytes live once per distinct content in packet_payloads (PacketPayloadStore);
+    // the row keeps the SHA-256 and the captured length (stored bytes may be truncated)
+    @JsonIgnore
+    @Column(name = "payload_hash")
+    private byte[] payloadHash;
+    @Column(name = "payload_length")
+    private Integer payloadLength;
+    @JsonIgnore
+    @Transient
+    private byte[] rawPayload;          // exact (possibly truncated) bytes, set at ingest or loaded by id
+    @Transient
+    private String payload;             // text view of rawPayload for JSON consumers
     private String httpInfo;
     private String tlsInfo;
 
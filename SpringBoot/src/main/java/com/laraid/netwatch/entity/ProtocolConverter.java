@@ -0,0 +1,20 @@
+package com.laraid.netwatch.entity;
+
+import com.laraid.netwatch.utils.PacketColumns;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** IP protocol: "6" on the entity, {@code smallint} 6 in the table. */
+@Converter
+public class ProtocolConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String attribute) {
+        return PacketColumns.protocol(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short dbData) {
+        return PacketColumns.protocol(dbData);
+    }
+}
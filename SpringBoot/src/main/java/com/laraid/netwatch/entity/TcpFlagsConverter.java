@@ -0,0 +1,20 @@
+package com.laraid.netwatch.entity;
+
+import com.laraid.netwatch.utils.PacketColumns;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** TCP flags: scapy letters ("PA") on the entity, a {@code smallint} bitmask in the table. */
+@Converter
+public class TcpFlagsConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String attribute) {
+        return PacketColumns.tcpFlags(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short dbData) {
+        return PacketColumns.tcpFlags(dbData);
+    }
+}
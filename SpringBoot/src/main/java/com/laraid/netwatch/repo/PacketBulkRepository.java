@@ -0,0 +1,19 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.entity.Packet;
+
+import java.util.List;
+
+/**
+ * Bulk write path for {@link Packet} rows, bypassing Hibernate's per-row IDENTITY inserts.
+ */
+public interface PacketBulkRepository {
+
+    /**
+     * Insert all packets in one transaction using JDBC batching or binary COPY
+     * (see {@code netwatch.persistence.mode}). Ids are allocated from the table's sequence
+     * up front and set on the given instances.
+     */
+    void bulkInsert(List<Packet> packets);
+
+}
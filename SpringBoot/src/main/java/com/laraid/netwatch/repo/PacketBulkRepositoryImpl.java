@@ -0,0 +1,323 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.PacketColumns;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Spring Data fragment behind {@link PacketRepository#bulkInsert(List)}.
+ * <p>
+ * Ids are taken from the sequence backing {@code packets.id} with a single
+ * {@code nextval(...) FROM generate_series} round-trip, so rows can be written with
+ * JDBC batching or COPY instead of one IDENTITY insert per packet.
+ */
+public class PacketBulkRepositoryImpl implements PacketBulkRepository {
+
+    private static final String COLUMNS = "id, captured_at, srcmac, dstmac, arp_op, arp_src_ip, arp_dst_ip, "
+            + "src_ip, dst_ip, protocol, ttl, ip_flags, src_port, dst_port, seq, tcp_flags, udp_len, "
+            + "icmp_type, icmp_code, dns_query_name, dns_query_type, dns_answer, payload_hash, payload_length, "
+            + "http_info, tls_info, length, packet_type, agent_id, host_name, interface_name, received_at";
+    private static final int COLUMN_COUNT = 32;
+
+    // typed columns are bound as text and cast server-side: srcmac, dstmac, arp_src_ip, arp_dst_ip, src_ip, dst_ip
+    private static final String INSERT_SQL = "INSERT INTO packets (" + COLUMNS + ") VALUES (?,?,"
+            + "?::macaddr,?::macaddr,?,?::inet,?::inet,?::inet,?::inet,"
+            + "?,".repeat(COLUMN_COUNT - 10) + "?)";
+    private static final String COPY_SQL = "COPY packets (" + COLUMNS + ") FROM STDIN (FORMAT binary)";
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('packets', 'id')) FROM generate_series(1, ?)";
+
+    // PGCOPY\n\377\r\n\0 signature, then int32 flags and int32 header extension length
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final long PG_EPOCH_SECONDS = PG_EPOCH.toEpochSecond(ZoneOffset.UTC);
+    // inet binary header: family (PGSQL_AF_INET = 2, PGSQL_AF_INET6 = 3), prefix bits, is_cidr, address length
+    private static final byte PG_AF_INET = 2;
+    private static final byte PG_AF_INET6 = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final PersistenceProperties props;
+    private final ZoneId jdbcZone;
+    private final ZoneId captureZone;
+
+    public PacketBulkRepositoryImpl(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                    PersistenceProperties props, Environment env) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.props = props;
+        // write timestamps the way Hibernate does when hibernate.jdbc.time_zone is set
+        String zone = env.getProperty("spring.jpa.properties.hibernate.jdbc.time_zone");
+        this.jdbcZone = zone != null ? ZoneId.of(zone) : ZoneId.systemDefault();
+        this.captureZone = props.captureZone();
+    }
+
+    @Override
+    @Transactional
+    public void bulkInsert(List<Packet> packets) {
+        if (packets.isEmpty()) return;
+        allocateIds(packets);
+        if (useCopy(packets.size())) {
+            copyInsert(packets);
+        } else {
+            batchInsert(packets);
+        }
+    }
+
+    private boolean useCopy(int rows) {
+        return switch (props.getMode()) {
+            case COPY -> true;
+            case AUTO -> rows >= props.getCopyThreshold();
+            default -> false;
+        };
+    }
+
+    private void allocateIds(List<Packet> packets) {
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, packets.size());
+        for (int i = 0; i < packets.size(); i++) {
+            packets.get(i).setId(ids.get(i));
+        }
+    }
+
+    // ----------------------------
+    // JDBC batch
+    // ----------------------------
+    private void batchInsert(List<Packet> packets) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, packets, props.getJdbcBatchSize(), this::bind);
+    }
+
+    private void bind(PreparedStatement ps, Packet p) throws SQLException {
+        int i = 1;
+        ps.setLong(i++, p.getId());
+        ps.setObject(i++, PacketColumns.captureTime(p.getTimestamp(), captureZone), Types.TIMESTAMP_WITH_TIMEZONE);
+        ps.setString(i++, p.getSrcMAC());
+        ps.setString(i++, p.getDstMAC());
+        ps.setString(i++, p.getArpOp());
+        ps.setString(i++, p.getArpSrcIp());
+        ps.setString(i++, p.getArpDstIp());
+        ps.setString(i++, p.getSrcIp());
+        ps.setString(i++, p.getDstIp());
+        ps.setObject(i++, PacketColumns.protocol(p.getProtocol()), Types.SMALLINT);
+        ps.setObject(i++, p.getTtl(), Types.INTEGER);
+        ps.setString(i++, p.getIpFlags());
+        ps.setObject(i++, p.getSrcPort(), Types.INTEGER);
+        ps.setObject(i++, p.getDstPort(), Types.INTEGER);
+        ps.setObject(i++, p.getSeq(), Types.BIGINT);
+        ps.setObject(i++, PacketColumns.tcpFlags(p.getTcpFlags()), Types.SMALLINT);
+        ps.setObject(i++, p.getUdpLen(), Types.INTEGER);
+        ps.setObject(i++, p.getIcmpType(), Types.INTEGER);
+        ps.setObject(i++, p.getIcmpCode(), Types.INTEGER);
+        ps.setString(i++, p.getDnsQueryName());
+        ps.setString(i++, p.getDnsQueryType());
+        ps.setString(i++, p.getDnsAnswer());
+        ps.setBytes(i++, p.getPayloadHash());
+        ps.setObject(i++, p.getPayloadLength(), Types.INTEGER);
+        ps.setString(i++, p.getHttpInfo());
+        ps.setString(i++, p.getTlsInfo());
+        ps.setObject(i++, p.getLength(), Types.INTEGER);
+        ps.setString(i++, p.getPacketType());
+        ps.setString(i++, p.getAgentId());
+        ps.setString(i++, p.getHostName());
+        ps.setString(i++, p.getInterfaceName());
+        ps.setObject(i, toJdbcZone(p.getReceivedAt()), Types.TIMESTAMP);
+    }
+
+    // ----------------------------
+    // COPY FROM STDIN (FORMAT binary)
+    // ----------------------------
+    private void copyInsert(List<Packet> packets) {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        PGCopyOutputStream copy = null;
+        try {
+            PGConnection pg = con.unwrap(PGConnection.class);
+            copy = new PGCopyOutputStream(pg, COPY_SQL);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(copy, props.getCopyBufferSize()));
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+            for (Packet p : packets) {
+                writeRow(out, p);
+            }
+            out.writeShort(-1);
+            out.flush();
+            copy.endCopy();
+        } catch (SQLException e) {
+            cancel(copy, e);
+            throw new IllegalStateException("COPY into packets failed", e);
+        } catch (IOException e) {
+            cancel(copy, e);
+            throw new UncheckedIOException("COPY into packets failed", e);
+        } catch (RuntimeException e) {
+            cancel(copy, e);
+            throw e;
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /** abort a failed COPY (CopyFail) rather than end it: ending would send a half-written stream as complete */
+    private static void cancel(PGCopyOutputStream copy, Exception failure) {
+        if (copy == null || !copy.isActive()) return;
+        try {
+            copy.cancelCopy();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void writeRow(DataOutputStream out, Packet p) throws IOException {
+        out.writeShort(COLUMN_COUNT);
+        writeInt8(out, p.getId());
+        writeTimestamptz(out, PacketColumns.captureTime(p.getTimestamp(), captureZone));
+        writeMacaddr(out, p.getSrcMAC());
+        writeMacaddr(out, p.getDstMAC());
+        writeText(out, p.getArpOp());
+        writeInet(out, p.getArpSrcIp());
+        writeInet(out, p.getArpDstIp());
+        writeInet(out, p.getSrcIp());
+        writeInet(out, p.getDstIp());
+        writeInt2(out, PacketColumns.protocol(p.getProtocol()));
+        writeInt4(out, p.getTtl());
+        writeText(out, p.getIpFlags());
+        writeInt4(out, p.getSrcPort());
+        writeInt4(out, p.getDstPort());
+        writeInt8(out, p.getSeq());
+        writeInt2(out, PacketColumns.tcpFlags(p.getTcpFlags()));
+        writeInt4(out, p.getUdpLen());
+        writeInt4(out, p.getIcmpType());
+        writeInt4(out, p.getIcmpCode());
+        writeText(out, p.getDnsQueryName());
+        writeText(out, p.getDnsQueryType());
+        writeText(out, p.getDnsAnswer());
+        writeBytes(out, p.getPayloadHash());
+        writeInt4(out, p.getPayloadLength());
+        writeText(out, p.getHttpInfo());
+        writeText(out, p.getTlsInfo());
+        writeInt4(out, p.getLength());
+        writeText(out, p.getPacketType());
+        writeText(out, p.getAgentId());
+        writeText(out, p.getHostName());
+        writeText(out, p.getInterfaceName());
+        writeTimestamp(out, toJdbcZone(p.getReceivedAt()));
+    }
+
+    private LocalDateTime toJdbcZone(LocalDateTime v) {
+        if (v == null) return null;
+        return v.atZone(ZoneId.systemDefault()).withZoneSameInstant(jdbcZone).toLocalDateTime();
+    }
+
+    private static void writeText(DataOutputStream out, String v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(v.length);
+        out.write(v);
+    }
+
+    private static void writeInt2(DataOutputStream out, Short v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(2);
+        out.writeShort(v);
+    }
+
+    private static void writeInt4(DataOutputStream out, Integer v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(v);
+    }
+
+    private static void writeInt8(DataOutputStream out, Long v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(v);
+    }
+
+    /** inet: family, bits, is_cidr, nb, then the address bytes */
+    private static void writeInet(DataOutputStream out, String v) throws IOException {
+        byte[] addr = PacketColumns.inet(v);
+        if (addr == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4 + addr.length);
+        out.writeByte(addr.length == 4 ? PG_AF_INET : PG_AF_INET6);
+        out.writeByte(addr.length * 8);
+        out.writeByte(0);
+        out.writeByte(addr.length);
+        out.write(addr);
+    }
+
+    /** macaddr: the 6 raw bytes */
+    private static void writeMacaddr(DataOutputStream out, String v) throws IOException {
+        byte[] mac = PacketColumns.mac(v);
+        if (mac == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(6);
+        out.write(mac);
+    }
+
+    /** timestamptz: int64 microseconds since 2000-01-01 UTC */
+    private static void writeTimestamptz(DataOutputStream out, OffsetDateTime v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong((v.toEpochSecond() - PG_EPOCH_SECONDS) * 1_000_000L + v.getNano() / 1_000);
+    }
+
+    /** timestamp without time zone: int64 microseconds since 2000-01-01 */
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime v) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, v));
+    }
+}
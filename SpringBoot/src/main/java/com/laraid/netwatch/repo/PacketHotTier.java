@@ -0,0 +1,328 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.HotTierProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.utils.PacketSummaryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped log of the most recently ingested packets, so {@code /latest}
+ * and dashboard loads are answered without touching PostgreSQL.
+ * <p>
+ * Packets are appended as {@link PacketSummaryCodec} records right after their rows are written.
+ * Records go into fixed-size segment files ({@code <n>.seg}) mapped read-write; a full segment
+ * is sealed and a new one started. Whole segments are deleted once the tier exceeds
+ * {@code maxBytes} or their newest packet has left {@code window}.
+ * <p>
+ * A segment starts with {@code [int magic][int format version]}; records follow as
+ * {@code [int length][int crc32][summary]}, the length written last, so a zero length is the end
+ * of a segment and a CRC mismatch a torn write. On startup every segment file is re-mapped and
+ * scanned up to the first invalid record, so the tier survives restarts. A segment written in
+ * another format (older build, different {@link PacketSummaryCodec} layout) is deleted rather than
+ * misread; other files in the directory are left alone.
+ * <p>
+ * One writer at a time ({@code append} is synchronized); readers never lock: each segment
+ * publishes its record count through a volatile after the bytes and offsets are in place.
+ */
+@Component
+public class PacketHotTier {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketHotTier.class);
+
+    static final String SUFFIX = ".seg";
+    static final int MAGIC = 0x4E574854;                 // "NWHT"
+    static final int FORMAT_VERSION = 1;                 // bump with any change to the record or summary layout
+    static final int SEGMENT_HEADER = 8;                 // int magic, int format version
+    private static final int HEADER = 8;                 // int length, int crc
+    private static final int RECEIVED_AT = HEADER + 12;  // after presence bitmap and id, see PacketSummaryCodec
+
+    /** 🔹 One mapped segment file; offsets/count are written by the appender only */
+    static final class Segment {
+        final long number;
+        final Path file;
+        final MappedByteBuffer buffer;
+        private volatile int[] offsets = new int[1024];
+        private volatile int count;
+        private volatile long newest = Long.MIN_VALUE;   // µs, PacketSummaryCodec.micros
+        private int position;
+
+        Segment(long number, Path file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        int count() {
+            return count;
+        }
+
+        private void add(int offset, long receivedAt) {
+            if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+            offsets[count] = offset;
+            if (receivedAt > newest) newest = receivedAt;
+            count = count + 1;   // publishes the record to readers
+        }
+    }
+
+    private final HotTierProperties props;
+    private final PacketSummaryCodec codec;
+    private final Path directory;
+    private volatile List<Segment> segments = List.of();   // oldest first, copy-on-write
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private volatile boolean enabled;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter skipped;
+
+    public PacketHotTier(HotTierProperties props, PersistenceProperties persistenceProperties, MeterRegistry registry) {
+        this.props = props;
+        this.codec = new PacketSummaryCodec(persistenceProperties.captureZone());
+        this.directory = Paths.get(props.getDirectory());
+        this.enabled = props.isEnabled();
+        this.hits = Counter.builder("netwatch.hottier.reads").tag("result", "hit")
+                .description("Latest-packet reads answered from the hot tier").register(registry);
+        this.misses = Counter.builder("netwatch.hottier.reads").tag("result", "miss")
+                .description("Latest-packet reads that had to go to the database").register(registry);
+        this.skipped = Counter.builder("netwatch.hottier.skipped")
+                .description("Packets not appended (record larger than a segment, or I/O error)").register(registry);
+        Gauge.builder("netwatch.hottier.bytes", this, t -> t.segments.stream().mapToLong(Segment::capacity).sum())
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("netwatch.hottier.packets", this, t -> t.segments.stream().mapToLong(Segment::count).sum())
+                .register(registry);
+        if (enabled) open();
+    }
+
+    /** 🔹 Re-map existing segment files (oldest first) and drop what has aged out meanwhile */
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Segment> found = new ArrayList<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                    long number = segmentNumber(file);
+                    if (number < 0) {
+                        log.warn("Hot tier ignores {}: not a segment name", file);
+                        continue;
+                    }
+                    recover(number, file).ifPresent(found::add);
+                }
+            }
+            found.sort(Comparator.comparingLong(segment -> segment.number));
+            segments = List.copyOf(found);
+            evict();
+            log.info("Hot tier at {}: {} segments, {} packets", directory.toAbsolutePath(),
+                    segments.size(), segments.stream().mapToLong(Segment::count).sum());
+        } catch (IOException | RuntimeException e) {
+            log.error("Hot tier disabled, cannot open {}", directory.toAbsolutePath(), e);
+            enabled = false;
+        }
+    }
+
+    /** the n of {@code <n>.seg}, or -1 for any other name */
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Math.max(-1, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** empty when the file is not a segment of this format; such a file is deleted */
+    private Optional<Segment> recover(long number, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long size = Files.size(file);
+        if (size < SEGMENT_HEADER || size > Integer.MAX_VALUE) {
+            return discard(file, "size " + size);
+        }
+        Segment segment = new Segment(number, file, map(file, size));
+        ByteBuffer b = segment.buffer;
+        if (b.getInt(0) != MAGIC || b.getInt(4) != FORMAT_VERSION) {
+            return discard(file, String.format("magic %08x, format %d", b.getInt(0), b.getInt(4)));
+        }
+        CRC32 crc = new CRC32();
+        int pos = SEGMENT_HEADER;
+        while (pos + HEADER <= b.capacity()) {
+            int length = b.getInt(pos);
+            if (length <= 0 || pos + HEADER + length > b.capacity() || !valid(b, pos, length, crc)) {
+                if (length != 0) {
+                    log.warn("Hot tier segment {} has a torn record at {}, truncated there", name, pos);
+                    for (int i = pos; i < b.capacity(); i++) b.put(i, (byte) 0);
+                }
+                break;
+            }
+            segment.add(pos, b.getLong(pos + RECEIVED_AT));
+            pos += HEADER + length;
+        }
+        segment.position = pos;
+        return Optional.of(segment);
+    }
+
+    private static Optional<Segment> discard(Path file, String found) throws IOException {
+        log.warn("Hot tier segment {} is not format {} ({}), deleted", file, FORMAT_VERSION, found);
+        Files.delete(file);
+        return Optional.empty();
+    }
+
+    private static boolean valid(ByteBuffer b, int pos, int length, CRC32 crc) {
+        crc.reset();
+        crc.update(b.duplicate().position(pos + HEADER).limit(pos + HEADER + length));
+        return (int) crc.getValue() == b.getInt(pos + 4);
+    }
+
+    /** 🔹 Append packets in ingestion order; never throws (the rows are already in the database) */
+    public synchronized void append(List<PacketSummary> packets) {
+        if (!enabled) return;
+        CRC32 crc = new CRC32();
+        for (PacketSummary p : packets) {
+            try {
+                int length = encode(p);
+                if (length < 0) {
+                    skipped.increment();
+                    continue;
+                }
+                Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (active == null || active.position + HEADER + length > active.capacity()) {
+                    active = roll(active);
+                }
+                int pos = active.position;
+                ByteBuffer b = active.buffer;
+                b.put(pos + HEADER, scratch, 0, length);
+                crc.reset();
+                crc.update(scratch.duplicate().position(0).limit(length));
+                b.putInt(pos + 4, (int) crc.getValue());
+                b.putInt(pos, length);
+                active.position = pos + HEADER + length;
+                active.add(pos, b.getLong(pos + RECEIVED_AT));
+            } catch (IOException | UncheckedIOException e) {
+                skipped.increment();
+                log.error("Hot tier append failed", e);
+            }
+        }
+    }
+
+    /** encoded size in {@link #scratch}, or -1 when the record cannot fit in one segment */
+    private int encode(PacketSummary p) {
+        while (true) {
+            try {
+                scratch.clear();
+                codec.write(p, scratch);
+                return scratch.position();
+            } catch (BufferOverflowException e) {
+                if (scratch.capacity() * 2L > props.getSegmentBytes() - SEGMENT_HEADER - HEADER) return -1;
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private Segment roll(Segment sealed) throws IOException {
+        long number = sealed == null ? 0 : sealed.number + 1;
+        Path file = directory.resolve(String.format("%020d%s", number, SUFFIX));
+        Segment next = new Segment(number, file, map(file, props.getSegmentBytes()));
+        next.buffer.putInt(0, MAGIC);
+        next.buffer.putInt(4, FORMAT_VERSION);
+        next.position = SEGMENT_HEADER;
+        List<Segment> list = new ArrayList<>(segments);
+        list.add(next);
+        segments = List.copyOf(list);
+        evict();
+        return next;
+    }
+
+    /**
+     * 🔹 Newest {@code limit} packets, newest first, if the tier holds that many within its window;
+     * empty means the caller has to ask the database.
+     */
+    public Optional<List<PacketSummary>> latest(int limit) {
+        if (!enabled) return Optional.empty();
+        long oldest = PacketSummaryCodec.micros(LocalDateTime.now().minus(props.getWindow()));
+        List<Segment> snapshot = segments;
+        List<PacketSummary> out = new ArrayList<>(limit);
+        for (int s = snapshot.size() - 1; s >= 0 && out.size() < limit; s--) {
+            Segment segment = snapshot.get(s);
+            int count = segment.count();
+            int[] offsets = segment.offsets;   // read after count, so it has at least count entries
+            ByteBuffer b = segment.buffer.duplicate();
+            for (int i = count - 1; i >= 0 && out.size() < limit; i--) {
+                int pos = offsets[i];
+                if (b.getLong(pos + RECEIVED_AT) < oldest) break;
+                out.add(codec.read(b.position(pos + HEADER)));
+            }
+        }
+        if (out.size() < limit) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        // append order is commit order; present it the way the database pages it
+        out.sort(Comparator.comparing(PacketSummary::receivedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(PacketSummary::id, Comparator.nullsLast(Comparator.reverseOrder())));
+        return Optional.of(out);
+    }
+
+    /** 🔹 Delete sealed segments over the size budget or entirely outside the window */
+    @Scheduled(fixedDelayString = "${netwatch.hot-tier.evict-interval-ms:60000}")
+    public synchronized void evict() {
+        if (segments.size() < 2) return;
+        long oldest = PacketSummaryCodec.micros(LocalDateTime.now().minus(props.getWindow()));
+        List<Segment> list = new ArrayList<>(segments);
+        long bytes = list.stream().mapToLong(Segment::capacity).sum();
+        while (list.size() > 1 && (bytes > props.getMaxBytes() || list.get(0).newest < oldest)) {
+            Segment gone = list.remove(0);
+            bytes -= gone.capacity();
+            try {
+                Files.deleteIfExists(gone.file);   // mapping stays valid for readers still holding it
+            } catch (IOException e) {
+                log.warn("Could not delete hot tier segment {}", gone.file, e);
+            }
+        }
+        segments = List.copyOf(list);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        segments.forEach(s -> s.buffer.force());
+    }
+
+    List<Segment> segments() {
+        return segments;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.PacketBinaryCodec;
+import com.laraid.netwatch.utils.PacketBinarySerializer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.Array;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Transactional outbox for packet-events: {@link #append} writes one row per packet in the
+ * transaction that inserts the packets, so a committed packet is always eventually published and
+ * a rolled-back one never is. Rows carry the {@link PacketBinaryCodec} form of the packet and are
+ * deleted once relayed; {@code packet_outbox_relay} records each relay's progress and holds a lease
+ * ({@link #lock}), so only one instance relays at a time. A lease rather than a row lock: a relay
+ * waits for the broker without an open transaction, which would hold a connection and keep
+ * vacuum from cleaning up behind it.
+ * <p>
+ * Ids come from a sequence and writers commit out of order, so a relay never skips ahead by id:
+ * it takes the lowest ids still present and deletes exactly what it published.
+ */
+@Repository
+public class PacketOutbox {
+
+    static final String TABLE = "packet_outbox";
+    static final String RELAY_TABLE = "packet_outbox_relay";
+    // a queue table: rows live seconds, so vacuum it long before the default 20% dead rows
+    static final String DDL = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "id bigserial PRIMARY KEY, created_at timestamptz NOT NULL DEFAULT now(), payload bytea NOT NULL) "
+            + "WITH (autovacuum_vacuum_scale_factor = 0.01)";
+    static final String RELAY_DDL = "CREATE TABLE IF NOT EXISTS " + RELAY_TABLE + " ("
+            + "relay varchar(255) PRIMARY KEY, last_id bigint NOT NULL, relayed bigint NOT NULL, "
+            + "updated_at timestamptz NOT NULL, owner varchar(255), lease_until timestamptz)";
+    static final String RELAY_LEASE_DDL = "ALTER TABLE " + RELAY_TABLE
+            + " ADD COLUMN IF NOT EXISTS owner varchar(255), ADD COLUMN IF NOT EXISTS lease_until timestamptz";
+
+    /** 🔹 One outbox row, decoded */
+    public record Entry(long id, OffsetDateTime createdAt, Packet packet) {
+    }
+
+    /** 🔹 What a relay has done so far */
+    public record Progress(long lastId, long relayed, OffsetDateTime updatedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PersistenceProperties props;
+    private final PacketBinarySerializer serializer = new PacketBinarySerializer();
+    private final PacketBinaryCodec codec = new PacketBinaryCodec();
+
+    public PacketOutbox(JdbcTemplate jdbcTemplate, PersistenceProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.props = props;
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(DDL);
+        jdbcTemplate.execute(RELAY_DDL);
+        jdbcTemplate.execute(RELAY_LEASE_DDL);
+    }
+
+    /** 🔹 Queue packets for publishing; call inside the transaction that writes them */
+    public void append(List<Packet> packets) {
+        if (packets.isEmpty()) return;
+        jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (payload) VALUES (?)", packets, props.getJdbcBatchSize(),
+                (ps, p) -> ps.setBytes(1, serializer.serialize(TABLE, p)));
+    }
+
+    /**
+     * 🔹 Take or renew {@code relay}'s lease for {@code owner} until {@code leaseMs} from now; empty
+     * while another owner's lease is still running
+     */
+    public Optional<Progress> lock(String relay, String owner, long leaseMs) {
+        jdbcTemplate.update("INSERT INTO " + RELAY_TABLE + " (relay, last_id, relayed, updated_at) "
+                + "VALUES (?, 0, 0, now()) ON CONFLICT (relay) DO NOTHING", relay);
+        return jdbcTemplate.query("UPDATE " + RELAY_TABLE + " SET owner = ?, lease_until = now() + ? * interval '1 millisecond' "
+                        + "WHERE relay = ? AND (owner IS NULL OR owner = ? OR lease_until < now()) "
+                        + "RETURNING last_id, relayed, updated_at",
+                (rs, i) -> new Progress(rs.getLong(1), rs.getLong(2), rs.getObject(3, OffsetDateTime.class)),
+                owner, leaseMs, relay, owner).stream().findFirst();
+    }
+
+    /** 🔹 Give up {@code owner}'s lease so another instance can take over at once */
+    public void unlock(String relay, String owner) {
+        jdbcTemplate.update("UPDATE " + RELAY_TABLE + " SET owner = NULL, lease_until = NULL WHERE relay = ? AND owner = ?",
+                relay, owner);
+    }
+
+    /** 🔹 The {@code limit} lowest-id rows, oldest first */
+    public List<Entry> next(int limit) {
+        return jdbcTemplate.query("SELECT id, created_at, payload FROM " + TABLE + " ORDER BY id LIMIT ?",
+                (rs, i) -> new Entry(rs.getLong(1), rs.getObject(2, OffsetDateTime.class),
+                        codec.read(ByteBuffer.wrap(rs.getBytes(3)))), limit);
+    }
+
+    /** 🔹 Delete relayed rows and advance {@code relay}'s progress; call in one transaction */
+    public void remove(String relay, List<Entry> relayed) {
+        if (relayed.isEmpty()) return;
+        Long[] ids = relayed.stream().map(Entry::id).toArray(Long[]::new);
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id = ANY (?)", ps -> {
+            Array array = ps.getConnection().createArrayOf("bigint", ids);
+            ps.setArray(1, array);
+        });
+        jdbcTemplate.update("UPDATE " + RELAY_TABLE + " SET last_id = greatest(last_id, ?), relayed = relayed + ?, "
+                + "updated_at = now() WHERE relay = ?", ids[ids.length - 1], ids.length, relay);
+    }
+
+    /** 🔹 Rows waiting to be relayed (a count: for the actuator, not the hot path) */
+    public long backlog() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + TABLE, Long.class);
+        return rows != null ? rows : 0;
+    }
+}
@@ -0,0 +1,229 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PartitionProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code packets} a native PostgreSQL table partitioned by RANGE on {@code received_at}.
+ * <p>
+ * Hibernate ({@code ddl-auto: update}) still creates the plain table on a fresh database; right
+ * after the EntityManagerFactory is up this manager converts it once: the old heap is renamed
+ * to {@code packets_legacy} and attached as the {@code MINVALUE} partition, and {@code id}
+ * moves from IDENTITY to a plain sequence default (the primary key becomes
+ * {@code (id, received_at)} since it must contain the partition key).
+ * <p>
+ * Afterwards {@link #maintain()} runs on a schedule: it pre-creates {@code premake} partitions
+ * ahead of now and detaches (and by default drops) partitions that lie entirely before the
+ * retention cutoff, so retention never DELETEs rows.
+ * <p>
+ * The read indexes ({@link #INDEXES}: keyset pagination and the search filters) are created here
+ * as well, whether or not partitioning is enabled.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class PacketPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketPartitionManager.class);
+
+    static final String TABLE = "packets";
+    static final String LEGACY = "packets_legacy";
+    static final String ID_SEQUENCE = "packets_part_id_seq";
+
+    /**
+     * 🔹 Index name → columns. Each ends in (received_at, id), so rows matching an equality on the
+     * leading column come out in page order and the keyset cursor is an index condition. dst_port
+     * picks out a service ("all :443 traffic"); src_port (ephemeral), protocol and packet type are
+     * left to filtering: low selectivity, not worth the write cost.
+     */
+    static final Map<String, String> INDEXES = Map.of(
+            "packets_received_at_id_idx", "received_at, id",
+            "packets_src_ip_received_at_idx", "src_ip, received_at, id",
+            "packets_dst_ip_received_at_idx", "dst_ip, received_at, id",
+            "packets_dst_port_received_at_idx", "dst_port, received_at, id",
+            "packets_agent_received_at_idx", "agent_id, received_at, id");
+
+    private static final Pattern BOUND = Pattern.compile(
+            "FROM \\((MINVALUE|'([^']*)')\\) TO \\((MAXVALUE|'([^']*)')\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final PartitionProperties props;
+    private final ZoneId jdbcZone;
+
+    public PacketPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  PartitionProperties props, Environment env) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.props = props;
+        // received_at is stored as wall-clock time in hibernate.jdbc.time_zone, so bounds are computed there
+        String zone = env.getProperty("spring.jpa.properties.hibernate.jdbc.time_zone");
+        this.jdbcZone = zone != null ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    /** 🔹 One partition as reported by pg_inherits; null bound = MINVALUE/MAXVALUE */
+    record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        String kind = jdbcTemplate.query("SELECT relkind FROM pg_class WHERE oid = to_regclass(?)",
+                rs -> rs.next() ? rs.getString(1) : null, TABLE);
+        if (kind == null) {
+            log.warn("Table {} not found, partition management skipped", TABLE);
+            return;
+        }
+        if (props.isEnabled() && "r".equals(kind)) {
+            tx.executeWithoutResult(s -> migrateLegacyTable());
+        }
+        ensureIndexes();
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${netwatch.partitions.maintenance-interval-ms:3600000}",
+            initialDelayString = "${netwatch.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!props.isEnabled()) return;
+        try {
+            LocalDateTime now = LocalDateTime.now(jdbcZone);
+            createAhead(now);
+            enforceRetention(now);
+        } catch (RuntimeException e) {
+            log.error("Packet partition maintenance failed", e);
+        }
+    }
+
+    /** 🔹 Plain heap → partitioned parent with the old heap attached as its first partition */
+    private void migrateLegacyTable() {
+        LocalDateTime newest = jdbcTemplate.queryForObject(
+                "SELECT max(received_at) FROM " + TABLE, LocalDateTime.class);
+        LocalDateTime now = LocalDateTime.now(jdbcZone);
+        LocalDateTime legacyEnd = floor(newest != null && newest.isAfter(now) ? newest : now).plus(1, props.getInterval().unit);
+        Long lastId = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM " + TABLE, Long.class);
+
+        log.info("Converting {} to a partitioned table, existing rows stay in {} (received_at < {})",
+                TABLE, LEGACY, legacyEnd);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " DROP CONSTRAINT IF EXISTS packets_pkey");
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " ALTER COLUMN id DROP DEFAULT");
+        jdbcTemplate.update("UPDATE " + LEGACY + " SET received_at = '-infinity' WHERE received_at IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " ALTER COLUMN received_at SET NOT NULL");
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY + ") PARTITION BY RANGE (received_at)");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + ID_SEQUENCE + " OWNED BY " + TABLE + ".id");
+        jdbcTemplate.queryForObject("SELECT setval('" + ID_SEQUENCE + "', ?, false)", Long.class, lastId + 1);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN id SET DEFAULT nextval('" + ID_SEQUENCE + "')");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT packets_pkey PRIMARY KEY (id, received_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY
+                + " FOR VALUES FROM (MINVALUE) TO ('" + legacyEnd + "')");
+    }
+
+    /** 🔹 Create missing {@link #INDEXES}; the plain received_at index is superseded by (received_at, id) */
+    private void ensureIndexes() {
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ?", String.class, TABLE));
+        INDEXES.forEach((name, columns) -> {
+            if (existing.contains(name)) return;
+            long start = System.currentTimeMillis();
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " ON " + TABLE + " (" + columns + ")");
+            log.info("Created index {} ({}) in {} ms", name, columns, System.currentTimeMillis() - start);
+        });
+        jdbcTemplate.execute("DROP INDEX IF EXISTS packets_received_at_idx");
+    }
+
+    /** 🔹 Make sure [now, now + premake intervals] is covered; never overlaps existing partitions */
+    void createAhead(LocalDateTime now) {
+        List<Partition> existing = partitions();
+        LocalDateTime start = floor(now);
+        LocalDateTime horizon = start.plus(props.getPremake() + 1L, props.getInterval().unit);
+        for (LocalDateTime from = start; from.isBefore(horizon); from = from.plus(1, props.getInterval().unit)) {
+            LocalDateTime to = from.plus(1, props.getInterval().unit);
+            LocalDateTime clipped = from;
+            for (Partition p : existing) {
+                if (p.overlaps(clipped, to)) clipped = p.to() == null ? to : max(clipped, p.to());
+            }
+            if (!clipped.isBefore(to)) continue;
+            String name = TABLE + "_p" + clipped.format(DateTimeFormatter.ofPattern(props.getInterval().suffixPattern));
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + clipped + "') TO ('" + to + "')");
+            existing.add(new Partition(name, clipped, to));
+            log.info("Created packet partition {} [{}, {})", name, clipped, to);
+        }
+    }
+
+    /** 🔹 Detach (and drop) whole partitions whose upper bound is at or before now - retention */
+    void enforceRetention(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(props.getRetention());
+        for (Partition p : partitions()) {
+            if (p.to() == null || p.to().isAfter(cutoff)) continue;
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + p.name());
+            if (props.isDropDetached()) {
+                jdbcTemplate.execute("DROP TABLE " + p.name());
+            }
+            log.info("Retention: {} partition {} (< {})", props.isDropDetached() ? "dropped" : "detached", p.name(), p.to());
+        }
+    }
+
+    /** 🔹 Size of packets and each of its partitions (a plain table reports itself) */
+    public PacketStorageStats storageStats() {
+        return PacketStorageStats.of(jdbcTemplate.query(
+                "SELECT c.relname, c.reltuples::bigint, pg_table_size(c.oid), pg_indexes_size(c.oid) FROM pg_class c "
+                        + "WHERE c.relkind = 'r' AND (c.oid = to_regclass(?) "
+                        + "OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass(?))) "
+                        + "ORDER BY c.relname",
+                (rs, n) -> new PacketStorageStats.Relation(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                TABLE, TABLE));
+    }
+
+    List<Partition> partitions() {
+        List<Partition> list = new ArrayList<>(jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+                (rs, n) -> parse(rs.getString(1), rs.getString(2)), TABLE));
+        list.sort(Comparator.comparing(Partition::from, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return list;
+    }
+
+    static Partition parse(String name, String bound) {
+        Matcher m = BOUND.matcher(bound);
+        if (!m.find()) throw new IllegalStateException("Unexpected partition bound for " + name + ": " + bound);
+        return new Partition(name, timestamp(m.group(2)), timestamp(m.group(4)));
+    }
+
+    private static LocalDateTime timestamp(String literal) {
+        return literal == null ? null : LocalDateTime.parse(literal.replace(' ', 'T'));
+    }
+
+    private LocalDateTime floor(LocalDateTime t) {
+        return t.truncatedTo(props.getInterval().unit);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,188 @@
+package com.laraid.netwatch.repo;
+
+import com.github.luben.zstd.Zstd;
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Content-addressed payload storage: {@code packet_payloads} holds each distinct payload once,
+ * keyed by its SHA-256 and compressed with zstd (or raw, whichever is smaller), as
+ * {@code bytea} so binary payloads round-trip exactly. Packet rows keep only the hash and length.
+ * <p>
+ * Keepalives, retransmissions and banners repeat constantly, so a small direct-mapped cache of
+ * recently stored hashes skips most upserts entirely. {@code last_seen} (a date, refreshed at
+ * most once a day per payload) lets {@link #purge()} drop payloads no packet within retention
+ * can still reference.
+ */
+@Component
+public class PacketPayloadStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketPayloadStore.class);
+
+    static final String TABLE = "packet_payloads";
+    static final String DDL = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "hash bytea PRIMARY KEY, length integer NOT NULL, codec smallint NOT NULL, "
+            + "data bytea NOT NULL, last_seen date NOT NULL)";
+
+    static final short RAW = 0;
+    static final short ZSTD = 1;
+
+    // sorted by hash so concurrent writers lock conflicting rows in the same order
+    private static final String UPSERT_SQL = "INSERT INTO " + TABLE + " (hash, length, codec, data, last_seen) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (hash) DO UPDATE SET last_seen = EXCLUDED.last_seen "
+            + "WHERE " + TABLE + ".last_seen < EXCLUDED.last_seen";
+
+    private static final MessageDigest SHA_256;
+
+    static {
+        try {
+            SHA_256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 🔹 Stored form of one payload */
+    record Encoded(short codec, byte[] data) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProperties partitionProperties;
+    private final int level;
+    private final long[] recent;    // hash prefix (48 bits) | epoch day (16 bits), 0 = empty
+    private final Counter written;
+    private final Counter cached;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    public PacketPayloadStore(JdbcTemplate jdbcTemplate, PersistenceProperties props,
+                              PartitionProperties partitionProperties, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionProperties = partitionProperties;
+        this.level = props.getPayloadCompressionLevel();
+        this.recent = new long[Integer.highestOneBit(Math.max(1, props.getPayloadCacheSlots()))];
+        this.written = Counter.builder("netwatch.payload.upserts")
+                .description("Distinct payloads sent to packet_payloads")
+                .register(registry);
+        this.cached = Counter.builder("netwatch.payload.cache.hits")
+                .description("Payloads already stored today, skipped without a DB round-trip")
+                .register(registry);
+        this.rawBytes = Counter.builder("netwatch.payload.bytes.raw").baseUnit("bytes").register(registry);
+        this.storedBytes = Counter.builder("netwatch.payload.bytes.stored").baseUnit("bytes").register(registry);
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(DDL);
+    }
+
+    /**
+     * 🔹 Set {@code payloadHash} on every packet carrying {@code rawPayload} and make sure its
+     * bytes are in the store. Call before the packet rows are written.
+     */
+    public void store(List<Packet> packets) {
+        LocalDate today = LocalDate.now();
+        Map<ByteBuffer, byte[]> pending = new TreeMap<>();
+        for (Packet p : packets) {
+            byte[] raw = p.getRawPayload();
+            if (raw == null) continue;
+            byte[] hash = hash(raw);
+            p.setPayloadHash(hash);
+            long slot = slot(hash, today);
+            int index = (int) (slot >>> 16) & (recent.length - 1);
+            if (recent[index] == slot) {
+                cached.increment();
+                continue;
+            }
+            pending.putIfAbsent(ByteBuffer.wrap(hash), raw);
+        }
+        if (pending.isEmpty()) return;
+
+        Date day = Date.valueOf(today);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, pending.entrySet(), pending.size(), (ps, e) -> {
+            byte[] raw = e.getValue();
+            Encoded encoded = encode(raw, level);
+            ps.setBytes(1, e.getKey().array());
+            ps.setInt(2, raw.length);
+            ps.setShort(3, encoded.codec());
+            ps.setBytes(4, encoded.data());
+            ps.setDate(5, day);
+            rawBytes.increment(raw.length);
+            storedBytes.increment(encoded.data().length);
+        });
+        written.increment(pending.size());
+        for (ByteBuffer hash : pending.keySet()) {
+            long slot = slot(hash.array(), today);
+            recent[(int) (slot >>> 16) & (recent.length - 1)] = slot;
+        }
+    }
+
+    /** 🔹 Exact stored bytes for a hash */
+    public Optional<byte[]> load(byte[] hash) {
+        if (hash == null) return Optional.empty();
+        return jdbcTemplate.query("SELECT codec, data, length FROM " + TABLE + " WHERE hash = ?",
+                rs -> rs.next() ? Optional.of(decode(rs.getShort(1), rs.getBytes(2), rs.getInt(3))) : Optional.empty(),
+                (Object) hash);
+    }
+
+    /** 🔹 Drop payloads not seen since before the packet retention window (plus a day of slack) */
+    @Scheduled(fixedDelayString = "${netwatch.partitions.maintenance-interval-ms:3600000}",
+            initialDelayString = "${netwatch.partitions.maintenance-interval-ms:3600000}")
+    public void purge() {
+        if (!partitionProperties.isEnabled()) return;   // packets are only ever removed by partition retention
+        LocalDate cutoff = LocalDate.now().minusDays(partitionProperties.getRetention().toDays() + 1);
+        try {
+            int removed = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE last_seen < ?", Date.valueOf(cutoff));
+            if (removed > 0) log.info("Purged {} payloads last seen before {}", removed, cutoff);
+        } catch (RuntimeException e) {
+            log.error("Payload purge failed", e);
+        }
+    }
+
+    static byte[] hash(byte[] raw) {
+        try {
+            MessageDigest digest = (MessageDigest) SHA_256.clone();
+            return digest.digest(raw);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Encoded encode(byte[] raw, int level) {
+        byte[] compressed = Zstd.compress(raw, level);
+        return compressed.length < raw.length ? new Encoded(ZSTD, compressed) : new Encoded(RAW, raw);
+    }
+
+    static byte[] decode(short codec, byte[] data, int length) {
+        return switch (codec) {
+            case RAW -> data;
+            case ZSTD -> Zstd.decompress(data, length);
+            default -> throw new IllegalStateException("Unknown payload codec " + codec);
+        };
+    }
+
+    private static long slot(byte[] hash, LocalDate day) {
+        long prefix = ByteBuffer.wrap(hash).getLong() & ~0xFFFFL;
+        return prefix | (day.toEpochDay() & 0xFFFF);
+    }
+}
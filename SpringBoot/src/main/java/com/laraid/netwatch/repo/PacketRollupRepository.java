@@ -0,0 +1,166 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.dto.RollupPoint;
+import com.laraid.netwatch.dto.RollupTotal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-minute, per-hour and per-day packet/byte counts keyed by (agent, protocol, source IP,
+ * destination port), so aggregate questions never scan {@code packets}.
+ * <p>
+ * Minute rows are upserted additively from the in-memory counters; hour rows are recomputed from
+ * minute rows and day rows from hour rows ({@link #compact}), which makes compaction idempotent.
+ * Absent key values are stored as sentinels so every key column can be in the primary key:
+ * {@code ''} agent, protocol/port {@code -1}, address {@code 0.0.0.0/0} (a real address is
+ * always a /32 or /128). Buckets are wall-clock time in {@code hibernate.jdbc.time_zone}, like
+ * {@code packets.received_at}, so hours and days are that zone's hours and days.
+ */
+@Repository
+public class PacketRollupRepository {
+
+    public enum Level {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        final ChronoUnit unit;
+
+        Level(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        String table() {
+            return "packet_rollup_" + name().toLowerCase();
+        }
+    }
+
+    /** 🔹 What a series or top list is grouped by; {@code key} renders the sentinel as NULL */
+    public enum Dimension {
+        AGENT("nullif(agent_id, '')"),
+        PROTOCOL("nullif(protocol, -1)::text"),
+        SRC_IP("CASE WHEN masklen(src_ip) = 0 THEN NULL ELSE host(src_ip) END"),
+        DST_PORT("nullif(dst_port, -1)::text");
+
+        final String key;
+
+        Dimension(String key) {
+            this.key = key;
+        }
+    }
+
+    /** 🔹 One counter row; {@code bucket} is a whole minute in the JVM zone */
+    public record Key(LocalDateTime bucket, String agentId, short protocol, String srcIp, int dstPort) {
+
+        /** absent values replaced by their sentinels */
+        public static Key of(LocalDateTime bucket, String agentId, Short protocol, String srcIp, Integer dstPort) {
+            return new Key(bucket, agentId != null ? agentId : NO_AGENT, protocol != null ? protocol : NO_PROTOCOL,
+                    srcIp != null ? srcIp : NO_ADDRESS, dstPort != null ? dstPort : NO_PORT);
+        }
+    }
+
+    static final String NO_AGENT = "";
+    static final short NO_PROTOCOL = -1;
+    static final String NO_ADDRESS = "0.0.0.0/0";
+    static final int NO_PORT = -1;
+
+    private static final String KEY_COLUMNS = "bucket, agent_id, protocol, src_ip, dst_port";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final ZoneId jdbcZone;
+
+    public PacketRollupRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Environment env) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        String zone = env.getProperty("spring.jpa.properties.hibernate.jdbc.time_zone");
+        this.jdbcZone = zone != null ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Level level : Level.values()) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + level.table() + " ("
+                    + "bucket timestamp NOT NULL, agent_id varchar(255) NOT NULL, protocol smallint NOT NULL, "
+                    + "src_ip inet NOT NULL, dst_port integer NOT NULL, packets bigint NOT NULL, bytes bigint NOT NULL, "
+                    + "PRIMARY KEY (" + KEY_COLUMNS + "))");
+        }
+    }
+
+    /** 🔹 Add counts ({packets, bytes}) to minute rows, all or nothing */
+    public void addMinutes(Map<Key, long[]> counts) {
+        if (counts.isEmpty()) return;
+        String sql = "INSERT INTO " + Level.MINUTE.table() + " AS t (" + KEY_COLUMNS + ", packets, bytes) "
+                + "VALUES (?, ?, ?, CAST(? AS inet), ?, ?, ?) ON CONFLICT (" + KEY_COLUMNS + ") "
+                + "DO UPDATE SET packets = t.packets + EXCLUDED.packets, bytes = t.bytes + EXCLUDED.bytes";
+        tx.executeWithoutResult(s -> jdbcTemplate.batchUpdate(sql, counts.entrySet(), 1_000, (ps, e) -> {
+            Key k = e.getKey();
+            ps.setObject(1, toJdbc(k.bucket()));
+            ps.setString(2, k.agentId());
+            ps.setShort(3, k.protocol());
+            ps.setString(4, k.srcIp());
+            ps.setInt(5, k.dstPort());
+            ps.setLong(6, e.getValue()[0]);
+            ps.setLong(7, e.getValue()[1]);
+        }));
+    }
+
+    /**
+     * 🔹 Recompute hour rows from minute rows, then day rows from hour rows, starting one bucket
+     * before the newest already compacted one (late minute flushes are picked up). Returns rows written.
+     */
+    public int compact() {
+        return compact(Level.MINUTE, Level.HOUR) + compact(Level.HOUR, Level.DAY);
+    }
+
+    private int compact(Level source, Level target) {
+        LocalDateTime newest = jdbcTemplate.queryForObject("SELECT max(bucket) FROM " + target.table(), LocalDateTime.class);
+        LocalDateTime from = newest != null ? newest.minus(1, target.unit)
+                : jdbcTemplate.queryForObject("SELECT min(bucket) FROM " + source.table(), LocalDateTime.class);
+        if (from == null) return 0;
+        return jdbcTemplate.update("INSERT INTO " + target.table() + " (" + KEY_COLUMNS + ", packets, bytes) "
+                + "SELECT date_trunc('" + target.name().toLowerCase() + "', bucket), "
+                + "agent_id, protocol, src_ip, dst_port, sum(packets), sum(bytes) FROM " + source.table()
+                + " WHERE bucket >= ? GROUP BY 1, 2, 3, 4, 5 ON CONFLICT (" + KEY_COLUMNS + ") "
+                + "DO UPDATE SET packets = EXCLUDED.packets, bytes = EXCLUDED.bytes", from);
+    }
+
+    /** 🔹 Delete rows of {@code level} older than {@code before} */
+    public int purge(Level level, LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM " + level.table() + " WHERE bucket < ?", toJdbc(before));
+    }
+
+    /** 🔹 Packets/bytes per bucket and {@code dimension} value in [from, to), oldest bucket first, largest value first within it */
+    public List<RollupPoint> series(Level level, Dimension dimension, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket, " + dimension.key + ", sum(packets), sum(bytes) FROM " + level.table()
+                        + " WHERE bucket >= ? AND bucket < ? GROUP BY 1, 2 ORDER BY 1, 4 DESC",
+                (rs, n) -> new RollupPoint(fromJdbc(rs.getObject(1, LocalDateTime.class)), rs.getString(2),
+                        rs.getLong(3), rs.getLong(4)),
+                toJdbc(from), toJdbc(to));
+    }
+
+    /** 🔹 The {@code limit} largest {@code dimension} values in [from, to), by bytes or by packets */
+    public List<RollupTotal> top(Level level, Dimension dimension, LocalDateTime from, LocalDateTime to,
+                                 boolean byPackets, int limit) {
+        return jdbcTemplate.query("SELECT " + dimension.key + ", sum(packets) AS p, sum(bytes) AS b FROM " + level.table()
+                        + " WHERE bucket >= ? AND bucket < ? GROUP BY 1 ORDER BY " + (byPackets ? "p" : "b") + " DESC LIMIT ?",
+                (rs, n) -> new RollupTotal(rs.getString(1), rs.getLong(2), rs.getLong(3)),
+                toJdbc(from), toJdbc(to), limit);
+    }
+
+    private LocalDateTime toJdbc(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).withZoneSameInstant(jdbcZone).toLocalDateTime();
+    }
+
+    private LocalDateTime fromJdbc(LocalDateTime t) {
+        return t == null ? null : t.atZone(jdbcZone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,167 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Converts an existing text-typed {@code packets} table to the compact column types, once,
+ * before Hibernate's {@code ddl-auto: update} looks at it (a fresh database gets the typed
+ * columns straight from the entity mapping).
+ * <ul>
+ *   <li>{@code timestamp varchar} → {@code captured_at timestamptz}</li>
+ *   <li>IP columns → {@code inet}, {@code srcmac}/{@code dstmac} → {@code macaddr}</li>
+ *   <li>{@code protocol} → {@code smallint}, {@code tcp_flags} → {@code smallint} bitmask</li>
+ *   <li>{@code payload text} → {@code payload_hash}/{@code payload_length}, bytes in {@code packet_payloads}</li>
+ * </ul>
+ * Values that do not parse become NULL. All type changes go into one {@code ALTER TABLE}, so
+ * the table (every partition, if already partitioned) is rewritten once, in one transaction.
+ */
+@Component
+public class PacketSchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketSchemaMigrator.class);
+
+    /** 🔹 Runs this bean before the EntityManagerFactory (and so before schema update) */
+    @Component
+    static class BeforeHibernate extends EntityManagerFactoryDependsOnPostProcessor {
+        BeforeHibernate() {
+            super(PacketSchemaMigrator.class);
+        }
+    }
+
+    // session-local helpers (pg_temp), so nothing is left behind in the schema
+    private static final List<String> HELPERS = List.of(
+            """
+            CREATE OR REPLACE FUNCTION pg_temp.nw_inet(v text) RETURNS inet LANGUAGE plpgsql IMMUTABLE AS $$
+            BEGIN RETURN nullif(v, '')::inet; EXCEPTION WHEN others THEN RETURN NULL; END $$""",
+            """
+            CREATE OR REPLACE FUNCTION pg_temp.nw_mac(v text) RETURNS macaddr LANGUAGE plpgsql IMMUTABLE AS $$
+            BEGIN RETURN nullif(v, '')::macaddr; EXCEPTION WHEN others THEN RETURN NULL; END $$""",
+            """
+            CREATE OR REPLACE FUNCTION pg_temp.nw_proto(v text) RETURNS smallint LANGUAGE plpgsql IMMUTABLE AS $$
+            BEGIN
+              RETURN CASE upper(v) WHEN 'ICMP' THEN 1 WHEN 'TCP' THEN 6 WHEN 'UDP' THEN 17 WHEN 'ICMPV6' THEN 58
+                                   ELSE nullif(v, '')::smallint END;
+            EXCEPTION WHEN others THEN RETURN NULL; END $$""",
+            """
+            CREATE OR REPLACE FUNCTION pg_temp.nw_flags(v text) RETURNS smallint LANGUAGE plpgsql IMMUTABLE AS $$
+            DECLARE m int := 0; c text;
+            BEGIN
+              IF v IS NULL OR v = '' THEN RETURN NULL; END IF;
+              IF v ~ '^[0-9]+$' THEN RETURN (v::int & 511)::smallint; END IF;
+              FOREACH c IN ARRAY regexp_split_to_array(upper(v), '') LOOP
+                m := m | coalesce((array[1,2,4,8,16,32,64,128,256])[strpos('FSRPAUECN', c)], 0);
+              END LOOP;
+              RETURN m;
+            END $$""",
+            """
+            CREATE OR REPLACE FUNCTION pg_temp.nw_ts(v text, tz text, off_s int) RETURNS timestamptz LANGUAGE plpgsql IMMUTABLE AS $$
+            BEGIN
+              IF v ~ '([+-][0-9]{2}:?[0-9]{2}|Z)$' THEN RETURN v::timestamptz; END IF;
+              IF tz IS NULL THEN RETURN (v::timestamp - make_interval(secs => off_s)) AT TIME ZONE 'UTC'; END IF;
+              RETURN v::timestamp AT TIME ZONE tz;
+            EXCEPTION WHEN others THEN RETURN NULL; END $$""");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final ZoneId captureZone;
+
+    public PacketSchemaMigrator(DataSource dataSource, PersistenceProperties props) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // the JPA transaction manager does not exist yet at this point
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.captureZone = props.captureZone();
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Map<String, String> types = jdbcTemplate.query(
+                "SELECT column_name, udt_name FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND table_name = 'packets'",
+                rs -> {
+                    Map<String, String> m = new HashMap<>();
+                    while (rs.next()) m.put(rs.getString(1), rs.getString(2));
+                    return m;
+                });
+        if (types == null || types.isEmpty()) return;   // fresh database: Hibernate creates typed columns
+
+        List<String> changes = new ArrayList<>();
+        boolean renameTimestamp = types.containsKey("timestamp") && !types.containsKey("captured_at");
+        if (renameTimestamp || "varchar".equals(types.get("captured_at"))) {
+            changes.add("ALTER COLUMN captured_at TYPE timestamptz USING pg_temp.nw_ts(captured_at, " + zoneArgs() + ")");
+        }
+        for (String ip : List.of("arp_src_ip", "arp_dst_ip", "src_ip", "dst_ip")) {
+            if ("varchar".equals(types.get(ip))) changes.add(alter(ip, "inet", "nw_inet"));
+        }
+        for (String mac : List.of("srcmac", "dstmac")) {
+            if ("varchar".equals(types.get(mac))) changes.add(alter(mac, "macaddr", "nw_mac"));
+        }
+        if ("varchar".equals(types.get("protocol"))) changes.add(alter("protocol", "smallint", "nw_proto"));
+        if ("varchar".equals(types.get("tcp_flags"))) changes.add(alter("tcp_flags", "smallint", "nw_flags"));
+        if (!changes.isEmpty()) {
+            log.info("Migrating packets to typed columns: {}", changes.stream()
+                    .map(c -> c.substring("ALTER COLUMN ".length(), c.indexOf(" USING")))
+                    .collect(Collectors.joining(", ")));
+            long start = System.currentTimeMillis();
+            tx.executeWithoutResult(s -> {
+                HELPERS.forEach(jdbcTemplate::execute);
+                if (renameTimestamp) {
+                    jdbcTemplate.execute("ALTER TABLE packets RENAME COLUMN \"timestamp\" TO captured_at");
+                }
+                jdbcTemplate.execute("ALTER TABLE packets " + String.join(", ", changes));
+            });
+            log.info("packets migrated to typed columns in {} ms", System.currentTimeMillis() - start);
+        }
+        if (types.containsKey("payload")) {
+            migratePayloads();
+        }
+    }
+
+    /** 🔹 Inline payload text → packet_payloads (stored raw; new payloads are compressed) + hash/length on the row */
+    private void migratePayloads() {
+        log.info("Moving inline packet payloads to {}", PacketPayloadStore.TABLE);
+        long start = System.currentTimeMillis();
+        tx.executeWithoutResult(s -> {
+            jdbcTemplate.execute(PacketPayloadStore.DDL);
+            jdbcTemplate.execute("ALTER TABLE packets ADD COLUMN IF NOT EXISTS payload_hash bytea, "
+                    + "ADD COLUMN IF NOT EXISTS payload_length integer");
+            int payloads = jdbcTemplate.update("INSERT INTO " + PacketPayloadStore.TABLE + " (hash, length, codec, data, last_seen) "
+                    + "SELECT sha256(b), octet_length(b), " + PacketPayloadStore.RAW + ", b, current_date "
+                    + "FROM (SELECT DISTINCT convert_to(payload, 'UTF8') AS b FROM packets WHERE payload IS NOT NULL) d "
+                    + "ON CONFLICT (hash) DO NOTHING");
+            jdbcTemplate.update("UPDATE packets SET payload_hash = sha256(convert_to(payload, 'UTF8')), "
+                    + "payload_length = octet_length(convert_to(payload, 'UTF8')) WHERE payload IS NOT NULL AND payload_hash IS NULL");
+            jdbcTemplate.execute("ALTER TABLE packets DROP COLUMN payload");
+            log.info("{} distinct payloads stored", payloads);
+        });
+        log.info("packet payloads moved in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /** zone as a name PostgreSQL knows, or as a fixed offset ("GMT+05:30" means the opposite in POSIX) */
+    private String zoneArgs() {
+        if (captureZone.normalized() instanceof ZoneOffset offset) {
+            return "NULL, " + offset.getTotalSeconds();
+        }
+        return "'" + captureZone.getId() + "', 0";
+    }
+
+    private static String alter(String column, String type, String helper) {
+        return "ALTER COLUMN " + column + " TYPE " + type + " USING pg_temp." + helper + "(" + column + ")";
+    }
+}
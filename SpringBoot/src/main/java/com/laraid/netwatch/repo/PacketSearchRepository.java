@@ -0,0 +1,23 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.dto.PacketCursor;
+import com.laraid.netwatch.dto.PacketSearchCriteria;
+import com.laraid.netwatch.dto.PacketSummary;
+
+import java.util.stream.Stream;
+
+/**
+ * Filtered, keyset-paginated reads of packet rows as {@link PacketSummary}, newest first
+ * ({@code ORDER BY received_at DESC, id DESC}). Every filter has an index that delivers rows
+ * already in that order (see {@link PacketPartitionManager}), so a page stops after
+ * {@code limit} index entries instead of sorting all matches.
+ */
+public interface PacketSearchRepository {
+
+    /** Up to {@code limit} matching packets strictly older than {@code before} (from the newest when null); close the stream. */
+    Stream<PacketSummary> search(PacketSearchCriteria criteria, PacketCursor before, int limit);
+
+    /** Key of the matching row {@code offset} rows past {@code before}, or null if there are not that many. */
+    PacketCursor keyAt(PacketSearchCriteria criteria, PacketCursor before, int offset);
+
+}
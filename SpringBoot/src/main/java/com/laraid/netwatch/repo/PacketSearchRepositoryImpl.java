@@ -0,0 +1,147 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.dto.PacketCursor;
+import com.laraid.netwatch.dto.PacketSearchCriteria;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.utils.PacketColumns;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Spring Data fragment behind {@link PacketSearchRepository}: plain JDBC with SQL assembled from
+ * the criteria, so each predicate has exactly the shape its index was built for. Only the summary
+ * columns are selected (no TOASTed text columns are read) and rows never enter a persistence context.
+ * <ul>
+ *   <li>equality on src_ip / dst_ip / dst_port / agent_id → {@code (col, received_at, id)} index,
+ *       rows come out in page order</li>
+ *   <li>CIDR → {@code col <<= block}, which PostgreSQL turns into a range scan on the same btree</li>
+ *   <li>time range and cursor → {@code received_at} bounds (partition pruning) plus a row
+ *       comparison on {@code (received_at, id)} that is an index condition, not a filter</li>
+ * </ul>
+ */
+public class PacketSearchRepositoryImpl implements PacketSearchRepository {
+
+    private static final int FETCH_SIZE = 256;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ZoneId jdbcZone;
+    private final ZoneId captureZone;
+
+    public PacketSearchRepositoryImpl(DataSource dataSource, PersistenceProperties props, Environment env) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(FETCH_SIZE);
+        this.jdbc = new NamedParameterJdbcTemplate(template);
+        // received_at is wall-clock time in hibernate.jdbc.time_zone; read and bind it the way Hibernate does
+        String zone = env.getProperty("spring.jpa.properties.hibernate.jdbc.time_zone");
+        this.jdbcZone = zone != null ? ZoneId.of(zone) : ZoneId.systemDefault();
+        this.captureZone = props.captureZone();
+    }
+
+    @Override
+    public Stream<PacketSummary> search(PacketSearchCriteria criteria, PacketCursor before, int limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        String sql = sql(PacketSummary.COLUMNS, criteria, before, LocalDateTime.now(), params);
+        return jdbc.queryForStream(sql, bind(params, limit, 0), (rs, n) -> new PacketSummary(
+                rs.getLong(1),
+                captureTime(rs.getObject(2, OffsetDateTime.class)),
+                fromJdbc(rs.getObject(3, LocalDateTime.class)),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getString(7),
+                rs.getString(8),
+                rs.getString(9),
+                rs.getString(10),
+                rs.getObject(11, Integer.class),
+                rs.getObject(12, Integer.class),
+                PacketColumns.protocol(rs.getObject(13, Short.class)),
+                rs.getString(14),
+                PacketColumns.tcpFlags(rs.getObject(15, Short.class)),
+                rs.getObject(16, Integer.class),
+                rs.getObject(17, Integer.class),
+                rs.getString(18)));
+    }
+
+    @Override
+    public PacketCursor keyAt(PacketSearchCriteria criteria, PacketCursor before, int offset) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        String sql = sql("received_at, id", criteria, before, LocalDateTime.now(), params);
+        List<PacketCursor> key = jdbc.query(sql, bind(params, 1, offset),
+                (rs, n) -> new PacketCursor(fromJdbc(rs.getObject(1, LocalDateTime.class)), rs.getLong(2)));
+        return key.isEmpty() ? null : key.get(0);
+    }
+
+    private MapSqlParameterSource bind(Map<String, Object> params, int limit, int offset) {
+        MapSqlParameterSource source = new MapSqlParameterSource();
+        params.forEach((name, value) -> source.addValue(name, value instanceof LocalDateTime t ? toJdbc(t) : value));
+        return source.addValue("limit", limit).addValue("offset", offset);
+    }
+
+    private LocalDateTime toJdbc(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).withZoneSameInstant(jdbcZone).toLocalDateTime();
+    }
+
+    private LocalDateTime fromJdbc(LocalDateTime t) {
+        return t == null ? null : t.atZone(jdbcZone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private String captureTime(OffsetDateTime t) {
+        return t == null ? null : PacketColumns.captureTime(t.toInstant(), captureZone);
+    }
+
+    /** 🔹 SELECT {@code columns} for one page; named parameters (except :limit/:offset) are put into {@code params} */
+    static String sql(String columns, PacketSearchCriteria c, PacketCursor before, LocalDateTime now, Map<String, Object> params) {
+        List<String> where = new ArrayList<>();
+        LocalDateTime from = c == null ? null : c.effectiveFrom(now);
+        if (from != null) {
+            where.add("received_at >= :from");
+            params.put("from", from);
+        }
+        if (c != null && c.getTo() != null) {
+            where.add("received_at < :to");
+            params.put("to", c.getTo());
+        }
+        if (before != null) {
+            where.add("received_at <= :beforeAt AND (received_at, id) < (:beforeAt, :beforeId)");
+            params.put("beforeAt", before.receivedAt());
+            params.put("beforeId", before.id());
+        }
+        if (c != null) {
+            address(where, params, "src_ip", "srcIp", c.getSrcIp());
+            address(where, params, "dst_ip", "dstIp", c.getDstIp());
+            equal(where, params, "src_port", "srcPort", c.getSrcPort());
+            equal(where, params, "dst_port", "dstPort", c.getDstPort());
+            equal(where, params, "protocol", "protocol", PacketColumns.protocol(c.getProtocol()));
+            equal(where, params, "agent_id", "agentId", c.getAgentId());
+            equal(where, params, "packet_type", "packetType", c.getPacketType());
+        }
+        return "SELECT " + columns + " FROM packets"
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY received_at DESC, id DESC LIMIT :limit OFFSET :offset";
+    }
+
+    private static void address(List<String> where, Map<String, Object> params, String column, String name, String value) {
+        if (value == null) return;
+        where.add(column + (value.indexOf('/') >= 0 ? " <<= " : " = ") + "CAST(:" + name + " AS inet)");
+        params.put(name, value);
+    }
+
+    private static void equal(List<String> where, Map<String, Object> params, String column, String name, Object value) {
+        if (value == null) return;
+        where.add(column + " = :" + name);
+        params.put(name, value);
+    }
+}
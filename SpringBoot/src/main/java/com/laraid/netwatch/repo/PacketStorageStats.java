@@ -0,0 +1,25 @@
+package com.laraid.netwatch.repo;
+
+import java.util.List;
+
+/**
+ * On-disk footprint of {@code packets} from the catalog: row estimates (reltuples, so as fresh as
+ * the last ANALYZE/autovacuum), heap+TOAST bytes and index bytes, summed over partitions.
+ */
+public record PacketStorageStats(long rows, long tableBytes, long indexBytes, double bytesPerRow,
+                                 double indexBytesPerRow, List<Relation> relations) {
+
+    public record Relation(String name, long rows, long tableBytes, long indexBytes) {
+    }
+
+    static PacketStorageStats of(List<Relation> relations) {
+        long rows = 0, table = 0, index = 0;
+        for (Relation r : relations) {
+            rows += Math.max(0, r.rows());
+            table += r.tableBytes();
+            index += r.indexBytes();
+        }
+        return new PacketStorageStats(rows, table, index,
+                rows == 0 ? 0 : (double) table / rows, rows == 0 ? 0 : (double) index / rows, relations);
+    }
+}
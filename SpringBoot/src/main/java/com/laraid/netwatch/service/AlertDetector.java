@@ -0,0 +1,123 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.AlertProperties;
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-source sliding-window detectors behind {@link AlertService}: PORT_SCAN (distinct destination
+ * ports) and TRAFFIC_SPIKE (packets within {@code spikeWindowMs}). Several consumer threads call
+ * {@link #detect} at once; each source's state has its own lock, taken once per source per batch.
+ * Packets are keyed by source address, so a source normally stays on one partition and the lock is
+ * uncontended; it matters while partitions move between consumers.
+ */
+final class AlertDetector {
+
+    static final String PORT_SCAN = "PORT_SCAN";
+    static final String TRAFFIC_SPIKE = "TRAFFIC_SPIKE";
+
+    private final AlertProperties props;
+    private final Map<String, SourceState> sources = new ConcurrentHashMap<>();
+
+    AlertDetector(AlertProperties props) {
+        this.props = props;
+    }
+
+    /** one source address: the ports it hit and the times of its recent packets (a growable ring, oldest at head) */
+    private static final class SourceState {
+        final Set<Integer> ports = new HashSet<>();   // guarded by this
+        long[] times = new long[16];
+        int head;
+        int size;
+
+        void addTime(long t) {
+            if (size == times.length) {
+                long[] grown = new long[times.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = times[(head + i) % times.length];
+                }
+                times = grown;
+                head = 0;
+            }
+            times[(head + size++) % times.length] = t;
+        }
+
+        void evictBefore(long t) {
+            while (size > 0 && times[head] < t) {
+                head = (head + 1) % times.length;
+                size--;
+            }
+        }
+
+        void clearTimes() {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * 🔹 Run a poll's records through the detectors; returns the alerts they raised, in record order per
+     * source. A record's time is when it was produced, so a consumer catching up sees the original rate.
+     */
+    List<Map<String, Object>> detect(List<ConsumerRecord<String, Packet>> records) {
+        Map<String, List<ConsumerRecord<String, Packet>>> bySource = new LinkedHashMap<>();
+        for (ConsumerRecord<String, Packet> r : records) {
+            Packet p = r.value();
+            if (p == null || p.getSrcIp() == null) continue;
+            bySource.computeIfAbsent(p.getSrcIp(), k -> new ArrayList<>()).add(r);
+        }
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, List<ConsumerRecord<String, Packet>>> e : bySource.entrySet()) {
+            SourceState state = sources.computeIfAbsent(e.getKey(), k -> new SourceState());
+            synchronized (state) {
+                for (ConsumerRecord<String, Packet> r : e.getValue()) {
+                    check(e.getKey(), state, r.value().getDstPort(), r.timestamp() >= 0 ? r.timestamp() : now, now, alerts);
+                }
+            }
+        }
+        return alerts;
+    }
+
+    private void check(String srcIp, SourceState state, Integer dstPort, long at, long now, List<Map<String, Object>> alerts) {
+        // 1) Port Scan Detection
+        if (dstPort != null && state.ports.add(dstPort) && state.ports.size() >= props.getPortScanPorts()) {
+            Map<String, Object> alert = alert(PORT_SCAN, "Port scan suspected", srcIp, now);
+            alert.put("uniquePortsCount", state.ports.size());
+            alerts.add(alert);
+            state.ports.clear();
+        }
+
+        // 2) Traffic Spike Detection
+        state.evictBefore(at - props.getSpikeWindowMs());
+        state.addTime(at);
+        if (state.size > props.getSpikePackets()) {
+            Map<String, Object> alert = alert(TRAFFIC_SPIKE, "Traffic spike detected", srcIp, now);
+            alert.put("packetCountLast10s", state.size);
+            alerts.add(alert);
+            state.clearTimes();
+        }
+    }
+
+    int sources() {
+        return sources.size();
+    }
+
+    private static Map<String, Object> alert(String type, String message, String srcIp, long now) {
+        Map<String, Object> alert = new HashMap<>();
+        alert.put("type", type);
+        alert.put("message", message);
+        alert.put("srcIp", srcIp);
+        alert.put("detectedAt", now);
+        return alert;
+    }
+}
@@ -1,81 +1,62 @@
 package com.laraid.netwatch.service;
 
+import com.laraid.netwatch.config.AlertProperties;
 import com.laraid.netwatch.config.KafkaTopicProperties;
 import com.laraid.netwatch.entity.Packet;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 // AlertService.java
+/**
+ * Consumes packet-events in batches (up to netwatch.alerts.max-poll-records per poll), with one
+ * consumer thread per partition, and publishes what {@link AlertDetector} raises to the alerts topic.
+ */
 @Service
-@RequiredArgsConstructor
 public class AlertService {
 
     private final KafkaTemplate<String, Map<String, Object>> kafkaTemplate;
     private final KafkaTopicProperties kafkaTopicProperties;
-
-    // Sliding window tracking
-    private final Map<String, Set<Integer>> uniquePortsPerIp = new ConcurrentHashMap<>();
-    private final Map<String, Deque<Long>> timestampsPerIp = new ConcurrentHashMap<>();
+    private final AlertDetector detector;
+    private final DistributionSummary batchSize;
+    private final Timer batchTime;
+    private final Map<String, Counter> raised = new HashMap<>();
+
+    public AlertService(KafkaTemplate<String, Map<String, Object>> kafkaTemplate, KafkaTopicProperties kafkaTopicProperties,
+                        AlertProperties alertProperties, MeterRegistry registry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaTopicProperties = kafkaTopicProperties;
+        this.detector = new AlertDetector(alertProperties);
+        this.batchSize = DistributionSummary.builder("netwatch.alerts.batch.size")
+                .description("packet-events records per detector batch").register(registry);
+        this.batchTime = Timer.builder("netwatch.alerts.batch.time")
+                .description("Time to run one batch through the detectors").register(registry);
+        for (String type : List.of(AlertDetector.PORT_SCAN, AlertDetector.TRAFFIC_SPIKE)) {
+            raised.put(type, Counter.builder("netwatch.alerts.raised").tag("type", type).register(registry));
+        }
+        Gauge.builder("netwatch.alerts.sources", detector, AlertDetector::sources)
+                .description("Source addresses with detector state").register(registry);
+    }
 
     @KafkaListener(
             topics = "packet-events",
             groupId = "alert-group",
             containerFactory = "packetKafkaListenerContainerFactory"
     )
-    public void onPacket(Packet p) {
-        if (p.getSrcIp() == null) return;
-
-        long now = System.currentTimeMillis();
-
-        // ----------------------------
-        // 1) Port Scan Detection
-        // ----------------------------
-        if (p.getDstPort() != null) {
-            uniquePortsPerIp
-                    .computeIfAbsent(p.getSrcIp(), k -> ConcurrentHashMap.newKeySet())
-                    .add(p.getDstPort());
-
-            if (uniquePortsPerIp.get(p.getSrcIp()).size() >= 30) {
-                Map<String, Object> alertData = new HashMap<>();
-                alertData.put("type", "PORT_SCAN");
-                alertData.put("message", "Port scan suspected");
-                alertData.put("srcIp", p.getSrcIp());
-                alertData.put("detectedAt", now);
-                alertData.put("uniquePortsCount", uniquePortsPerIp.get(p.getSrcIp()).size());
-
-                kafkaTemplate.send(kafkaTopicProperties.getLiveNetWatchAlerts(), p.getSrcIp(), alertData);
-                uniquePortsPerIp.get(p.getSrcIp()).clear();
-            }
-        }
-
-        // ----------------------------
-        // 2) Traffic Spike Detection
-        // ----------------------------
-        Deque<Long> q = timestampsPerIp.computeIfAbsent(p.getSrcIp(), k -> new ArrayDeque<>());
-        q.addLast(now);
-
-        // Keep only timestamps within last 10 sec
-        while (!q.isEmpty() && now - q.peekFirst() > 10_000) {
-            q.pollFirst();
-        }
-
-        if (q.size() > 500) {
-            Map<String, Object> alertData = new HashMap<>();
-            alertData.put("type", "TRAFFIC_SPIKE");
-            alertData.put("message", "Traffic spike detected");
-            alertData.put("srcIp", p.getSrcIp());
-            alertData.put("detectedAt", now);
-            alertData.put("packetCountLast10s", q.size());
-
-            kafkaTemplate.send(kafkaTopicProperties.getLiveNetWatchAlerts(), p.getSrcIp(), alertData);
-            q.clear();
+    public void onPackets(List<ConsumerRecord<String, Packet>> records) {
+        batchSize.record(records.size());
+        List<Map<String, Object>> alerts = batchTime.record(() -> detector.detect(records));
+        for (Map<String, Object> alertData : alerts) {
+            raised.get((String) alertData.get("type")).increment();
+            kafkaTemplate.send(kafkaTopicProperties.getLiveNetWatchAlerts(), (String) alertData.get("srcIp"), alertData);
         }
     }
 }
-
-
@@ -18,6 +18,7 @@ public class AnalyticsService {
     private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
 
     private final SimpMessagingTemplate messagingTemplate; // For WebSocket push to UI
+    private final LiveStreamService liveStreamService;     // /queue/rawPackets and /topic/rawPackets subscriptions
 
     @KafkaListener(
             topics = "netwatch.top-talkers",
@@ -56,7 +57,7 @@ public class AnalyticsService {
     )
     public void onRawPackets(Map<String, Object> data) {
         log.info("🔥 Received from Kafka to onRawPackets: {} ", data);
-        messagingTemplate.convertAndSend("/topic/rawPackets", data);
+        liveStreamService.publishRaw(data); // replays to new subscribers, so not sent through the broker
     }
 }
 
@@ -0,0 +1,156 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-agent anti-replay window for batch uploads (same idea as the IPsec/DTLS replay window).
+ * <p>
+ * Each agent keeps the highest {@code batchSeq} seen plus a fixed bitmap of the last
+ * {@code sequence-window} sequence numbers, so "seen before?" is a shift and a mask and memory
+ * per agent never grows. Sequences older than the window are treated as replays. A new
+ * {@code epoch} (agent restart) resets the window; batches from an older epoch are replays.
+ * <p>
+ * The agent map is an LRU bounded by {@code max-tracked-agents}; an evicted agent simply
+ * starts a fresh window on its next batch.
+ */
+@Component
+public class BatchSequenceTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchSequenceTracker.class);
+
+    private final int windowBits;
+    private final Map<String, Window> agents;
+    private final Counter replayed;
+
+    public BatchSequenceTracker(IngestProperties props, MeterRegistry registry) {
+        this.windowBits = Math.max(64, Integer.highestOneBit(Math.max(1, props.getSequenceWindow() - 1)) << 1);
+        int maxAgents = props.getMaxTrackedAgents();
+        this.agents = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                return size() > maxAgents;
+            }
+        };
+        this.replayed = Counter.builder("netwatch.ingest.batches.replayed")
+                .description("Batch uploads acknowledged without reprocessing (agent resends)")
+                .register(registry);
+        Gauge.builder("netwatch.ingest.sequence.agents", this, BatchSequenceTracker::trackedAgents)
+                .register(registry);
+    }
+
+    /** True if the batch carries an agent id and a sequence number, i.e. can be deduplicated. */
+    public static boolean isSequenced(PacketBatchDTO header) {
+        return header.getAgentId() != null && header.getBatchSeq() != null;
+    }
+
+    /**
+     * Record the batch as in progress.
+     *
+     * @return false if this (agent, epoch, batchSeq) was already claimed: acknowledge, don't reprocess
+     */
+    public boolean claim(PacketBatchDTO header) {
+        if (!isSequenced(header)) return true;
+        Window window;
+        synchronized (agents) {
+            window = agents.computeIfAbsent(header.getAgentId(), id -> new Window(windowBits));
+        }
+        boolean fresh = window.claim(epoch(header), header.getBatchSeq());
+        if (!fresh) {
+            replayed.increment();
+            log.debug("Replayed batch agent={} epoch={} seq={}", header.getAgentId(), header.getEpoch(), header.getBatchSeq());
+        }
+        return fresh;
+    }
+
+    /** Forget a claim whose batch was not ingested (parse error, 429 before any packet), so a resend goes through. */
+    public void release(PacketBatchDTO header) {
+        if (!isSequenced(header)) return;
+        Window window;
+        synchronized (agents) {
+            window = agents.get(header.getAgentId());
+        }
+        if (window != null) window.release(epoch(header), header.getBatchSeq());
+    }
+
+    int trackedAgents() {
+        synchronized (agents) {
+            return agents.size();
+        }
+    }
+
+    private static long epoch(PacketBatchDTO header) {
+        return header.getEpoch() == null ? 0 : header.getEpoch();
+    }
+
+    /** 🔹 Sliding bitmap: bit (seq mod size) is set if seq has been claimed, for seq in (top - size, top] */
+    static final class Window {
+
+        private final long[] bits;
+        private final int size;
+        private long epoch = Long.MIN_VALUE;
+        private long top = -1;
+
+        Window(int size) {
+            this.size = size;
+            this.bits = new long[size >>> 6];
+        }
+
+        synchronized boolean claim(long batchEpoch, long seq) {
+            if (batchEpoch < epoch || seq < 0) return false;
+            if (batchEpoch > epoch) {
+                epoch = batchEpoch;
+                top = -1;
+                Arrays.fill(bits, 0);
+            }
+            if (seq > top) {
+                advance(seq);
+                set(seq);
+                return true;
+            }
+            if (top - seq >= size || isSet(seq)) return false;
+            set(seq);
+            return true;
+        }
+
+        synchronized void release(long batchEpoch, long seq) {
+            if (batchEpoch == epoch && seq <= top && top - seq < size) {
+                bits[index(seq) >>> 6] &= ~(1L << index(seq));
+            }
+        }
+
+        /** slide the window up to seq, clearing the slots of the sequences it skips over */
+        private void advance(long seq) {
+            if (top < 0 || seq - top >= size) {
+                Arrays.fill(bits, 0);
+            } else {
+                for (long s = top + 1; s < seq; s++) {
+                    bits[index(s) >>> 6] &= ~(1L << index(s));
+                }
+            }
+            top = seq;
+        }
+
+        private boolean isSet(long seq) {
+            return (bits[index(seq) >>> 6] & (1L << index(seq))) != 0;
+        }
+
+        private void set(long seq) {
+            bits[index(seq) >>> 6] |= 1L << index(seq);
+        }
+
+        private int index(long seq) {
+            return (int) (seq & (size - 1));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.utils.ReplayRing;
+import com.laraid.netwatch.utils.StreamFilterIndex;
+import com.laraid.netwatch.utils.StreamFilterIndex.Event;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the events of one live stream into frames for the subscribers that asked for them.
+ * Subscribers with equal filters share a group; a group collects the already serialized events it
+ * accepts and is sent as one JSON array once it holds {@code maxEvents}, or at the next
+ * {@link #flush}. Each frame is assembled once and the same bytes go to every member of the group.
+ * <p>
+ * Frames of a group are queued in the order they are cut and sent by one thread at a time, so a
+ * publisher and the scheduled flush cutting frames of the same group never deliver them out of order.
+ */
+final class FrameBatcher<M> {
+
+    /**
+     * 🔹 One JSON array of events, with each event's sequence number in its stream; {@link #text} is
+     * built once, for senders that need a String
+     */
+    static final class Frame {
+        final byte[] json;
+        final int events;
+        final long firstNanos;   // when the oldest event was queued
+        private final long[] seqs;
+        private final int[] starts;   // offset of each event in json
+        private final long minSeq;
+        private final long maxSeq;
+        private String text;
+
+        Frame(byte[] json, int events, long firstNanos, long[] seqs, int[] starts) {
+            this.json = json;
+            this.events = events;
+            this.firstNanos = firstNanos;
+            this.seqs = seqs;
+            this.starts = starts;
+            this.minSeq = Arrays.stream(seqs).min().orElse(0);
+            this.maxSeq = Arrays.stream(seqs).max().orElse(-1);
+        }
+
+        String text() {
+            if (text == null) text = new String(json, StandardCharsets.UTF_8);
+            return text;
+        }
+
+        long lastSeq() {
+            return maxSeq;
+        }
+
+        /** 🔹 This frame without the events numbered below {@code seq}; itself if it has none, null if nothing is left */
+        Frame since(long seq) {
+            if (minSeq >= seq) return this;
+            if (maxSeq < seq) return null;
+            Group kept = new Group();
+            for (int i = 0; i < events; i++) {
+                if (seqs[i] < seq) continue;
+                int end = i + 1 < events ? starts[i + 1] - 1 : json.length - 1;   // before the ',' or ']'
+                kept.add(Arrays.copyOfRange(json, starts[i], end), seqs[i], Integer.MAX_VALUE, firstNanos);
+            }
+            return kept.take();
+        }
+    }
+
+    private static class Group {
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);   // guarded by this
+        private long[] seqs = new long[64];
+        private int[] starts = new int[64];
+        private int events;
+        private long firstNanos;
+
+        /** appends one event; returns the frame if that filled it */
+        synchronized Frame add(byte[] event, long seq, int maxEvents, long now) {
+            if (events == 0) {
+                pending.write('[');
+                firstNanos = now;
+            } else {
+                pending.write(',');
+            }
+            if (events == seqs.length) {
+                seqs = Arrays.copyOf(seqs, events * 2);
+                starts = Arrays.copyOf(starts, events * 2);
+            }
+            seqs[events] = seq;
+            starts[events] = pending.size();
+            pending.writeBytes(event);
+            return ++events >= maxEvents ? take() : null;
+        }
+
+        synchronized Frame take() {
+            if (events == 0) return null;
+            pending.write(']');
+            Frame frame = new Frame(pending.toByteArray(), events, firstNanos,
+                    Arrays.copyOf(seqs, events), Arrays.copyOf(starts, events));
+            pending.reset();
+            events = 0;
+            return frame;
+        }
+    }
+
+    /** a group of subscribers with equal filters, the frame they are waiting for and the frames cut but not yet sent */
+    private static final class Members<M> extends Group {
+        final Set<M> members = new CopyOnWriteArraySet<>();
+        private final ArrayDeque<Frame> ready = new ArrayDeque<>();   // guarded by this, in sequence order
+        private boolean sending;                                       // guarded by this
+
+        /** appends one event; true if that filled a frame */
+        synchronized boolean append(byte[] event, long seq, int maxEvents, long now) {
+            return ready(add(event, seq, maxEvents, now));
+        }
+
+        /** cuts the pending events into a frame; true if there were any */
+        synchronized boolean cut() {
+            return ready(take());
+        }
+
+        private boolean ready(Frame frame) {
+            if (frame == null) return false;
+            ready.add(frame);
+            return true;
+        }
+
+        /** 🔹 Become the group's sender; false if another thread is, it will send what is ready */
+        synchronized boolean claim() {
+            if (sending) return false;
+            sending = true;
+            return true;
+        }
+
+        /** 🔹 Next frame for the sender, or null, which also ends its claim */
+        synchronized Frame next() {
+            Frame frame = ready.poll();
+            if (frame == null) sending = false;
+            return frame;
+        }
+
+        synchronized void release() {
+            sending = false;
+        }
+    }
+
+    private final StreamFilterIndex<Members<M>> index = new StreamFilterIndex<>();
+    private final Map<StreamFilter, Members<M>> byFilter = new HashMap<>();   // guarded by this
+    private final Map<M, Members<M>> byMember = new HashMap<>();              // guarded by this
+    private volatile List<Members<M>> groups = List.of();
+    private final int maxEvents;
+    private final BiConsumer<M, Frame> sender;
+    private final DistributionSummary frameBytes;
+    private final DistributionSummary frameEvents;
+    private final Timer frameLatency;
+
+    FrameBatcher(String stream, int maxEvents, Duration latencyBudget, BiConsumer<M, Frame> sender, MeterRegistry registry) {
+        this.maxEvents = Math.max(1, maxEvents);
+        this.sender = sender;
+        this.frameBytes = DistributionSummary.builder("netwatch.stream.frame.size").tag("stream", stream).baseUnit("bytes")
+                .description("Serialized size of one frame").register(registry);
+        this.frameEvents = DistributionSummary.builder("netwatch.stream.frame.events").tag("stream", stream)
+                .description("Events coalesced into one frame").register(registry);
+        this.frameLatency = Timer.builder("netwatch.stream.frame.latency").tag("stream", stream)
+                .description("Time the oldest event of a frame waited before the frame was sent")
+                .serviceLevelObjectives(latencyBudget).register(registry);
+    }
+
+    synchronized void join(M member, StreamFilter filter) {
+        leave(member);
+        Members<M> group = byFilter.get(filter);
+        if (group == null) {
+            group = new Members<>();
+            byFilter.put(filter, group);
+            index.add(group, filter);
+            groups = List.copyOf(byFilter.values());
+        }
+        group.members.add(member);
+        byMember.put(member, group);
+    }
+
+    synchronized void leave(M member) {
+        Members<M> group = byMember.remove(member);
+        if (group == null) return;
+        group.members.remove(member);
+        if (group.members.isEmpty()) {
+            byFilter.values().remove(group);
+            index.remove(group);
+            groups = List.copyOf(byFilter.values());
+        }
+    }
+
+    synchronized void leaveIf(Predicate<? super M> which) {
+        byMember.keySet().stream().filter(which).toList().forEach(this::leave);
+    }
+
+    synchronized int members() {
+        return byMember.size();
+    }
+
+    boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /**
+     * 🔹 Queue {@code e}, number {@code seq} in its stream, for every group accepting it; {@code json}
+     * is asked at most once, null = skip the event
+     */
+    void offer(Event e, long seq, Supplier<byte[]> json) {
+        List<Members<M>> accepting = index.match(e);
+        if (accepting.isEmpty()) return;
+        byte[] event = json.get();
+        if (event == null) return;
+        long now = System.nanoTime();
+        for (Members<M> group : accepting) {
+            if (group.append(event, seq, maxEvents, now)) drain(group, now);
+        }
+    }
+
+    /** 🔹 Send every group's pending events */
+    void flush() {
+        long now = System.nanoTime();
+        for (Members<M> group : groups) {
+            if (group.cut()) drain(group, now);
+        }
+    }
+
+    /** 🔹 {@code events} (serialized, with their sequence numbers) cut into frames of at most maxEvents, e.g. for a replay */
+    List<Frame> frames(List<ReplayRing.Entry<byte[]>> events) {
+        List<Frame> frames = new ArrayList<>();
+        Group group = new Group();
+        long now = System.nanoTime();
+        for (ReplayRing.Entry<byte[]> e : events) {
+            Frame full = group.add(e.item(), e.seq(), maxEvents, now);
+            if (full != null) frames.add(full);
+        }
+        Frame last = group.take();
+        if (last != null) frames.add(last);
+        return frames;
+    }
+
+    /** 🔹 Send the group's ready frames in order, unless another thread is already doing so */
+    private void drain(Members<M> group, long now) {
+        if (!group.claim()) return;
+        Frame frame = null;
+        try {
+            while ((frame = group.next()) != null) {
+                send(group, frame, now);
+            }
+        } finally {
+            if (frame != null) group.release();   // a sender threw: the next publisher carries on
+        }
+    }
+
+    private void send(Members<M> group, Frame frame, long now) {
+        frameBytes.record(frame.json.length);
+        frameEvents.record(frame.events);
+        frameLatency.record(Math.max(0, now - frame.firstNanos), TimeUnit.NANOSECONDS);
+        for (M member : group.members) {
+            sender.accept(member, frame);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.config.StreamProperties;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.dto.StreamSubscriberStats;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.ReplayRing;
+import com.laraid.netwatch.utils.StreamFilterIndex;
+import com.laraid.netwatch.utils.StreamFilterIndex.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Filtered live packet streams. Each subscriber states a {@link StreamFilter} when it subscribes
+ * and receives only the packets it accepts; routing goes through one {@link StreamFilterIndex}
+ * per stream, so the cost of an event follows the number of interested subscribers, not all of them.
+ * <ul>
+ *   <li>SSE ({@code GET /api/v1/packets/stream?ip=10.0.0.0/24}): persisted packets as
+ *   {@link PacketSummary}. Each connection drains its own bounded {@link SubscriberBuffer}, so
+ *   publishing never waits for a client and a slow one only loses its own packets, as its
+ *   {@link StreamProperties.Overflow} policy says.</li>
+ *   <li>STOMP ({@code SUBSCRIBE /queue/rawPackets} with filter headers): the agents' raw packets
+ *   from Kafka, serialized once per event and sent straight to the matching subscriptions. Their
+ *   per-session bound is Spring's send buffer/time limit: a session that exceeds it is closed.</li>
+ * </ul>
+ * Either stream can instead be taken as frames ({@code ?frames=true}, STOMP header
+ * {@code frames: true}): JSON arrays of the accepted events, sent every {@code frame-interval-ms} or
+ * {@code frame-max-events}, each serialized once and shared by the subscribers with the same
+ * filter ({@link FrameBatcher}). Over WebSocket those frames are what permessage-deflate compresses
+ * well; Tomcat negotiates it whenever the browser offers it.
+ * <p>
+ * Each stream also keeps its last {@code replay-size} events in a {@link ReplayRing}. A new
+ * subscriber (including a plain {@code SUBSCRIBE /topic/rawPackets}) first gets the ones its filter
+ * accepts, then live events from exactly where that replay ended: registering happens before the
+ * ring is read and the subscriber skips live events numbered below the replay's end, so nothing is
+ * missed or sent twice. Dashboards no longer need a {@code /latest} query to fill the screen, and a
+ * wave of reconnects is served from memory instead of Postgres.
+ */
+@Service
+public class LiveStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveStreamService.class);
+
+    public static final String RAW_PACKETS_DESTINATION = "/queue/rawPackets";
+    public static final String RAW_PACKETS_TOPIC = "/topic/rawPackets";   // unfiltered, for existing clients
+    public static final String FRAMES = "frames";
+    public static final String REPLAY = "replay";
+
+    /** one STOMP subscription: a session may hold several, each with its own filter; equal by its ids */
+    static final class Subscription {
+        final String sessionId;
+        final String subscriptionId;
+        final String destination;
+        private long since = Long.MIN_VALUE;   // guarded by this: live events numbered below were replayed
+
+        Subscription(String sessionId, String subscriptionId, String destination) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Subscription other && Objects.equals(sessionId, other.sessionId)
+                    && Objects.equals(subscriptionId, other.subscriptionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sessionId, subscriptionId);
+        }
+    }
+
+    /** an event as the replay rings keep it: what filters look at, the value sent, and its JSON once asked for */
+    private final class Published {
+        final Event event;
+        final Object value;
+        private byte[] json;
+        private boolean serialized;
+
+        Published(Event event, Object value) {
+            this.event = event;
+            this.value = value;
+        }
+
+        synchronized byte[] json() {
+            if (!serialized) {
+                json = LiveStreamService.this.json(value);
+                serialized = true;
+            }
+            return json;
+        }
+    }
+
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final StreamProperties props;
+    private final StreamFilterIndex<SubscriberBuffer<PacketSummary>> sseSubscribers = new StreamFilterIndex<>();
+    private final StreamFilterIndex<Subscription> wsSubscribers = new StreamFilterIndex<>();
+    private final FrameBatcher<SubscriberBuffer<FrameBatcher.Frame>> sseFrames;
+    private final FrameBatcher<Subscription> wsFrames;
+    private final Set<SubscriberBuffer<?>> sseBuffers = ConcurrentHashMap.newKeySet();
+    private final ReplayRing<Published> sseReplay;
+    private final ReplayRing<Published> wsReplay;
+    private final EventRate sseRate = new EventRate();
+    private final EventRate wsRate = new EventRate();
+    private final Map<StreamProperties.Overflow, SubscriberBuffer.Meters> sseMeters = new EnumMap<>(StreamProperties.Overflow.class);
+    private final Counter wsDelivered;
+    private final Counter sseReplayed;
+    private final Counter wsReplayed;
+
+    public LiveStreamService(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                             ObjectMapper objectMapper, StreamProperties props, MeterRegistry registry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.props = props;
+        this.sseReplay = new ReplayRing<>(props.getReplaySize());
+        this.wsReplay = new ReplayRing<>(props.getReplaySize());
+        Duration budget = Duration.ofMillis(props.getFrameIntervalMs());
+        this.sseFrames = new FrameBatcher<>("sse", props.getFrameMaxEvents(), budget,
+                (buffer, frame) -> buffer.offer(frame::since), registry);
+        this.wsFrames = new FrameBatcher<>("ws", props.getFrameMaxEvents(), budget, this::sendLive, registry);
+        Counter sseDelivered = Counter.builder("netwatch.stream.delivered").tag("stream", "sse")
+                .description("Packets sent to live-stream subscribers (a frame counts its packets)").register(registry);
+        Counter sseDisconnects = Counter.builder("netwatch.stream.disconnects").tag("stream", "sse")
+                .description("Subscribers disconnected for falling a full buffer behind").register(registry);
+        for (StreamProperties.Overflow overflow : StreamProperties.Overflow.values()) {
+            Counter dropped = Counter.builder("netwatch.stream.dropped").tag("stream", "sse").tag("overflow", overflow.name())
+                    .description("Packets discarded because the subscriber's buffer was full (a frame counts its packets)")
+                    .register(registry);
+            sseMeters.put(overflow, new SubscriberBuffer.Meters(sseDelivered, dropped, sseDisconnects));
+        }
+        this.wsDelivered = Counter.builder("netwatch.stream.delivered").tag("stream", "ws")
+                .description("Packets sent to live-stream subscribers (a frame counts its packets)").register(registry);
+        this.sseReplayed = Counter.builder("netwatch.stream.replayed").tag("stream", "sse")
+                .description("Events sent to new subscribers from the replay ring").register(registry);
+        this.wsReplayed = Counter.builder("netwatch.stream.replayed").tag("stream", "ws")
+                .description("Events sent to new subscribers from the replay ring").register(registry);
+        Gauge.builder("netwatch.stream.subscribers", this, t -> t.sseSubscribers.size() + t.sseFrames.members())
+                .tag("stream", "sse").register(registry);
+        Gauge.builder("netwatch.stream.subscribers", this, t -> t.wsSubscribers.size() + t.wsFrames.members())
+                .tag("stream", "ws").register(registry);
+        Gauge.builder("netwatch.stream.lag", this, t -> t.sseBuffers.stream().mapToInt(SubscriberBuffer::lag).max().orElse(0))
+                .tag("stream", "sse").description("Items buffered for the furthest-behind subscriber").register(registry);
+        Gauge.builder("netwatch.stream.events.rate", sseRate, EventRate::perSecond).tag("stream", "sse")
+                .description("Events entering the stream per second, before filtering").register(registry);
+        Gauge.builder("netwatch.stream.events.rate", wsRate, EventRate::perSecond).tag("stream", "ws")
+                .description("Events entering the stream per second, before filtering").register(registry);
+    }
+
+    // ----------------------------
+    // SSE: persisted packets
+    // ----------------------------
+
+    /**
+     * 🔹 Persisted packets accepted by {@code filter}: the last {@code replay} of them (null = replay-size),
+     * then live ones; the filter must be valid, overflow null = configured
+     */
+    public Flux<PacketSummary> subscribe(StreamFilter filter, StreamProperties.Overflow overflow, Integer replay) {
+        SubscriberBuffer<PacketSummary> buffer = buffer(filter, false, overflow, summary -> 1);
+        return buffer.flux(() -> {
+            sseBuffers.add(buffer);
+            sseSubscribers.add(buffer, filter);
+            long until = sseReplay.next();
+            List<PacketSummary> replayed = replay(sseReplay, filter, replay, until).stream()
+                    .map(e -> (PacketSummary) e.item().value).toList();
+            sseReplayed.increment(replayed.size());
+            return new SubscriberBuffer.Replay<>(replayed, until);
+        }, () -> {
+            sseSubscribers.remove(buffer);
+            sseBuffers.remove(buffer);
+        });
+    }
+
+    /** 🔹 Like {@link #subscribe}, as JSON-array frames (the replay too); the filter must be valid */
+    public Flux<String> subscribeFrames(StreamFilter filter, StreamProperties.Overflow overflow, Integer replay) {
+        SubscriberBuffer<FrameBatcher.Frame> buffer = buffer(filter, true, overflow, frame -> frame.events);
+        return buffer.flux(() -> {
+            sseBuffers.add(buffer);
+            sseFrames.join(buffer, filter);
+            long until = sseReplay.next();
+            List<FrameBatcher.Frame> frames = sseFrames.frames(serialized(replay(sseReplay, filter, replay, until)));
+            sseReplayed.increment(frames.stream().mapToInt(f -> f.events).sum());
+            return new SubscriberBuffer.Replay<>(frames, until);
+        }, () -> {
+            sseFrames.leave(buffer);
+            sseBuffers.remove(buffer);
+        }).map(FrameBatcher.Frame::text);
+    }
+
+    /** 🔹 Connected SSE subscribers, furthest behind first */
+    public List<StreamSubscriberStats> subscribers() {
+        return sseBuffers.stream().map(SubscriberBuffer::stats)
+                .sorted(Comparator.comparingInt(StreamSubscriberStats::lag).reversed()
+                        .thenComparingLong(StreamSubscriberStats::id))
+                .toList();
+    }
+
+    private <T> SubscriberBuffer<T> buffer(StreamFilter filter, boolean framed, StreamProperties.Overflow overflow,
+                                           ToIntFunction<? super T> packets) {
+        StreamProperties.Overflow policy = overflow != null ? overflow : props.getOverflow();
+        return new SubscriberBuffer<>(filter, framed, props.getBufferSize(), policy, props.getSampleEvery(),
+                sseMeters.get(policy), packets);
+    }
+
+    /** 🔹 Keep a persisted batch for replay and fan it out to the SSE subscribers that want it */
+    public void publish(List<Packet> packets) {
+        sseRate.add(packets.size());
+        for (Packet p : packets) {
+            PacketSummary summary = PacketSummary.of(p);
+            Published published = new Published(Event.of(summary), summary);
+            long seq = sseReplay.append(published);
+            for (SubscriberBuffer<PacketSummary> buffer : sseSubscribers.match(published.event)) {
+                buffer.offer(summary, seq);
+            }
+            if (!sseFrames.isEmpty()) sseFrames.offer(published.event, seq, published::json);
+        }
+    }
+
+    // ----------------------------
+    // STOMP: raw packets from Kafka
+    // ----------------------------
+
+    /** 🔹 Keep a raw agent packet for replay and send it to the STOMP subscriptions that want it */
+    public void publishRaw(Map<String, Object> data) {
+        wsRate.add(1);
+        Event event = new Event(text(data.get("agentId")), text(data.get("srcIp")), text(data.get("dstIp")),
+                number(data.get("srcPort")), number(data.get("dstPort")), text(data.get("protocol")),
+                text(data.get("packetType")));
+        Published published = new Published(event, data);
+        long seq = wsReplay.append(published);
+        List<Subscription> targets = wsSubscribers.match(event);
+        if (!targets.isEmpty() && published.json() != null) {
+            for (Subscription s : targets) {
+                synchronized (s) {
+                    if (seq >= s.since) send(s, published.json(), 1);
+                }
+            }
+        }
+        if (!wsFrames.isEmpty()) wsFrames.offer(event, seq, published::json);
+    }
+
+    private void sendLive(Subscription s, FrameBatcher.Frame frame) {
+        synchronized (s) {
+            FrameBatcher.Frame fresh = frame.since(s.since);
+            if (fresh != null) send(s, fresh.json, fresh.events);
+        }
+    }
+
+    private void send(Subscription s, byte[] payload, int events) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(s.sessionId);
+        headers.setSubscriptionId(s.subscriptionId);
+        headers.setDestination(s.destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);   // the STOMP handler adds the message-id
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+        wsDelivered.increment(events);
+    }
+
+    /**
+     * 🔹 SUBSCRIBE headers were validated by {@link com.laraid.netwatch.websocket.StreamFilterInterceptor}.
+     * {@value #RAW_PACKETS_TOPIC} subscriptions are served here too, unfiltered, so that they get the replay;
+     * nothing is sent to that topic through the broker.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        boolean topic = RAW_PACKETS_TOPIC.equals(destination);
+        if (!topic && !RAW_PACKETS_DESTINATION.equals(destination)) return;
+        StreamFilter filter = topic ? new StreamFilter() : StreamFilter.of(headers::getFirstNativeHeader);
+        boolean framed = !topic && Boolean.parseBoolean(headers.getFirstNativeHeader(FRAMES));
+        String replay = headers.getFirstNativeHeader(REPLAY);
+        Integer count = replay == null || replay.isBlank() ? null : Integer.valueOf(replay.trim());
+        Subscription s = new Subscription(headers.getSessionId(), headers.getSubscriptionId(), destination);
+        synchronized (s) {   // live events for it wait until the replay is sent
+            if (framed) {
+                wsFrames.join(s, filter);
+            } else {
+                wsSubscribers.add(s, filter);
+            }
+            long until = wsReplay.next();
+            List<ReplayRing.Entry<Published>> replayed = replay(wsReplay, filter, count, until);
+            if (framed) {
+                for (FrameBatcher.Frame frame : wsFrames.frames(serialized(replayed))) {
+                    send(s, frame.json, frame.events);
+                    wsReplayed.increment(frame.events);
+                }
+            } else {
+                for (ReplayRing.Entry<Published> e : replayed) {
+                    byte[] json = e.item().json();
+                    if (json == null) continue;
+                    send(s, json, 1);
+                    wsReplayed.increment();
+                }
+            }
+            s.since = until;
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        Subscription s = subscription(event);
+        wsSubscribers.remove(s);
+        wsFrames.leave(s);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        wsSubscribers.removeIf(s -> s.sessionId.equals(event.getSessionId()));
+        wsFrames.leaveIf(s -> s.sessionId.equals(event.getSessionId()));
+    }
+
+    // ----------------------------
+    // replay
+    // ----------------------------
+
+    /**
+     * the last {@code count} (null = all the ring holds) events numbered below {@code until} that
+     * {@code filter} accepts, oldest first
+     */
+    private static List<ReplayRing.Entry<Published>> replay(ReplayRing<Published> ring, StreamFilter filter,
+                                                            Integer count, long until) {
+        int limit = count == null ? ring.capacity() : Math.min(Math.max(count, 0), ring.capacity());
+        if (limit == 0) return List.of();
+        Predicate<Event> accepts = StreamFilterIndex.matcher(filter);
+        List<ReplayRing.Entry<Published>> matching = ring.range(0, until).stream()
+                .filter(e -> accepts.test(e.item().event)).toList();
+        return matching.subList(Math.max(0, matching.size() - limit), matching.size());
+    }
+
+    private static List<ReplayRing.Entry<byte[]>> serialized(List<ReplayRing.Entry<Published>> events) {
+        List<ReplayRing.Entry<byte[]>> out = new ArrayList<>(events.size());
+        for (ReplayRing.Entry<Published> e : events) {
+            byte[] json = e.item().json();
+            if (json != null) out.add(new ReplayRing.Entry<>(e.seq(), json));
+        }
+        return out;
+    }
+
+    // ----------------------------
+    // frames
+    // ----------------------------
+
+    /** 🔹 Send what the framed subscribers have pending, and sample the event rates */
+    @Scheduled(fixedRateString = "${netwatch.stream.frame-interval-ms:100}")
+    public void flushFrames() {
+        sseFrames.flush();
+        wsFrames.flush();
+        sseRate.sample();
+        wsRate.sample();
+    }
+
+    /** events counted as they come, turned into a per-second rate about once a second */
+    private static final class EventRate {
+        private final LongAdder count = new LongAdder();
+        private long sampledAt = System.nanoTime();
+        private volatile double perSecond;
+
+        void add(int n) {
+            count.add(n);
+        }
+
+        synchronized void sample() {
+            long now = System.nanoTime();
+            if (now - sampledAt < 1_000_000_000L) return;
+            perSecond = count.sumThenReset() * 1e9 / (now - sampledAt);
+            sampledAt = now;
+        }
+
+        double perSecond() {
+            return perSecond;
+        }
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            log.warn("Packet not streamed, cannot serialize: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private static Subscription subscription(AbstractSubProtocolEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        return new Subscription(headers.getSessionId(), headers.getSubscriptionId(), headers.getDestination());
+    }
+
+    private static String text(Object v) {
+        return v == null ? null : v.toString();
+    }
+
+    private static Integer number(Object v) {
+        if (v instanceof Number n) return n.intValue();
+        if (v instanceof String s) {
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
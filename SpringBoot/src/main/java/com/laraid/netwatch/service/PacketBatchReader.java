@@ -0,0 +1,273 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.dto.PacketDTO;
+import com.laraid.netwatch.entity.Packet;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-streaming decoder for {@code PacketBatchDTO} bodies.
+ * <p>
+ * Packets are mapped one by one as they are parsed and handed downstream in chunks of
+ * {@code chunkSize}, so neither a {@code List<PacketDTO>} nor the whole batch is ever held
+ * in memory. A single {@link PacketDTO} is reused as scratch space for every packet.
+ * <p>
+ * Batch-level {@code agentId}/{@code hostName}/{@code interfaceName} are applied as
+ * defaults only if they appear before {@code packets} (the agents always send them first);
+ * the same goes for {@code epoch}/{@code batchSeq}, which the sink sees in
+ * {@link ChunkSink#begin} before any packet is decoded.
+ * <p>
+ * Besides JSON the same token loop decodes {@value #SMILE_VALUE} bodies (binary JSON, see
+ * {@link PacketBatchSmileEncoder}), whose shared-name and shared-string back-references act
+ * as a per-batch dictionary for field names, MACs, IPs and agent metadata.
+ */
+@Component
+public class PacketBatchReader {
+
+    /** Receives mapped chunks; returning false stops the read (e.g. queue full). */
+    @FunctionalInterface
+    public interface ChunkSink {
+        boolean accept(List<Packet> chunk);
+
+        /** Called with the header once {@code packets} is reached; returning false skips the packets. */
+        default boolean begin(PacketBatchDTO header) {
+            return true;
+        }
+    }
+
+    /**
+     * @param packets   packets accepted by the sink
+     * @param completed false if the sink stopped the read
+     * @param skipped   true if the sink declined the batch in {@link ChunkSink#begin}
+     * @param header    batch-level fields that preceded {@code packets}
+     */
+    public record Result(int packets, boolean completed, boolean skipped, PacketBatchDTO header) {
+    }
+
+    private static final class Progress {
+        int packets;
+        boolean stopped;
+        boolean skipped;
+    }
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private final JsonFactory jsonFactory;
+    private final SmileFactory smileFactory = new SmileFactory();
+    private final PacketMapper packetMapper;
+
+    public PacketBatchReader(ObjectMapper objectMapper, PacketMapper packetMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.packetMapper = packetMapper;
+    }
+
+    /** Decode a JSON body. */
+    public Result read(InputStream in, int chunkSize, ChunkSink sink) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return read(parser, chunkSize, sink);
+        }
+    }
+
+    /** Decode a body of the given content type (JSON or Smile). */
+    public Result read(InputStream in, MediaType contentType, int chunkSize, ChunkSink sink) throws IOException {
+        if (contentType == null || !SMILE.isCompatibleWith(contentType)) {
+            return read(in, chunkSize, sink);
+        }
+        try (JsonParser parser = smileFactory.createParser(in)) {
+            return read(parser, chunkSize, sink);
+        }
+    }
+
+    Result read(JsonParser parser, int chunkSize, ChunkSink sink) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a packet batch object");
+        }
+        PacketBatchDTO header = new PacketBatchDTO();
+        Progress progress = new Progress();
+        while (!progress.stopped && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "agentId" -> header.setAgentId(text(parser, value));
+                case "hostName" -> header.setHostName(text(parser, value));
+                case "interfaceName" -> header.setInterfaceName(text(parser, value));
+                case "epoch" -> header.setEpoch(longValue(parser, value));
+                case "batchSeq" -> header.setBatchSeq(longValue(parser, value));
+                case "packets" -> {
+                    if (sink.begin(header)) {
+                        readPackets(parser, value, header, chunkSize, sink, progress);
+                    } else {
+                        progress.skipped = true;
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new Result(progress.packets, !progress.stopped, progress.skipped, header);
+    }
+
+    private void readPackets(JsonParser parser, JsonToken value, PacketBatchDTO header,
+                             int chunkSize, ChunkSink sink, Progress progress) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        PacketDTO scratch = new PacketDTO();
+        List<Packet> chunk = new ArrayList<>(chunkSize);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            reset(scratch);
+            readPacket(parser, scratch);
+            chunk.add(packetMapper.map(scratch, header));
+            if (chunk.size() >= chunkSize) {
+                if (!handOff(chunk, sink, progress)) return;
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) handOff(chunk, sink, progress);
+    }
+
+    private static boolean handOff(List<Packet> chunk, ChunkSink sink, Progress progress) {
+        if (!sink.accept(chunk)) {
+            progress.stopped = true;
+            return false;
+        }
+        progress.packets += chunk.size();
+        return true;
+    }
+
+    private void readPacket(JsonParser parser, PacketDTO d) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken v = parser.nextToken();
+            switch (field) {
+                case "timestamp" -> d.setTimestamp(text(parser, v));
+                case "srcMAC" -> d.setSrcMAC(text(parser, v));
+                case "dstMAC" -> d.setDstMAC(text(parser, v));
+                case "arpOp" -> d.setArpOp(text(parser, v));
+                case "arpSrcIp" -> d.setArpSrcIp(text(parser, v));
+                case "arpDstIp" -> d.setArpDstIp(text(parser, v));
+                case "srcIp" -> d.setSrcIp(text(parser, v));
+                case "dstIp" -> d.setDstIp(text(parser, v));
+                case "protocol" -> d.setProtocol(text(parser, v));
+                case "ttl" -> d.setTtl(integer(parser, v));
+                case "ipFlags" -> d.setIpFlags(text(parser, v));
+                case "srcPort" -> d.setSrcPort(integer(parser, v));
+                case "dstPort" -> d.setDstPort(integer(parser, v));
+                case "seq" -> d.setSeq(longValue(parser, v));
+                case "tcpFlags" -> d.setTcpFlags(text(parser, v));
+                case "udpLen" -> d.setUdpLen(integer(parser, v));
+                case "icmpType" -> d.setIcmpType(integer(parser, v));
+                case "icmpCode" -> d.setIcmpCode(integer(parser, v));
+                case "dnsQueryName" -> d.setDnsQueryName(text(parser, v));
+                case "dnsQueryType" -> d.setDnsQueryType(text(parser, v));
+                case "dnsAnswer" -> d.setDnsAnswer(text(parser, v));
+                case "payload" -> d.setPayload(text(parser, v));
+                case "rawPayload" -> d.setRawPayload(bytes(parser, v));
+                case "payloadLength" -> d.setPayloadLength(integer(parser, v));
+                case "httpInfo" -> d.setHttpInfo(text(parser, v));
+                case "tlsInfo" -> d.setTlsInfo(text(parser, v));
+                case "length" -> d.setLength(integer(parser, v));
+                case "packetType" -> d.setPacketType(text(parser, v));
+                case "agentId" -> d.setAgentId(text(parser, v));
+                case "hostName" -> d.setHostName(text(parser, v));
+                case "interfaceName" -> d.setInterfaceName(text(parser, v));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken v) throws IOException {
+        if (v == JsonToken.VALUE_NULL) return null;
+        if (v.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    /** base64 in JSON, native binary in Smile */
+    private static byte[] bytes(JsonParser parser, JsonToken v) throws IOException {
+        if (v == JsonToken.VALUE_NULL) return null;
+        if (v.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getBinaryValue();
+    }
+
+    /** numbers, or numeric strings as Jackson databind accepts them; anything else is a 400 */
+    private static Integer integer(JsonParser parser, JsonToken v) throws IOException {
+        Long n = longValue(parser, v);
+        if (n == null) return null;
+        if (n != n.intValue()) throw new JsonParseException(parser, "Numeric value out of range of int: " + n);
+        return n.intValue();
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken v) throws IOException {
+        if (v == JsonToken.VALUE_NULL) return null;
+        if (v.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        if (v == JsonToken.VALUE_NUMBER_INT) return parser.getLongValue();   // overflow is an InputCoercionException
+        if (v == JsonToken.VALUE_NUMBER_FLOAT) return parser.getValueAsLong();
+        if (v == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) return null;
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Not a number for " + parser.currentName() + ": \"" + text + "\"");
+            }
+        }
+        throw new JsonParseException(parser, "Not a number for " + parser.currentName() + ": " + v);
+    }
+
+    private static void reset(PacketDTO d) {
+        d.setTimestamp(null);
+        d.setSrcMAC(null);
+        d.setDstMAC(null);
+        d.setArpOp(null);
+        d.setArpSrcIp(null);
+        d.setArpDstIp(null);
+        d.setSrcIp(null);
+        d.setDstIp(null);
+        d.setProtocol(null);
+        d.setTtl(null);
+        d.setIpFlags(null);
+        d.setSrcPort(null);
+        d.setDstPort(null);
+        d.setSeq(null);
+        d.setTcpFlags(null);
+        d.setUdpLen(null);
+        d.setIcmpType(null);
+        d.setIcmpCode(null);
+        d.setDnsQueryName(null);
+        d.setDnsQueryType(null);
+        d.setDnsAnswer(null);
+        d.setPayload(null);
+        d.setRawPayload(null);
+        d.setPayloadLength(null);
+        d.setHttpInfo(null);
+        d.setTlsInfo(null);
+        d.setLength(null);
+        d.setPacketType(null);
+        d.setAgentId(null);
+        d.setHostName(null);
+        d.setInterfaceName(null);
+    }
+}
@@ -0,0 +1,101 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.dto.PacketDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reference encoder for the {@value PacketBatchReader#SMILE_VALUE} batch format.
+ * <p>
+ * The layout is the JSON batch object written as Smile with shared property names and
+ * shared string values enabled: every repeated field name and every repeated short string
+ * (MACs, IPs, agent id, flags) after its first occurrence is a one- or two-byte back-reference.
+ * Null fields are omitted instead of being written as {@code "field": null}. {@code rawPayload}
+ * is written as raw binary (7-bit encoding disabled), so payload bytes round-trip exactly.
+ * <p>
+ * {@code epoch}/{@code batchSeq} follow the header strings and precede {@code packets}, the
+ * order {@link PacketBatchReader} needs to deduplicate a resent batch before decoding it.
+ */
+public class PacketBatchSmileEncoder {
+
+    private final SmileFactory smileFactory = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+            .build();
+
+    public byte[] encode(PacketBatchDTO batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(batch, out);
+        return out.toByteArray();
+    }
+
+    public void encode(PacketBatchDTO batch, OutputStream out) throws IOException {
+        try (JsonGenerator g = smileFactory.createGenerator(out)) {
+            g.writeStartObject();
+            string(g, "agentId", batch.getAgentId());
+            string(g, "hostName", batch.getHostName());
+            string(g, "interfaceName", batch.getInterfaceName());
+            if (batch.getEpoch() != null) g.writeNumberField("epoch", batch.getEpoch());
+            if (batch.getBatchSeq() != null) g.writeNumberField("batchSeq", batch.getBatchSeq());
+            g.writeArrayFieldStart("packets");
+            if (batch.getPackets() != null) {
+                for (PacketDTO p : batch.getPackets()) {
+                    writePacket(g, p);
+                }
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    private static void writePacket(JsonGenerator g, PacketDTO p) throws IOException {
+        g.writeStartObject();
+        string(g, "timestamp", p.getTimestamp());
+        string(g, "srcMAC", p.getSrcMAC());
+        string(g, "dstMAC", p.getDstMAC());
+        string(g, "arpOp", p.getArpOp());
+        string(g, "arpSrcIp", p.getArpSrcIp());
+        string(g, "arpDstIp", p.getArpDstIp());
+        string(g, "srcIp", p.getSrcIp());
+        string(g, "dstIp", p.getDstIp());
+        string(g, "protocol", p.getProtocol());
+        number(g, "ttl", p.getTtl());
+        string(g, "ipFlags", p.getIpFlags());
+        number(g, "srcPort", p.getSrcPort());
+        number(g, "dstPort", p.getDstPort());
+        if (p.getSeq() != null) g.writeNumberField("seq", p.getSeq());
+        string(g, "tcpFlags", p.getTcpFlags());
+        number(g, "udpLen", p.getUdpLen());
+        number(g, "icmpType", p.getIcmpType());
+        number(g, "icmpCode", p.getIcmpCode());
+        string(g, "dnsQueryName", p.getDnsQueryName());
+        string(g, "dnsQueryType", p.getDnsQueryType());
+        string(g, "dnsAnswer", p.getDnsAnswer());
+        string(g, "payload", p.getPayload());
+        if (p.getRawPayload() != null) g.writeBinaryField("rawPayload", p.getRawPayload());
+        number(g, "payloadLength", p.getPayloadLength());
+        string(g, "httpInfo", p.getHttpInfo());
+        string(g, "tlsInfo", p.getTlsInfo());
+        number(g, "length", p.getLength());
+        string(g, "packetType", p.getPacketType());
+        string(g, "agentId", p.getAgentId());
+        string(g, "hostName", p.getHostName());
+        string(g, "interfaceName", p.getInterfaceName());
+        g.writeEndObject();
+    }
+
+    private static void string(JsonGenerator g, String name, String value) throws IOException {
+        if (value != null) g.writeStringField(name, value);
+    }
+
+    private static void number(JsonGenerator g, String name, Integer value) throws IOException {
+        if (value != null) g.writeNumberField(name, value);
+    }
+}
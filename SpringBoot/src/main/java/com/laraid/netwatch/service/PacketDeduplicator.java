@@ -0,0 +1,149 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.DedupProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses the second copy of a packet when two agents sniff the same segment.
+ * <p>
+ * A packet is identified by its 5-tuple, TCP {@code seq}, length and capture time truncated to
+ * the second. The fingerprint is kept with a 16-bit hash of the reporting agent in a
+ * direct-mapped table, and a packet is dropped only if the same fingerprint came from a
+ * <em>different</em> agent, so an agent's own retransmissions are still stored.
+ * <p>
+ * Memory is two fixed {@code long[]} generations: the current one takes inserts and both are
+ * probed; every {@code window-ms} the older one is cleared and becomes current. An entry thus
+ * lives between one and two windows. Collisions overwrite, so the filter can miss a duplicate
+ * but a false drop needs a 47-bit fingerprint collision.
+ */
+@Component
+public class PacketDeduplicator {
+
+    private static final long AGENT_BITS = 0xFFFFL;
+    private static final long PRESENT = 1L << 16;   // keeps a stored entry non-zero
+
+    private final DedupProperties props;
+    private final LongSupplier clock;
+    private final int mask;
+    private long[] current;
+    private long[] previous;
+    private long rotatedAt;
+
+    private final Counter checked;
+    private final Counter suppressed;
+
+    @Autowired
+    public PacketDeduplicator(DedupProperties props, MeterRegistry registry) {
+        this(props, registry, System::currentTimeMillis);
+    }
+
+    PacketDeduplicator(DedupProperties props, MeterRegistry registry, LongSupplier clock) {
+        this.props = props;
+        this.clock = clock;
+        int size = Integer.highestOneBit(Math.max(2, props.getSlots() - 1)) << 1;
+        this.mask = size - 1;   // tables are allocated on first use, so a disabled filter costs nothing
+        this.rotatedAt = clock.getAsLong();
+
+        this.checked = Counter.builder("netwatch.dedup.packets.checked").register(registry);
+        this.suppressed = Counter.builder("netwatch.dedup.packets.suppressed")
+                .description("Packets dropped because another agent already reported them")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /** 🔹 Returns the packets not yet reported by another agent (the input list if nothing was dropped) */
+    public synchronized List<Packet> filter(List<Packet> packets) {
+        if (current == null) {
+            current = new long[mask + 1];
+            previous = new long[mask + 1];
+        }
+        rotate();
+        List<Packet> kept = null;
+        for (int i = 0; i < packets.size(); i++) {
+            Packet p = packets.get(i);
+            if (isDuplicate(p)) {
+                if (kept == null) kept = new ArrayList<>(packets.subList(0, i));
+            } else if (kept != null) {
+                kept.add(p);
+            }
+        }
+        int dropped = kept == null ? 0 : packets.size() - kept.size();
+        checked.increment(packets.size());
+        if (dropped > 0) suppressed.increment(dropped);
+        return kept == null ? packets : kept;
+    }
+
+    private boolean isDuplicate(Packet p) {
+        long fp = fingerprint(p);
+        int slot = (int) (fp >>> 40) & mask;
+        long tag = fp & ~(AGENT_BITS | PRESENT);
+        long agent = Objects.hashCode(p.getAgentId()) & AGENT_BITS;
+
+        if (seenFromOtherAgent(current[slot], tag, agent) || seenFromOtherAgent(previous[slot], tag, agent)) {
+            return true;
+        }
+        current[slot] = tag | PRESENT | agent;
+        return false;
+    }
+
+    private static boolean seenFromOtherAgent(long entry, long tag, long agent) {
+        return entry != 0 && (entry & ~(AGENT_BITS | PRESENT)) == tag && (entry & AGENT_BITS) != agent;
+    }
+
+    private void rotate() {
+        long now = clock.getAsLong();
+        if (now - rotatedAt < props.getWindowMs()) return;
+        long[] recycled = previous;
+        if (now - rotatedAt >= 2 * props.getWindowMs()) {
+            // idle for more than a window: both generations are stale
+            Arrays.fill(current, 0);
+        }
+        Arrays.fill(recycled, 0);
+        previous = current;
+        current = recycled;
+        rotatedAt = now;
+    }
+
+    /** 64-bit mix of the identifying tuple; the capture time is cut at the second ("yyyy-MM-ddTHH:mm:ss") */
+    static long fingerprint(Packet p) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h, hash(p.getSrcIp(), Integer.MAX_VALUE));
+        h = mix(h, hash(p.getDstIp(), Integer.MAX_VALUE));
+        h = mix(h, p.getSrcPort() == null ? -1 : p.getSrcPort());
+        h = mix(h, p.getDstPort() == null ? -1 : p.getDstPort());
+        h = mix(h, hash(p.getProtocol(), Integer.MAX_VALUE));
+        h = mix(h, p.getSeq() == null ? -1 : p.getSeq());
+        h = mix(h, p.getLength() == null ? -1 : p.getLength());
+        h = mix(h, hash(p.getTimestamp(), 19));
+        return h;
+    }
+
+    private static long hash(String s, int maxChars) {
+        if (s == null) return 0;
+        int n = Math.min(s.length(), maxChars);
+        long h = 1125899906842597L;
+        for (int i = 0; i < n; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v * 0xC2B2AE3D27D4EB4FL;
+        h = Long.rotateLeft(h, 31) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,203 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer between the batch endpoint and the database.
+ * <p>
+ * Request threads only enqueue mapped packets; a small pool of persistence workers drains the
+ * queue and groups chunks from several agents into one large write. Capacity is counted in
+ * packets (not requests) so memory stays bounded whatever batch size the agents use.
+ */
+@Component
+public class PacketIngestionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketIngestionQueue.class);
+
+    private final Consumer<List<Packet>> writer;
+    private final IngestProperties props;
+
+    private final LinkedBlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter drained;
+    private final Counter failed;
+    private final Timer writeTimer;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @Autowired
+    public PacketIngestionQueue(PacketService packetService, IngestProperties props, MeterRegistry registry) {
+        this(packetService::persistAndPublish, props, registry);
+    }
+
+    /** 🔹 With any writer in place of {@link PacketService#persistAndPublish} (tests) */
+    PacketIngestionQueue(Consumer<List<Packet>> writer, IngestProperties props, MeterRegistry registry) {
+        this.writer = writer;
+        this.props = props;
+        this.capacity = new Semaphore(props.getQueueCapacity());
+
+        Gauge.builder("netwatch.ingest.queue.depth", pending, AtomicInteger::get)
+                .description("Packets accepted but not yet persisted")
+                .register(registry);
+        Gauge.builder("netwatch.ingest.queue.capacity", props, IngestProperties::getQueueCapacity)
+                .register(registry);
+        this.accepted = Counter.builder("netwatch.ingest.packets.accepted").register(registry);
+        this.rejected = Counter.builder("netwatch.ingest.packets.rejected")
+                .description("Packets refused with 429 because the queue was full")
+                .register(registry);
+        this.drained = Counter.builder("netwatch.ingest.packets.drained")
+                .description("Packets persisted by the workers (rate = drain rate)")
+                .register(registry);
+        this.failed = Counter.builder("netwatch.ingest.packets.failed")
+                .description("Packets lost after their 202: a failed write (not retried) or a shutdown that did not drain")
+                .register(registry);
+        this.writeTimer = Timer.builder("netwatch.ingest.write").register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNo = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(props.getWorkers(), r -> {
+            Thread t = new Thread(r, "ingest-writer-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < props.getWorkers(); i++) {
+            workers.submit(this::drainLoop);
+        }
+        log.info("Ingestion queue started: capacity={} workers={} maxRowsPerWrite={}",
+                props.getQueueCapacity(), props.getWorkers(), props.getMaxRowsPerWrite());
+    }
+
+    /**
+     * Enqueue packets for asynchronous persistence.
+     *
+     * @return false if the queue has no room; the caller should answer 429
+     */
+    public boolean offer(List<Packet> packets) {
+        return offer(packets, 0);
+    }
+
+    /**
+     * Enqueue packets, waiting up to {@code timeoutMs} for room. Used by the streaming batch
+     * reader so a request already half-parsed gets brief backpressure instead of an instant 429.
+     */
+    public boolean offer(List<Packet> packets, long timeoutMs) {
+        if (packets.isEmpty()) return true;
+        // a single oversized chunk may still use the whole queue, but never more
+        int permits = Math.min(packets.size(), props.getQueueCapacity());
+        if (!running || !acquire(permits, timeoutMs)) {
+            rejected.increment(packets.size());
+            return false;
+        }
+        pending.addAndGet(packets.size());
+        queue.add(new Chunk(packets, permits));
+        accepted.increment(packets.size());
+        return true;
+    }
+
+    private boolean acquire(int permits, long timeoutMs) {
+        if (timeoutMs <= 0) return capacity.tryAcquire(permits);
+        try {
+            return capacity.tryAcquire(permits, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return props.getRetryAfterSeconds();
+    }
+
+    public int depth() {
+        return pending.get();
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Chunk first = queue.poll(props.getPollTimeoutMs(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                write(collect(first));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** 🔹 Group queued chunks (possibly from several agents) into one write */
+    private List<Chunk> collect(Chunk first) {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(first);
+        int rows = first.packets().size();
+        Chunk next;
+        while (rows < props.getMaxRowsPerWrite() && (next = queue.poll()) != null) {
+            chunks.add(next);
+            rows += next.packets().size();
+        }
+        return chunks;
+    }
+
+    private void write(List<Chunk> chunks) {
+        List<Packet> rows = new ArrayList<>();
+        int permits = 0;
+        for (Chunk c : chunks) {
+            rows.addAll(c.packets());
+            permits += c.permits();
+        }
+        try {
+            writeTimer.record(() -> writer.accept(rows));
+            drained.increment(rows.size());
+        } catch (Exception e) {
+            failed.increment(rows.size());
+            log.error("Failed to persist {} queued packets", rows.size(), e);
+        } finally {
+            pending.addAndGet(-rows.size());
+            capacity.release(permits);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(props.getShutdownTimeoutMs(), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+            int dropped = queue.stream().mapToInt(c -> c.packets().size()).sum();   // still queued, never written
+            failed.increment(dropped);
+            log.warn("Ingestion workers did not drain in time, {} packets dropped", dropped);
+        }
+    }
+
+    private record Chunk(List<Packet> packets, int permits) {
+    }
+}
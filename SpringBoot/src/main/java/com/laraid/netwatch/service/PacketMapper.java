@@ -0,0 +1,146 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.dto.PacketDTO;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.PacketColumns;
+import com.laraid.netwatch.utils.StringDictionary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Single DTO → {@link Packet} mapping point, shared by the JSON endpoints and the streaming batch reader.
+ * <p>
+ * Low-cardinality fields go through bounded {@link StringDictionary} tables so the packets
+ * retained by sinks, queues and detectors share one instance per distinct agent id, MAC, IP or
+ * flag string instead of one per packet. Hit ratios are exported as
+ * {@code netwatch.mapper.dictionary.*} tagged by dictionary.
+ */
+@Component
+public class PacketMapper implements MeterBinder {
+
+    private final boolean intern;
+    private final int maxPayloadBytes;
+    private final StringDictionary agents = new StringDictionary(256);     // agentId, hostName, interfaceName
+    private final StringDictionary macs = new StringDictionary(4096);
+    private final StringDictionary ips = new StringDictionary(16384);
+    private final StringDictionary codes = new StringDictionary(512);      // protocol, flags, types
+
+    public PacketMapper() {
+        this(new IngestProperties());
+    }
+
+    @Autowired
+    public PacketMapper(IngestProperties props) {
+        this.intern = props.isInternStrings();
+        this.maxPayloadBytes = props.getMaxPayloadBytes();
+    }
+
+    /** 🔹 Map a batch element, filling agent fields from the batch header when the packet has none */
+    public Packet map(PacketDTO d, PacketBatchDTO batch) {
+        if (StringUtils.isBlank(d.getAgentId())) d.setAgentId(batch.getAgentId());
+        if (StringUtils.isBlank(d.getHostName())) d.setHostName(batch.getHostName());
+        if (StringUtils.isBlank(d.getInterfaceName())) d.setInterfaceName(batch.getInterfaceName());
+        return map(d);
+    }
+
+    /** 🔹 DTO → Entity mapper */
+    public Packet map(PacketDTO d) {
+        Packet p = new Packet();
+        p.setAgentId(clean(d.getAgentId(), agents));
+        p.setHostName(clean(d.getHostName(), agents));
+        p.setInterfaceName(clean(d.getInterfaceName(), agents));
+        p.setReceivedAt(LocalDateTime.now());
+        p.setTimestamp(d.getTimestamp());
+        p.setSrcMAC(mac(d.getSrcMAC()));
+        p.setDstMAC(mac(d.getDstMAC()));
+        p.setArpOp(clean(d.getArpOp(), codes));
+        p.setArpSrcIp(ip(d.getArpSrcIp()));
+        p.setArpDstIp(ip(d.getArpDstIp()));
+        p.setSrcIp(ip(d.getSrcIp()));
+        p.setDstIp(ip(d.getDstIp()));
+        p.setProtocol(clean(d.getProtocol(), codes));
+        p.setTtl(d.getTtl());
+        p.setIpFlags(clean(d.getIpFlags(), codes));
+        p.setSrcPort(d.getSrcPort());
+        p.setDstPort(d.getDstPort());
+        p.setSeq(d.getSeq());
+        p.setTcpFlags(clean(d.getTcpFlags(), codes));
+        p.setUdpLen(d.getUdpLen());
+        p.setIcmpType(d.getIcmpType());
+        p.setIcmpCode(d.getIcmpCode());
+        p.setDnsQueryName(clean(d.getDnsQueryName()));
+        p.setDnsQueryType(clean(d.getDnsQueryType(), codes));
+        p.setDnsAnswer(clean(d.getDnsAnswer()));
+        payload(d, p);
+        p.setHttpInfo(clean(d.getHttpInfo()));
+        p.setTlsInfo(clean(d.getTlsInfo()));
+        p.setLength(d.getLength());
+        p.setPacketType(clean(d.getPacketType(), codes));
+        return p;
+    }
+
+    /**
+     * 🔹 Exact bytes from {@code rawPayload}; a legacy text {@code payload} is taken as its UTF-8 bytes.
+     * Cut to {@code max-payload-bytes}, while {@code payloadLength} keeps the captured size.
+     */
+    private void payload(PacketDTO d, Packet p) {
+        byte[] raw = d.getRawPayload();
+        if (raw == null && d.getPayload() != null) raw = d.getPayload().getBytes(StandardCharsets.UTF_8);
+        if (raw == null) return;
+        int captured = d.getPayloadLength() != null ? Math.max(d.getPayloadLength(), raw.length) : raw.length;
+        if (raw.length > maxPayloadBytes) raw = Arrays.copyOf(raw, maxPayloadBytes);
+        p.setRawPayload(raw);
+        p.setPayloadLength(captured);
+        p.setPayload(new String(raw, StandardCharsets.UTF_8));
+    }
+
+    /** 🔹 One reusable cleaner for all string fields; returns the same instance when there is nothing to strip */
+    static String clean(String s) {
+        if (s == null || s.indexOf('\u0000') < 0) return s;
+        return s.replace("\u0000", ""); // strip null bytes
+    }
+
+    /** 🔹 IP literal or null: the column is inet, so anything else would fail the whole write */
+    private String ip(String s) {
+        String cleaned = clean(s, ips);
+        return PacketColumns.isInet(cleaned) ? cleaned : null;
+    }
+
+    /** 🔹 MAC or null (macaddr column) */
+    private String mac(String s) {
+        String cleaned = clean(s, macs);
+        return PacketColumns.isMac(cleaned) ? cleaned : null;
+    }
+
+    private String clean(String s, StringDictionary dictionary) {
+        String cleaned = clean(s);
+        return intern ? dictionary.intern(cleaned) : cleaned;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map.of("agents", agents, "macs", macs, "ips", ips, "codes", codes).forEach((name, dict) -> {
+            Gauge.builder("netwatch.mapper.dictionary.hit.ratio", dict, StringDictionary::hitRatio)
+                    .tag("dictionary", name)
+                    .register(registry);
+            FunctionCounter.builder("netwatch.mapper.dictionary.hits", dict, StringDictionary::hits)
+                    .tag("dictionary", name)
+                    .register(registry);
+            FunctionCounter.builder("netwatch.mapper.dictionary.misses", dict, StringDictionary::misses)
+                    .tag("dictionary", name)
+                    .register(registry);
+        });
+    }
+}
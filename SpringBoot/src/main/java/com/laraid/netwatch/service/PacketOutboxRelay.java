@@ -0,0 +1,179 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.KafkaTopicProperties;
+import com.laraid.netwatch.config.OutboxProperties;
+import com.laraid.netwatch.config.PublishProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains {@link PacketOutbox} to packet-events on its own thread, so ingestion only waits for its
+ * database commit, never for the broker.
+ * <p>
+ * Per chunk: take or renew this instance's lease on the relay ({@link PacketOutbox#lock}) and read
+ * the oldest {@code chunkSize} rows; send them through {@link PacketPublisher} and wait for every
+ * acknowledgement, with no transaction or connection held; then delete them and advance the
+ * progress row in one short transaction. A failed or timed-out chunk is left in place and sent
+ * again after {@code errorBackoffMs}, so delivery is at least once: a crash between the
+ * acknowledgements and the delete republishes that chunk.
+ * <p>
+ * The wait for acknowledgements outlasts the producer's delivery timeout, so a chunk is only
+ * resent once its first attempt is over, and the lease outlasts that wait.
+ */
+@Component
+public class PacketOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketOutboxRelay.class);
+
+    private final PacketOutbox outbox;
+    private final PacketPublisher publisher;
+    private final OutboxProperties props;
+    private final String relay;
+    private final String owner = "relay-" + UUID.randomUUID();
+    private final long ackTimeoutMs;
+    private final long leaseMs;
+    private final TransactionTemplate tx;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Counter relayed;
+    private final Counter failures;
+    private final Timer chunkTimer;
+    private final Timer delay;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public PacketOutboxRelay(PacketOutbox outbox, PacketPublisher publisher, OutboxProperties props,
+                             PublishProperties publishProperties, KafkaTopicProperties kafkaTopicProperties,
+                             PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.outbox = outbox;
+        this.publisher = publisher;
+        this.props = props;
+        this.relay = kafkaTopicProperties.getLivePacketEvents();
+        this.ackTimeoutMs = publishProperties.getDeliveryTimeoutMs() + props.getAckGraceMs();
+        this.leaseMs = ackTimeoutMs + props.getAckGraceMs();
+        this.tx = new TransactionTemplate(transactionManager);
+        this.relayed = Counter.builder("netwatch.outbox.relayed")
+                .description("Outbox rows published and deleted")
+                .register(registry);
+        this.failures = Counter.builder("netwatch.outbox.failures")
+                .description("Chunks rolled back because publishing failed or timed out")
+                .register(registry);
+        this.chunkTimer = Timer.builder("netwatch.outbox.chunk").register(registry);
+        this.delay = Timer.builder("netwatch.outbox.delay")
+                .description("Commit of a packet to its acknowledgement on packet-events")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!props.isEnabled()) return;
+        running = true;
+        thread = new Thread(this::relayLoop, "outbox-relay");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Outbox relay started: chunkSize={} topic={}", props.getChunkSize(), relay);
+    }
+
+    /** 🔹 New rows were committed: relay them now instead of at the next poll */
+    public void wake() {
+        if (wakeups.availablePermits() == 0) wakeups.release();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                int rows = relayChunk();
+                if (rows < props.getChunkSize()) {
+                    wakeups.tryAcquire(props.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Outbox relay to {} failed, retrying in {} ms: {}", relay, props.getErrorBackoffMs(), e.toString());
+                try {
+                    Thread.sleep(props.getErrorBackoffMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** 🔹 Relay one chunk; returns its row count (0 when the outbox is empty or another instance relays) */
+    public int relayChunk() {
+        long start = System.nanoTime();
+        if (outbox.lock(relay, owner, leaseMs).isEmpty()) return 0;
+        List<PacketOutbox.Entry> chunk = outbox.next(props.getChunkSize());
+        if (chunk.isEmpty()) return 0;
+        await(chunk.stream().map(PacketOutbox.Entry::packet).toList());
+        tx.executeWithoutResult(status -> outbox.remove(relay, chunk));
+        recordDelay(chunk);
+        chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        relayed.increment(chunk.size());
+        return chunk.size();
+    }
+
+    /** send and wait for every acknowledgement; any failure rolls the chunk back */
+    private void await(List<Packet> packets) {
+        try {
+            publisher.send(packets).get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Publishing " + packets.size() + " outbox rows failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(packets.size() + " outbox rows not acknowledged within "
+                    + ackTimeoutMs + " ms", e);
+        }
+    }
+
+    private void recordDelay(List<PacketOutbox.Entry> chunk) {
+        OffsetDateTime now = OffsetDateTime.now();
+        for (PacketOutbox.Entry e : chunk) {
+            delay.record(Duration.between(e.createdAt(), now));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread == null) return;
+        wake();
+        thread.join(props.getShutdownTimeoutMs());   // let a chunk in flight finish
+        if (thread.isAlive()) {
+            thread.interrupt();   // its chunk stays in the outbox and is relayed after the restart
+            thread.join(props.getShutdownTimeoutMs());
+        }
+        try {
+            outbox.unlock(relay, owner);
+        } catch (RuntimeException e) {
+            log.debug("Could not release the outbox relay lease; it expires on its own", e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.KafkaTopicProperties;
+import com.laraid.netwatch.config.PublishProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publish stage for ingested packets on packet-events.
+ * <p>
+ * A batch is handed to the producer in one pass, with no wait per record; acknowledgements are
+ * tracked as they complete. At most {@code maxPendingRecords} records are unacknowledged; past that,
+ * a batch waits for room or is dropped ({@link PublishProperties.Overflow}), so a slow broker costs
+ * bounded memory and, at worst, live events, never the database write that came before. A record
+ * the producer gave up on with a retriable error (delivery timeout, broker unavailable) is sent
+ * again from a scheduler, never from the producer's I/O thread, up to {@code retries} times.
+ */
+@Component
+public class PacketPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketPublisher.class);
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final KafkaTemplate<String, Packet> kafkaTemplate;
+    private final KafkaTopicProperties kafkaTopicProperties;
+    private final PublishProperties props;
+    private final MeterRegistry registry;
+
+    private final Semaphore capacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong lastWarn = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "kafka-publish-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Timer latency;
+    private final DistributionSummary bytes;
+    private final Counter published;
+    private final Counter retried;
+    private final Counter dropped;
+
+    public PacketPublisher(KafkaTemplate<String, Packet> kafkaTemplate, KafkaTopicProperties kafkaTopicProperties,
+                           PublishProperties props, MeterRegistry registry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaTopicProperties = kafkaTopicProperties;
+        this.props = props;
+        this.registry = registry;
+        this.capacity = new Semaphore(props.getMaxPendingRecords());
+
+        Gauge.builder("netwatch.publish.inflight", pending, AtomicInteger::get)
+                .description("Records handed to the producer and not yet acknowledged")
+                .register(registry);
+        this.latency = Timer.builder("netwatch.publish.latency")
+                .description("send() to broker acknowledgement, per record")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.bytes = DistributionSummary.builder("netwatch.publish.bytes")
+                .description("Serialized key + value size of acknowledged records, before compression")
+                .baseUnit("bytes")
+                .register(registry);
+        this.published = Counter.builder("netwatch.publish.records").register(registry);
+        this.retried = Counter.builder("netwatch.publish.retries").register(registry);
+        this.dropped = Counter.builder("netwatch.publish.dropped")
+                .description("Records not sent because maxPendingRecords were unacknowledged")
+                .register(registry);
+    }
+
+    /** 🔹 Send a batch keyed by source address; returns false if it was dropped for overflow */
+    public boolean publish(List<Packet> packets) {
+        if (packets.isEmpty()) return true;
+        int permits = permits(packets);
+        if (!acquire(permits)) {
+            dropped.increment(packets.size());
+            warn("packet-events publishing is behind: {} records unacknowledged, dropped a batch of {}",
+                    pending.get(), packets.size());
+            return false;
+        }
+        sendAll(packets, permits, props.getRetries());
+        return true;
+    }
+
+    /**
+     * 🔹 Send a batch that must not be lost (the outbox relay): waits for room whatever the overflow
+     * policy; the future completes once every record is acknowledged, or fails with the first error.
+     * No resends here: the caller retries the whole batch, and the future completes within the
+     * producer's delivery timeout (plus max.block.ms per record sent).
+     */
+    public CompletableFuture<Void> send(List<Packet> packets) throws InterruptedException {
+        if (packets.isEmpty()) return CompletableFuture.completedFuture(null);
+        int permits = permits(packets);
+        capacity.acquire(permits);
+        return sendAll(packets, permits, 0).future;
+    }
+
+    /** one oversized batch may take all the room, but never more */
+    private int permits(List<Packet> packets) {
+        return Math.min(packets.size(), props.getMaxPendingRecords());
+    }
+
+    private Batch sendAll(List<Packet> packets, int permits, int retries) {
+        pending.addAndGet(packets.size());
+        Batch batch = new Batch(packets.size(), permits, retries);
+        String topic = kafkaTopicProperties.getLivePacketEvents();
+        for (int i = 0; i < packets.size(); i++) {
+            Throwable blocked = send(topic, packets.get(i), batch, 0);
+            if (blocked != null) {
+                // the producer just waited max.block.ms for metadata or buffer room: the broker is unreachable,
+                // and each further record would hold this (ingest) thread as long again
+                failUnsent(topic, packets.size() - i - 1, batch, blocked);
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private boolean acquire(int permits) {
+        if (props.getOverflow() == PublishProperties.Overflow.DROP) return capacity.tryAcquire(permits);
+        try {
+            return capacity.tryAcquire(permits, props.getOverflowWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** returns the timeout if send() gave up after max.block.ms; other failures arrive asynchronously */
+    private Throwable send(String topic, Packet packet, Batch batch, int attempt) {
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Packet>> future;
+        try {
+            future = kafkaTemplate.send(topic, packet.getSrcIp(), packet);
+        } catch (RuntimeException e) {   // serializer, or a producer that throws instead of failing the future
+            failed(topic, packet, batch, attempt, e);
+            return blockTimeout(e);
+        }
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                acknowledged(result, start);
+                batch.done();
+            } else {
+                failed(topic, packet, batch, attempt, error);
+            }
+        });
+        // the producer reports a metadata / buffer timeout through the callback before send() returns
+        return future.isCompletedExceptionally() ? blockTimeout(future.handle((r, e) -> e).join()) : null;
+    }
+
+    private static Throwable blockTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) return t;
+        }
+        return null;
+    }
+
+    /** the rest of a batch after a blocked send: failed at once, without trying the producer again */
+    private void failUnsent(String topic, int records, Batch batch, Throwable cause) {
+        if (records == 0) return;
+        registry.counter("netwatch.publish.errors", "exception", cause.getClass().getSimpleName()).increment(records);
+        warn("{} unreachable ({}), failed {} more records of the batch without sending", topic, cause.toString(), records);
+        for (int i = 0; i < records; i++) {
+            batch.failed(cause);
+        }
+    }
+
+    private void acknowledged(SendResult<String, Packet> result, long start) {
+        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        published.increment();
+        RecordMetadata metadata = result.getRecordMetadata();
+        int size = Math.max(metadata.serializedKeySize(), 0) + Math.max(metadata.serializedValueSize(), 0);
+        bytes.record(size);
+    }
+
+    private void failed(String topic, Packet packet, Batch batch, int attempt, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RetriableException && attempt < batch.retries) {
+            retried.increment();
+            try {
+                retryScheduler.schedule(() -> {
+                            send(topic, packet, batch, attempt + 1);
+                        },
+                        props.getRetryBackoffMs(), TimeUnit.MILLISECONDS);
+                return;
+            } catch (RuntimeException rejected) {
+                // shutting down: fall through and count it as failed
+            }
+        }
+        registry.counter("netwatch.publish.errors", "exception", cause.getClass().getSimpleName()).increment();
+        warn("Failed to publish packet {} to {} after {} attempts: {}", packet.getId(), topic, attempt + 1, cause.toString());
+        batch.failed(cause);
+    }
+
+    /** at most one warning per interval: a broker outage fails every record */
+    private void warn(String format, Object... args) {
+        long now = System.nanoTime();
+        long last = lastWarn.get();
+        if (now - last >= WARN_INTERVAL_NANOS && lastWarn.compareAndSet(last, now)) {
+            log.warn(format, args);
+        }
+    }
+
+    public int inflight() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        retryScheduler.shutdown();
+        kafkaTemplate.flush();
+    }
+
+    /** a published batch's records; returns its overflow permits once every one is acknowledged or failed */
+    private final class Batch {
+        private final AtomicInteger remaining;
+        private final int permits;
+        final int retries;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Batch(int records, int permits, int retries) {
+            this.remaining = new AtomicInteger(records);
+            this.permits = permits;
+            this.retries = retries;
+        }
+
+        void failed(Throwable cause) {
+            failure.compareAndSet(null, cause);
+            done();
+        }
+
+        void done() {
+            pending.decrementAndGet();
+            if (remaining.decrementAndGet() > 0) return;
+            capacity.release(permits);
+            Throwable cause = failure.get();
+            if (cause == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+}
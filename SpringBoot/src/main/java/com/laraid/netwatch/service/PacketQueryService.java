@@ -0,0 +1,127 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.laraid.netwatch.dto.PacketCursor;
+import com.laraid.netwatch.dto.PacketSearchCriteria;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketHotTier;
+import com.laraid.netwatch.repo.PacketPayloadStore;
+import com.laraid.netwatch.repo.PacketRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the packet history: keyset pages of {@link PacketSummary} streamed straight from
+ * the result set to the response, so a page costs the same whether it is the first or the
+ * millionth. The full {@link Packet} is only loaded by id.
+ * <p>
+ * The next cursor is looked up first (a probe for the last row of the page) so it
+ * can go into a response header; both queries run in one REPEATABLE READ snapshot, so the
+ * cursor is exactly the last row written even while packets keep arriving.
+ * <p>
+ * {@link #latest} is answered from the {@link PacketHotTier} whenever it holds enough packets.
+ * Every database read here runs read-only, i.e. on the read pool (see {@code DataSourceConfig}).
+ */
+@Service
+public class PacketQueryService {
+
+    /** 🔹 Where a page goes; opened once the next cursor is known (null when fewer than a full page remain) */
+    @FunctionalInterface
+    public interface PageOutput {
+        OutputStream open(PacketCursor next) throws IOException;
+    }
+
+    private final PacketRepository packetRepository;
+    private final PacketPayloadStore payloadStore;
+    private final PacketHotTier hotTier;
+    private final ObjectWriter summaryWriter;
+    private final TransactionTemplate snapshot;
+
+    public PacketQueryService(PacketRepository packetRepository, PacketPayloadStore payloadStore, PacketHotTier hotTier,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.packetRepository = packetRepository;
+        this.payloadStore = payloadStore;
+        this.hotTier = hotTier;
+        // one flush per page, not per packet
+        this.summaryWriter = objectMapper.writerFor(PacketSummary.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * 🔹 Write up to {@code size} packets matching {@code criteria} (null = all) and older than
+     * {@code before} (newest first when null) as a JSON array
+     */
+    public void writePage(PacketSearchCriteria criteria, PacketCursor before, int size, PageOutput output) throws IOException {
+        try {
+            snapshot.executeWithoutResult(s -> {
+                try {
+                    streamPage(criteria, before, size, output);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void streamPage(PacketSearchCriteria criteria, PacketCursor before, int size, PageOutput output) throws IOException {
+        PacketCursor next = packetRepository.keyAt(criteria, before, size - 1);
+
+        OutputStream out = output.open(next);
+        try (Stream<PacketSummary> rows = packetRepository.search(criteria, before, size);
+             JsonGenerator json = summaryWriter.createGenerator(out)) {
+            json.writeStartArray();
+            for (Iterator<PacketSummary> it = rows.iterator(); it.hasNext(); ) {
+                summaryWriter.writeValue(json, it.next());
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /** 🔹 Newest {@code limit} packets as summaries (bounded by the caller); the database only when the hot tier is short */
+    @Transactional(readOnly = true)
+    public List<PacketSummary> latest(int limit) {
+        Optional<List<PacketSummary>> hot = hotTier.latest(limit);
+        if (hot.isPresent()) return hot.get();
+        try (Stream<PacketSummary> rows = packetRepository.search(null, null, limit)) {
+            return rows.toList();
+        }
+    }
+
+    /** 🔹 Full packet, heavy fields included (payload fetched from the payload store) */
+    @Transactional(readOnly = true)
+    public Optional<Packet> findById(long id) {
+        return packetRepository.findById(id).map(p -> {
+            payloadStore.load(p.getPayloadHash()).ifPresent(raw -> {
+                p.setRawPayload(raw);
+                p.setPayload(new String(raw, StandardCharsets.UTF_8));
+            });
+            return p;
+        });
+    }
+
+    /** 🔹 Exact stored payload bytes of a packet */
+    @Transactional(readOnly = true)
+    public Optional<byte[]> findPayload(long id) {
+        return packetRepository.findById(id).flatMap(p -> payloadStore.load(p.getPayloadHash()));
+    }
+}
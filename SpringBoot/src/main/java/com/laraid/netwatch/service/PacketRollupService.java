@@ -0,0 +1,145 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.RollupProperties;
+import com.laraid.netwatch.dto.RollupPoint;
+import com.laraid.netwatch.dto.RollupTotal;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketRollupRepository;
+import com.laraid.netwatch.repo.PacketRollupRepository.Dimension;
+import com.laraid.netwatch.repo.PacketRollupRepository.Key;
+import com.laraid.netwatch.repo.PacketRollupRepository.Level;
+import com.laraid.netwatch.utils.PacketColumns;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregation stage of the ingestion path: every persisted batch is folded into per-minute
+ * counters keyed by (agent, protocol, source IP, destination port), flushed every
+ * {@code flushIntervalMs} as additive upserts into {@code packet_rollup_minute}. Hour and day
+ * rows are compacted from those on {@code compactIntervalMs}; dashboards read only the rollups.
+ * <p>
+ * Each batch is aggregated without locking and merged into the shared map per distinct key, so
+ * ingestion workers contend once per key, not once per packet. A failed flush puts its counts
+ * back, to be retried with the next one.
+ */
+@Service
+public class PacketRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(PacketRollupService.class);
+
+    private final PacketRollupRepository repository;
+    private final RollupProperties props;
+    private Map<Key, long[]> pending = new HashMap<>();   // guarded by this
+
+    public PacketRollupService(PacketRollupRepository repository, RollupProperties props) {
+        this.repository = repository;
+        this.props = props;
+    }
+
+    /** 🔹 Count persisted packets into their minute buckets */
+    public void add(List<Packet> packets) {
+        if (!props.isEnabled() || packets.isEmpty()) return;
+        Map<Key, long[]> batch = aggregate(packets);
+        synchronized (this) {
+            batch.forEach((k, v) -> pending.merge(k, v, PacketRollupService::sum));
+        }
+    }
+
+    static Map<Key, long[]> aggregate(List<Packet> packets) {
+        Map<Key, long[]> counts = new HashMap<>();
+        for (Packet p : packets) {
+            LocalDateTime at = p.getReceivedAt() != null ? p.getReceivedAt() : LocalDateTime.now();
+            Key key = Key.of(at.truncatedTo(ChronoUnit.MINUTES), p.getAgentId(), PacketColumns.protocol(p.getProtocol()),
+                    PacketColumns.isInet(p.getSrcIp()) ? p.getSrcIp() : null, p.getDstPort());
+            long[] c = counts.computeIfAbsent(key, k -> new long[2]);
+            c[0]++;
+            c[1] += p.getLength() != null ? p.getLength() : 0;
+        }
+        return counts;
+    }
+
+    /** 🔹 Move the counters gathered so far into packet_rollup_minute */
+    @Scheduled(fixedDelayString = "${netwatch.rollups.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        Map<Key, long[]> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            repository.addMinutes(batch);
+        } catch (RuntimeException e) {
+            log.error("Rollup flush of {} rows failed, kept for the next flush", batch.size(), e);
+            synchronized (this) {
+                batch.forEach((k, v) -> pending.merge(k, v, PacketRollupService::sum));
+            }
+        }
+    }
+
+    /** 🔹 Minute → hour → day, then drop rows past each level's retention */
+    @Scheduled(fixedDelayString = "${netwatch.rollups.compact-interval-ms:300000}",
+            initialDelayString = "${netwatch.rollups.flush-interval-ms:5000}")
+    public void compact() {
+        if (!props.isEnabled()) return;
+        try {
+            long start = System.currentTimeMillis();
+            int rows = repository.compact();
+            LocalDateTime now = LocalDateTime.now();
+            int purged = repository.purge(Level.MINUTE, now.minus(props.getMinuteRetention()))
+                    + repository.purge(Level.HOUR, now.minus(props.getHourRetention()))
+                    + repository.purge(Level.DAY, now.minus(props.getDayRetention()));
+            log.debug("Rollups compacted: {} rows written, {} purged in {} ms", rows, purged, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Rollup compaction failed", e);
+        }
+    }
+
+    /** 🔹 Time series of {@code dimension} over [from, to); level null = finest one that keeps the series short */
+    @Transactional(readOnly = true)
+    public List<RollupPoint> series(Dimension dimension, Level level, LocalDateTime from, LocalDateTime to) {
+        return repository.series(level != null ? level : level(from, to), dimension, from, to);
+    }
+
+    /** 🔹 Largest {@code dimension} values over [from, to) */
+    @Transactional(readOnly = true)
+    public List<RollupTotal> top(Dimension dimension, Level level, LocalDateTime from, LocalDateTime to,
+                                 boolean byPackets, int limit) {
+        return repository.top(level != null ? level : level(from, to), dimension, from, to, byPackets, limit);
+    }
+
+    /** ≤ 6 h → minutes, ≤ 7 d → hours, days beyond (and whenever minute rows are already purged) */
+    Level level(LocalDateTime from, LocalDateTime to) {
+        Duration range = Duration.between(from, to);
+        LocalDateTime now = LocalDateTime.now();
+        if (range.compareTo(Duration.ofHours(6)) <= 0 && from.isAfter(now.minus(props.getMinuteRetention()))) {
+            return Level.MINUTE;
+        }
+        if (range.compareTo(Duration.ofDays(7)) <= 0 && from.isAfter(now.minus(props.getHourRetention()))) {
+            return Level.HOUR;
+        }
+        return Level.DAY;
+    }
+
+    synchronized Map<Key, long[]> pending() {
+        return Map.copyOf(pending);
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        a[0] += b[0];
+        a[1] += b[1];
+        return a;
+    }
+}
@@ -0,0 +1,42 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.OutboxProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketOutbox;
+import com.laraid.netwatch.repo.PacketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * The write transaction of ingestion: packet rows (JPA, JDBC batch or COPY, per
+ * netwatch.persistence.mode) and, with the outbox enabled, their {@link PacketOutbox} rows commit
+ * or roll back together.
+ */
+@Component
+@RequiredArgsConstructor
+public class PacketWriter {
+
+    private final PacketRepository packetRepository;
+    private final PacketOutbox packetOutbox;
+    private final PersistenceProperties persistenceProperties;
+    private final OutboxProperties outboxProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 🔹 Insert packets and queue them for the outbox relay, all or nothing; returns them with ids */
+    public List<Packet> write(List<Packet> packets) {
+        return transactionTemplate.execute(status -> {
+            List<Packet> saved = packets;
+            if (persistenceProperties.getMode() == PersistenceProperties.Mode.JPA) {
+                saved = packetRepository.saveAll(packets);
+            } else {
+                packetRepository.bulkInsert(packets);
+            }
+            if (outboxProperties.isEnabled()) packetOutbox.append(saved);
+            return saved;
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.StreamProperties.Overflow;
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.dto.StreamSubscriberStats;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * One SSE subscriber's queue: a bounded ring between the publishing threads and its connection.
+ * Publishers only append and return, whatever the client does; items leave the ring as the
+ * connection asks for them (one at a time, after the previous one was written). When the ring is
+ * full the subscriber's {@link Overflow} policy decides what is lost, and only this subscriber
+ * loses it.
+ * <p>
+ * A new subscriber first gets a {@link Replay} of what was published just before it came. Items
+ * offered meanwhile wait for it to be queued, and those the replay already covered are skipped, so
+ * the client sees every item once and in order from the first replayed one on.
+ * <p>
+ * Capacity and lag are in items; delivered and dropped count packets, so a frame counts as the
+ * packets it carries and the meters read the same for framed and plain subscribers.
+ */
+final class SubscriberBuffer<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberBuffer.class);
+    private static final AtomicLong IDS = new AtomicLong();
+
+    /** global counters shared by all buffers of a stream */
+    record Meters(Counter delivered, Counter dropped, Counter disconnects) {
+    }
+
+    /** 🔹 Items to send ahead of live ones; live items from stream position {@code since} on are new */
+    record Replay<T>(List<T> items, long since) {
+
+        static <T> Replay<T> none() {
+            return new Replay<>(List.of(), Long.MIN_VALUE);
+        }
+    }
+
+    final long id = IDS.incrementAndGet();
+    final LocalDateTime connectedAt = LocalDateTime.now();
+    final StreamFilter filter;
+    final boolean framed;
+    final Overflow overflow;
+    private final int sampleEvery;
+    private final Meters meters;
+    private final ToIntFunction<? super T> packets;   // packets an item carries
+
+    private final Object[] ring;   // guarded by this
+    private int head;
+    private int size;
+    private long arrivedWhileFull;
+    private long delivered;
+    private long dropped;
+    private long since = Long.MIN_VALUE;
+    private FluxSink<T> sink;
+    private boolean draining;
+    private boolean closed;
+
+    SubscriberBuffer(StreamFilter filter, boolean framed, int capacity, Overflow overflow, int sampleEvery, Meters meters) {
+        this(filter, framed, capacity, overflow, sampleEvery, meters, item -> 1);
+    }
+
+    SubscriberBuffer(StreamFilter filter, boolean framed, int capacity, Overflow overflow, int sampleEvery, Meters meters,
+                     ToIntFunction<? super T> packets) {
+        this.filter = filter;
+        this.framed = framed;
+        this.overflow = overflow;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.meters = meters;
+        this.packets = packets;
+        this.ring = new Object[Math.max(1, capacity)];
+    }
+
+    /**
+     * 🔹 The subscriber's stream; {@code onOpen} registers it with the publishers and returns what to
+     * replay (the ring keeps its newest items if that is more than fits), {@code onClose} unregisters it
+     */
+    Flux<T> flux(Supplier<Replay<T>> onOpen, Runnable onClose) {
+        return Flux.create(s -> {
+            synchronized (this) {
+                sink = s;
+                Replay<T> replay = onOpen.get();   // publishers that see us now wait for the lock
+                List<T> items = replay.items();
+                for (T item : items.subList(Math.max(0, items.size() - ring.length), items.size())) {
+                    ring[(head + size++) % ring.length] = item;
+                }
+                since = replay.since();
+            }
+            s.onRequest(n -> drain());
+            s.onDispose(() -> {
+                synchronized (this) {
+                    closed = true;
+                    clear();
+                }
+                onClose.run();
+            });
+        }, FluxSink.OverflowStrategy.ERROR);   // never emits beyond demand, the ring is the buffer
+    }
+
+    /** 🔹 Queue {@code item} for the client; never blocks */
+    void offer(T item) {
+        offer(since -> item);
+    }
+
+    /** 🔹 Queue the item published at stream position {@code seq} unless the replay had it */
+    void offer(T item, long seq) {
+        offer(since -> seq >= since ? item : null);
+    }
+
+    /**
+     * 🔹 Queue what {@code fresh} makes of an item given where the replay ended: the item, a part of
+     * it (a frame without the replayed events), or null for nothing; waits only for a replay being queued
+     */
+    void offer(LongFunction<T> fresh) {
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) return;
+            T item = fresh.apply(since);
+            if (item == null) return;
+            if (size < ring.length) {
+                ring[(head + size++) % ring.length] = item;
+            } else {
+                switch (overflow) {
+                    case DROP_OLDEST -> replaceOldest(item);
+                    case SAMPLE -> {
+                        if (++arrivedWhileFull % sampleEvery == 0) replaceOldest(item);
+                        else drop(packets.applyAsInt(item));
+                    }
+                    case DISCONNECT -> {
+                        drop(queuedPackets() + packets.applyAsInt(item));
+                        clear();
+                        closed = true;
+                        disconnect = true;
+                    }
+                }
+            }
+        }
+        if (disconnect) {
+            log.info("Live stream subscriber {} ({}) disconnected: {} items behind", id, filter, ring.length);
+            meters.disconnects().increment();
+            sink.complete();
+            return;
+        }
+        drain();
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (draining || sink == null) return;
+            draining = true;
+            try {
+                while (size > 0 && !closed && sink.requestedFromDownstream() > 0) {
+                    @SuppressWarnings("unchecked")
+                    T next = (T) ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    size--;
+                    int n = packets.applyAsInt(next);
+                    delivered += n;
+                    meters.delivered().increment(n);
+                    sink.next(next);
+                }
+            } finally {
+                draining = false;
+            }
+        }
+    }
+
+    synchronized StreamSubscriberStats stats() {
+        return new StreamSubscriberStats(id, connectedAt, framed, filter, overflow, ring.length, size, delivered, dropped);
+    }
+
+    synchronized int lag() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replaceOldest(T item) {
+        drop(packets.applyAsInt((T) ring[head]));
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        ring[(head + size - 1) % ring.length] = item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int queuedPackets() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n += packets.applyAsInt((T) ring[(head + i) % ring.length]);
+        }
+        return n;
+    }
+
+    private void drop(int n) {
+        dropped += n;
+        meters.dropped().increment(n);
+    }
+
+    private void clear() {
+        Arrays.fill(ring, null);
+        head = 0;
+        size = 0;
+    }
+}
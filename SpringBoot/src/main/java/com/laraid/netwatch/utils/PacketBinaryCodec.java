@@ -0,0 +1,353 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.entity.Packet;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary form of a {@link Packet} for Kafka, carrying the same fields as its JSON and giving them
+ * back unchanged (unlike {@link PacketSummaryCodec}, nothing is normalized):
+ * <pre>
+ *   byte  format version ({@value #VERSION})
+ *   int   presence bitmap (bit i = field i is not null), fields in entity order
+ *   ...   present fields: ints/longs → zigzag varint, text → varint length + UTF-8,
+ *         receivedAt → varint epoch second + varint nano,
+ *         addresses, MACs and the capture time → a tag byte, then 4 / 6 bytes / second + nano
+ *         when that spells the text back exactly, else the text
+ * </pre>
+ * Stateless, so one instance can be shared; the Kafka serializer brings the buffer.
+ */
+public final class PacketBinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int ID = 0, TIMESTAMP = 1, SRC_MAC = 2, DST_MAC = 3, ARP_OP = 4, ARP_SRC_IP = 5,
+            ARP_DST_IP = 6, SRC_IP = 7, DST_IP = 8, PROTOCOL = 9, TTL = 10, IP_FLAGS = 11, SRC_PORT = 12,
+            DST_PORT = 13, SEQ = 14, TCP_FLAGS = 15, UDP_LEN = 16, ICMP_TYPE = 17, ICMP_CODE = 18,
+            DNS_QUERY_NAME = 19, DNS_QUERY_TYPE = 20, DNS_ANSWER = 21, PAYLOAD_LENGTH = 22, PAYLOAD = 23,
+            HTTP_INFO = 24, TLS_INFO = 25, LENGTH = 26, PACKET_TYPE = 27, AGENT = 28, HOST = 29,
+            INTERFACE = 30, RECEIVED_AT = 31;
+
+    private static final byte TEXT = 0, IPV4 = 4, MAC = 6, DATE_TIME = 8;
+
+    /** 🔹 Append {@code p} at the buffer position; BufferOverflowException when it does not fit */
+    public void write(Packet p, ByteBuffer out) {
+        int present = bit(ID, p.getId()) | bit(TIMESTAMP, p.getTimestamp()) | bit(SRC_MAC, p.getSrcMAC())
+                | bit(DST_MAC, p.getDstMAC()) | bit(ARP_OP, p.getArpOp()) | bit(ARP_SRC_IP, p.getArpSrcIp())
+                | bit(ARP_DST_IP, p.getArpDstIp()) | bit(SRC_IP, p.getSrcIp()) | bit(DST_IP, p.getDstIp())
+                | bit(PROTOCOL, p.getProtocol()) | bit(TTL, p.getTtl()) | bit(IP_FLAGS, p.getIpFlags())
+                | bit(SRC_PORT, p.getSrcPort()) | bit(DST_PORT, p.getDstPort()) | bit(SEQ, p.getSeq())
+                | bit(TCP_FLAGS, p.getTcpFlags()) | bit(UDP_LEN, p.getUdpLen()) | bit(ICMP_TYPE, p.getIcmpType())
+                | bit(ICMP_CODE, p.getIcmpCode()) | bit(DNS_QUERY_NAME, p.getDnsQueryName())
+                | bit(DNS_QUERY_TYPE, p.getDnsQueryType()) | bit(DNS_ANSWER, p.getDnsAnswer())
+                | bit(PAYLOAD_LENGTH, p.getPayloadLength()) | bit(PAYLOAD, p.getPayload())
+                | bit(HTTP_INFO, p.getHttpInfo()) | bit(TLS_INFO, p.getTlsInfo()) | bit(LENGTH, p.getLength())
+                | bit(PACKET_TYPE, p.getPacketType()) | bit(AGENT, p.getAgentId()) | bit(HOST, p.getHostName())
+                | bit(INTERFACE, p.getInterfaceName()) | bit(RECEIVED_AT, p.getReceivedAt());
+        out.put(VERSION);
+        out.putInt(present);
+        if (p.getId() != null) putLong(out, p.getId());
+        putDateTime(out, p.getTimestamp());
+        putMac(out, p.getSrcMAC());
+        putMac(out, p.getDstMAC());
+        putText(out, p.getArpOp());
+        putIp(out, p.getArpSrcIp());
+        putIp(out, p.getArpDstIp());
+        putIp(out, p.getSrcIp());
+        putIp(out, p.getDstIp());
+        putText(out, p.getProtocol());
+        putInt(out, p.getTtl());
+        putText(out, p.getIpFlags());
+        putInt(out, p.getSrcPort());
+        putInt(out, p.getDstPort());
+        if (p.getSeq() != null) putLong(out, p.getSeq());
+        putText(out, p.getTcpFlags());
+        putInt(out, p.getUdpLen());
+        putInt(out, p.getIcmpType());
+        putInt(out, p.getIcmpCode());
+        putText(out, p.getDnsQueryName());
+        putText(out, p.getDnsQueryType());
+        putText(out, p.getDnsAnswer());
+        putInt(out, p.getPayloadLength());
+        putText(out, p.getPayload());
+        putText(out, p.getHttpInfo());
+        putText(out, p.getTlsInfo());
+        putInt(out, p.getLength());
+        putText(out, p.getPacketType());
+        putText(out, p.getAgentId());
+        putText(out, p.getHostName());
+        putText(out, p.getInterfaceName());
+        if (p.getReceivedAt() != null) {
+            LocalDateTime t = p.getReceivedAt();
+            putLong(out, t.toEpochSecond(ZoneOffset.UTC));
+            putVarint(out, t.getNano());
+        }
+    }
+
+    /** 🔹 Read one packet written by {@link #write} from the buffer position; IllegalArgumentException for another version */
+    public Packet read(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported packet format version " + version);
+        int present = in.getInt();
+        Packet p = new Packet();
+        if (has(present, ID)) p.setId(getLong(in));
+        if (has(present, TIMESTAMP)) p.setTimestamp(getDateTime(in));
+        if (has(present, SRC_MAC)) p.setSrcMAC(getMac(in));
+        if (has(present, DST_MAC)) p.setDstMAC(getMac(in));
+        if (has(present, ARP_OP)) p.setArpOp(getText(in));
+        if (has(present, ARP_SRC_IP)) p.setArpSrcIp(getIp(in));
+        if (has(present, ARP_DST_IP)) p.setArpDstIp(getIp(in));
+        if (has(present, SRC_IP)) p.setSrcIp(getIp(in));
+        if (has(present, DST_IP)) p.setDstIp(getIp(in));
+        if (has(present, PROTOCOL)) p.setProtocol(getText(in));
+        if (has(present, TTL)) p.setTtl(getInt(in));
+        if (has(present, IP_FLAGS)) p.setIpFlags(getText(in));
+        if (has(present, SRC_PORT)) p.setSrcPort(getInt(in));
+        if (has(present, DST_PORT)) p.setDstPort(getInt(in));
+        if (has(present, SEQ)) p.setSeq(getLong(in));
+        if (has(present, TCP_FLAGS)) p.setTcpFlags(getText(in));
+        if (has(present, UDP_LEN)) p.setUdpLen(getInt(in));
+        if (has(present, ICMP_TYPE)) p.setIcmpType(getInt(in));
+        if (has(present, ICMP_CODE)) p.setIcmpCode(getInt(in));
+        if (has(present, DNS_QUERY_NAME)) p.setDnsQueryName(getText(in));
+        if (has(present, DNS_QUERY_TYPE)) p.setDnsQueryType(getText(in));
+        if (has(present, DNS_ANSWER)) p.setDnsAnswer(getText(in));
+        if (has(present, PAYLOAD_LENGTH)) p.setPayloadLength(getInt(in));
+        if (has(present, PAYLOAD)) p.setPayload(getText(in));
+        if (has(present, HTTP_INFO)) p.setHttpInfo(getText(in));
+        if (has(present, TLS_INFO)) p.setTlsInfo(getText(in));
+        if (has(present, LENGTH)) p.setLength(getInt(in));
+        if (has(present, PACKET_TYPE)) p.setPacketType(getText(in));
+        if (has(present, AGENT)) p.setAgentId(getText(in));
+        if (has(present, HOST)) p.setHostName(getText(in));
+        if (has(present, INTERFACE)) p.setInterfaceName(getText(in));
+        if (has(present, RECEIVED_AT)) {
+            p.setReceivedAt(LocalDateTime.ofEpochSecond(getLong(in), getVarint(in), ZoneOffset.UTC));
+        }
+        return p;
+    }
+
+    private static int bit(int index, Object value) {
+        return value == null ? 0 : 1 << index;
+    }
+
+    private static boolean has(int present, int index) {
+        return (present & (1 << index)) != 0;
+    }
+
+    // ----------------------------
+    // field encodings
+    // ----------------------------
+
+    private static void putIp(ByteBuffer out, String ip) {
+        if (ip == null) return;
+        long address = ipv4(ip);
+        if (address >= 0) {
+            out.put(IPV4).putInt((int) address);
+        } else {
+            out.put(TEXT);
+            putText(out, ip);
+        }
+    }
+
+    private static String getIp(ByteBuffer in) {
+        if (in.get() != IPV4) return getText(in);
+        int a = in.getInt();
+        return (a >>> 24) + "." + (a >>> 16 & 0xFF) + "." + (a >>> 8 & 0xFF) + "." + (a & 0xFF);
+    }
+
+    /** canonical dotted quad (no leading zeros, what {@link #getIp} prints) as an unsigned int; -1 otherwise */
+    private static long ipv4(String s) {
+        int n = s.length(), octets = 0, i = 0;
+        long address = 0;
+        if (n < 7 || n > 15) return -1;
+        while (i < n) {
+            int start = i, v = 0;
+            while (i < n && s.charAt(i) >= '0' && s.charAt(i) <= '9') v = v * 10 + (s.charAt(i++) - '0');
+            int digits = i - start;
+            if (digits == 0 || digits > 3 || v > 255 || (digits > 1 && s.charAt(start) == '0')) return -1;
+            address = address << 8 | v;
+            if (++octets == 4) return i == n ? address : -1;
+            if (i == n || s.charAt(i++) != '.') return -1;
+        }
+        return -1;
+    }
+
+    private static void putMac(ByteBuffer out, String mac) {
+        if (mac == null) return;
+        if (isLowerCaseMac(mac)) {
+            out.put(MAC);
+            for (int i = 0; i < 17; i += 3) {
+                out.put((byte) (Character.digit(mac.charAt(i), 16) << 4 | Character.digit(mac.charAt(i + 1), 16)));
+            }
+        } else {
+            out.put(TEXT);
+            putText(out, mac);
+        }
+    }
+
+    private static String getMac(ByteBuffer in) {
+        if (in.get() != MAC) return getText(in);
+        StringBuilder sb = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) sb.append(':');
+            int b = in.get() & 0xFF;
+            sb.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static boolean isLowerCaseMac(String s) {
+        if (s.length() != 17) return false;
+        for (int i = 0; i < 17; i++) {
+            char c = s.charAt(i);
+            boolean ok = i % 3 == 2 ? c == ':' : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    /** agent capture time: ISO local date-time text as second + nano when it prints back the same */
+    private static void putDateTime(ByteBuffer out, String text) {
+        if (text == null) return;
+        LocalDateTime t = canonicalDateTime(text);
+        if (t != null) {
+            out.put(DATE_TIME);
+            putLong(out, t.toEpochSecond(ZoneOffset.UTC));
+            putVarint(out, t.getNano());
+        } else {
+            out.put(TEXT);
+            putText(out, text);
+        }
+    }
+
+    /**
+     * {@code text} as a LocalDateTime if {@link LocalDateTime#toString} spells it exactly: seconds only
+     * when not both zero, a fraction of 3, 6 or 9 digits only when nonzero and not shorter; else null.
+     * Fixed positions instead of {@link LocalDateTime#parse}, which costs more than the rest of the packet.
+     */
+    private static LocalDateTime canonicalDateTime(String s) {
+        int n = s.length();
+        if (n != 16 && n != 19 && n != 23 && n != 26 && n != 29) return null;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':') return null;
+        int year = digits(s, 0, 4), month = digits(s, 5, 7), day = digits(s, 8, 10);
+        int hour = digits(s, 11, 13), minute = digits(s, 14, 16), second = 0, nano = 0;
+        if (n > 16) {
+            if (s.charAt(16) != ':') return null;
+            second = digits(s, 17, 19);
+        }
+        if (n > 19) {
+            if (s.charAt(19) != '.') return null;
+            int fraction = digits(s, 20, n);
+            if (fraction <= 0) return null;
+            nano = n == 23 ? fraction * 1_000_000 : n == 26 ? fraction * 1_000 : fraction;
+            if (n == 26 && nano % 1_000_000 == 0 || n == 29 && nano % 1_000 == 0) return null;
+        } else if (n == 19 && second == 0) {
+            return null;
+        }
+        if ((year | month | day | hour | minute | second) < 0) return null;
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /** the decimal digits in [from, to) as an int; -1 if any is not a digit */
+    private static int digits(String s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static String getDateTime(ByteBuffer in) {
+        if (in.get() != DATE_TIME) return getText(in);
+        return LocalDateTime.ofEpochSecond(getLong(in), getVarint(in), ZoneOffset.UTC).toString();
+    }
+
+    /** ASCII (nearly every field) is copied char by char, anything else goes through the UTF-8 encoder */
+    private static void putText(ByteBuffer out, String s) {
+        if (s == null) return;
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (s.charAt(i) >= 0x80) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                putVarint(out, utf8.length);
+                out.put(utf8);
+                return;
+            }
+        }
+        putVarint(out, n);
+        for (int i = 0; i < n; i++) {
+            out.put((byte) s.charAt(i));
+        }
+    }
+
+    private static String getText(ByteBuffer in) {
+        int length = getVarint(in);
+        if (length < 0 || length > in.remaining()) throw new BufferUnderflowException();   // corrupt length
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            s = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    private static void putInt(ByteBuffer out, Integer v) {
+        if (v != null) putVarint(out, (v << 1) ^ (v >> 31));
+    }
+
+    private static Integer getInt(ByteBuffer in) {
+        int z = getVarint(in);
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static void putLong(ByteBuffer out, long v) {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.put((byte) (z & 0x7F | 0x80));
+            z >>>= 7;
+        }
+        out.put((byte) z);
+    }
+
+    private static long getLong(ByteBuffer in) {
+        long z = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            z |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return (z >>> 1) ^ -(z & 1);
+        }
+    }
+
+    private static void putVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+}
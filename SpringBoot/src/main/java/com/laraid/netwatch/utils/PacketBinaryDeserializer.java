@@ -0,0 +1,42 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Kafka value deserializer for {@link PacketBinaryCodec} records. A record starting with '{' is
+ * JSON from a producer still configured for it, and is read as such, so a topic can switch format
+ * without draining it first.
+ */
+public class PacketBinaryDeserializer implements Deserializer<Packet> {
+
+    private final PacketBinaryCodec codec = new PacketBinaryCodec();
+    private final JsonDeserializer<Packet> json = new JsonDeserializer<>(Packet.class, false);
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Packet deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        if (data.length > 0 && data[0] == '{') return json.deserialize(topic, data);
+        try {
+            return codec.read(ByteBuffer.wrap(data));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new SerializationException("Cannot read packet from " + topic + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
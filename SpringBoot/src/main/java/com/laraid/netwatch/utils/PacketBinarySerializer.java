@@ -0,0 +1,41 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Kafka value serializer writing {@link PacketBinaryCodec}. Each sending thread encodes into its own
+ * reusable buffer, grown when a packet does not fit, so a record costs one exact-size copy.
+ */
+public class PacketBinarySerializer implements Serializer<Packet> {
+
+    private static final int INITIAL_BUFFER = 1024;
+    private static final int MAX_BUFFER = 16 * 1024 * 1024;
+
+    private final PacketBinaryCodec codec = new PacketBinaryCodec();
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER));
+
+    @Override
+    public byte[] serialize(String topic, Packet packet) {
+        if (packet == null) return null;
+        ByteBuffer buffer = buffers.get();
+        while (true) {
+            buffer.clear();
+            try {
+                codec.write(packet, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException e) {
+                if (buffer.capacity() >= MAX_BUFFER) {
+                    throw new SerializationException("Packet " + packet.getId() + " exceeds " + MAX_BUFFER + " bytes", e);
+                }
+                buffer = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, MAX_BUFFER));
+                buffers.set(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.laraid.netwatch.utils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Text ⇄ compact forms for the typed packet columns: {@code inet}, {@code macaddr},
+ * protocol number and TCP flag bitmask as {@code smallint}, capture time as {@code timestamptz}.
+ * <p>
+ * All parsers return null for values they cannot represent instead of throwing, so one bad
+ * field never fails a whole batch write.
+ */
+public final class PacketColumns {
+
+    /** Scapy flag letters in bit order: FIN=0x01 ... NS=0x100 */
+    private static final String TCP_FLAG_LETTERS = "FSRPAUECN";
+
+    private PacketColumns() {
+    }
+
+    // ----------------------------
+    // IP → inet
+    // ----------------------------
+
+    /** 4 or 16 address bytes for an IPv4/IPv6 literal, null otherwise (never does a DNS lookup) */
+    public static byte[] inet(String s) {
+        if (s == null || s.isEmpty()) return null;
+        if (s.indexOf(':') >= 0) return ipv6(s);
+        return ipv4(s);
+    }
+
+    public static boolean isInet(String s) {
+        return inet(s) != null;
+    }
+
+    /** "10.0.0.0/8", "fd00::/8": an address literal with a prefix length valid for its family */
+    public static boolean isCidr(String s) {
+        int slash = s == null ? -1 : s.indexOf('/');
+        if (slash < 0) return false;
+        byte[] address = inet(s.substring(0, slash));
+        if (address == null) return false;
+        try {
+            int bits = Integer.parseInt(s.substring(slash + 1));
+            return bits >= 0 && bits <= address.length * 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static byte[] ipv4(String s) {
+        byte[] out = new byte[4];
+        int part = 0, value = -1;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) return null;
+            } else if (c == '.' && value >= 0 && part < 3) {
+                out[part++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || value < 0) return null;
+        out[3] = (byte) value;
+        return out;
+    }
+
+    private static byte[] ipv6(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            boolean ok = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == ':' || c == '.';
+            if (!ok) return null;   // rejects zone ids and anything InetAddress might resolve
+        }
+        try {
+            return InetAddress.getByName(s).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    // ----------------------------
+    // MAC → macaddr (6 bytes)
+    // ----------------------------
+
+    /** 6 bytes for "aa:bb:cc:dd:ee:ff" (':' or '-' separated), null otherwise */
+    public static byte[] mac(String s) {
+        if (s == null || s.length() != 17) return null;
+        byte[] out = new byte[6];
+        for (int i = 0; i < 6; i++) {
+            int hi = Character.digit(s.charAt(i * 3), 16);
+            int lo = Character.digit(s.charAt(i * 3 + 1), 16);
+            if (hi < 0 || lo < 0) return null;
+            if (i < 5 && s.charAt(i * 3 + 2) != ':' && s.charAt(i * 3 + 2) != '-') return null;
+            out[i] = (byte) (hi << 4 | lo);
+        }
+        return out;
+    }
+
+    public static boolean isMac(String s) {
+        return mac(s) != null;
+    }
+
+    // ----------------------------
+    // protocol → smallint
+    // ----------------------------
+
+    /** IP protocol number; accepts "6" as well as the common names */
+    public static Short protocol(String s) {
+        if (s == null || s.isEmpty()) return null;
+        switch (s.toUpperCase()) {
+            case "ICMP": return 1;
+            case "TCP": return 6;
+            case "UDP": return 17;
+            case "ICMPV6": return 58;
+            default:
+        }
+        try {
+            int n = Integer.parseInt(s);
+            return n >= 0 && n <= 255 ? (short) n : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String protocol(Short n) {
+        return n == null ? null : Integer.toString(n);
+    }
+
+    // ----------------------------
+    // TCP flags → smallint bitmask
+    // ----------------------------
+
+    /** "PA" → 0x18; a decimal string is taken as the mask itself; unknown letters are ignored */
+    public static Short tcpFlags(String s) {
+        if (s == null || s.isEmpty()) return null;
+        if (Character.isDigit(s.charAt(0))) {
+            try {
+                return (short) (Integer.parseInt(s) & 0x1FF);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        int mask = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int bit = TCP_FLAG_LETTERS.indexOf(Character.toUpperCase(s.charAt(i)));
+            if (bit >= 0) mask |= 1 << bit;
+        }
+        return (short) mask;
+    }
+
+    /** 0x18 → "PA", letters in scapy order so agent strings round-trip unchanged */
+    public static String tcpFlags(Short mask) {
+        if (mask == null) return null;
+        StringBuilder sb = new StringBuilder(4);
+        for (int bit = 0; bit < TCP_FLAG_LETTERS.length(); bit++) {
+            if ((mask & (1 << bit)) != 0) sb.append(TCP_FLAG_LETTERS.charAt(bit));
+        }
+        return sb.toString();
+    }
+
+    // ----------------------------
+    // capture time → timestamptz
+    // ----------------------------
+
+    /** Agent ISO timestamp; without an offset it is taken as wall-clock time in {@code zone} */
+    public static OffsetDateTime captureTime(String s, ZoneId zone) {
+        if (s == null || s.isEmpty()) return null;
+        try {
+            return OffsetDateTime.parse(s);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(s).atZone(zone).toOffsetDateTime();
+            } catch (DateTimeParseException e2) {
+                return null;
+            }
+        }
+    }
+
+    public static String captureTime(Instant t, ZoneId zone) {
+        return t == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.ofInstant(t, zone));
+    }
+}
@@ -0,0 +1,185 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.dto.PacketSummary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Compact binary form of a {@link PacketSummary}, normalized the same way the typed columns are,
+ * so a decoded summary equals the one read back from the database:
+ * <pre>
+ *   int   presence bitmap (bit i = component i is not null)
+ *   long  id, receivedAt (µs, wall clock)          fixed width
+ *   ...   present components in record order:
+ *         capture time → µs since epoch, MAC → 6 bytes, IPv4 → 4 bytes (IPv6 as text),
+ *         protocol → 1 byte, tcp flags → 2 byte mask, ints → zigzag varint, text → varint length + UTF-8
+ * </pre>
+ * Works on heap and mapped buffers alike. Stateless, so one instance can be shared.
+ */
+public final class PacketSummaryCodec {
+
+    private static final int ID = 0, TIMESTAMP = 1, RECEIVED_AT = 2, AGENT = 3, HOST = 4, INTERFACE = 5,
+            SRC_MAC = 6, DST_MAC = 7, SRC_IP = 8, DST_IP = 9, SRC_PORT = 10, DST_PORT = 11, PROTOCOL = 12,
+            PACKET_TYPE = 13, TCP_FLAGS = 14, LENGTH = 15, PAYLOAD_LENGTH = 16, DNS_QUERY = 17;
+
+    private static final byte IPV4 = 4, IP_TEXT = 6;
+
+    private final ZoneId captureZone;
+
+    public PacketSummaryCodec(ZoneId captureZone) {
+        this.captureZone = captureZone;
+    }
+
+    /** 🔹 Append {@code s} at the buffer position; BufferOverflowException when it does not fit */
+    public void write(PacketSummary s, ByteBuffer out) {
+        OffsetDateTime captured = PacketColumns.captureTime(s.timestamp(), captureZone);
+        byte[] srcMac = PacketColumns.mac(s.srcMAC());
+        byte[] dstMac = PacketColumns.mac(s.dstMAC());
+        byte[] srcIp = PacketColumns.inet(s.srcIp());
+        byte[] dstIp = PacketColumns.inet(s.dstIp());
+        Short protocol = PacketColumns.protocol(s.protocol());
+        Short flags = PacketColumns.tcpFlags(s.tcpFlags());
+
+        int present = bit(ID, s.id()) | bit(TIMESTAMP, captured) | bit(RECEIVED_AT, s.receivedAt())
+                | bit(AGENT, s.agentId()) | bit(HOST, s.hostName()) | bit(INTERFACE, s.interfaceName())
+                | bit(SRC_MAC, srcMac) | bit(DST_MAC, dstMac) | bit(SRC_IP, srcIp) | bit(DST_IP, dstIp)
+                | bit(SRC_PORT, s.srcPort()) | bit(DST_PORT, s.dstPort()) | bit(PROTOCOL, protocol)
+                | bit(PACKET_TYPE, s.packetType()) | bit(TCP_FLAGS, flags) | bit(LENGTH, s.length())
+                | bit(PAYLOAD_LENGTH, s.payloadLength()) | bit(DNS_QUERY, s.dnsQueryName());
+        out.putInt(present);
+        out.putLong(s.id() == null ? 0 : s.id());
+        out.putLong(s.receivedAt() == null ? 0 : micros(s.receivedAt()));
+        if (captured != null) out.putLong(ChronoUnit.MICROS.between(Instant.EPOCH, captured.toInstant()));
+        putText(out, s.agentId());
+        putText(out, s.hostName());
+        putText(out, s.interfaceName());
+        if (srcMac != null) out.put(srcMac);
+        if (dstMac != null) out.put(dstMac);
+        putIp(out, srcIp, s.srcIp());
+        putIp(out, dstIp, s.dstIp());
+        putInt(out, s.srcPort());
+        putInt(out, s.dstPort());
+        if (protocol != null) out.put(protocol.byteValue());
+        putText(out, s.packetType());
+        if (flags != null) out.putShort(flags);
+        putInt(out, s.length());
+        putInt(out, s.payloadLength());
+        putText(out, s.dnsQueryName());
+    }
+
+    /** 🔹 Read one summary written by {@link #write} from the buffer position */
+    public PacketSummary read(ByteBuffer in) {
+        int present = in.getInt();
+        long id = in.getLong();
+        long receivedAt = in.getLong();
+        return new PacketSummary(
+                has(present, ID) ? id : null,
+                has(present, TIMESTAMP) ? PacketColumns.captureTime(Instant.EPOCH.plus(in.getLong(), ChronoUnit.MICROS), captureZone) : null,
+                has(present, RECEIVED_AT) ? LocalDateTime.ofEpochSecond(Math.floorDiv(receivedAt, 1_000_000),
+                        (int) Math.floorMod(receivedAt, 1_000_000) * 1_000, ZoneOffset.UTC) : null,
+                has(present, AGENT) ? getText(in) : null,
+                has(present, HOST) ? getText(in) : null,
+                has(present, INTERFACE) ? getText(in) : null,
+                has(present, SRC_MAC) ? getMac(in) : null,
+                has(present, DST_MAC) ? getMac(in) : null,
+                has(present, SRC_IP) ? getIp(in) : null,
+                has(present, DST_IP) ? getIp(in) : null,
+                has(present, SRC_PORT) ? getInt(in) : null,
+                has(present, DST_PORT) ? getInt(in) : null,
+                has(present, PROTOCOL) ? Integer.toString(in.get() & 0xFF) : null,
+                has(present, PACKET_TYPE) ? getText(in) : null,
+                has(present, TCP_FLAGS) ? PacketColumns.tcpFlags(in.getShort()) : null,
+                has(present, LENGTH) ? getInt(in) : null,
+                has(present, PAYLOAD_LENGTH) ? getInt(in) : null,
+                has(present, DNS_QUERY) ? getText(in) : null);
+    }
+
+    /** wall-clock time as µs, zone-free (UTC is only the arithmetic base) */
+    public static long micros(LocalDateTime t) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), t);
+    }
+
+    private static int bit(int index, Object value) {
+        return value == null ? 0 : 1 << index;
+    }
+
+    private static boolean has(int present, int index) {
+        return (present & (1 << index)) != 0;
+    }
+
+    // ----------------------------
+    // field encodings
+    // ----------------------------
+
+    private static void putIp(ByteBuffer out, byte[] address, String text) {
+        if (address == null) return;
+        if (address.length == 4) {
+            out.put(IPV4).put(address);
+        } else {
+            out.put(IP_TEXT);
+            putText(out, text);
+        }
+    }
+
+    private static String getIp(ByteBuffer in) {
+        if (in.get() != IPV4) return getText(in);
+        return (in.get() & 0xFF) + "." + (in.get() & 0xFF) + "." + (in.get() & 0xFF) + "." + (in.get() & 0xFF);
+    }
+
+    private static String getMac(ByteBuffer in) {
+        StringBuilder sb = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) sb.append(':');
+            int b = in.get() & 0xFF;
+            sb.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void putText(ByteBuffer out, String s) {
+        if (s == null) return;
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        putVarint(out, utf8.length);
+        out.put(utf8);
+    }
+
+    private static String getText(ByteBuffer in) {
+        int length = getVarint(in);
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void putInt(ByteBuffer out, Integer v) {
+        if (v != null) putVarint(out, (v << 1) ^ (v >> 31));
+    }
+
+    private static Integer getInt(ByteBuffer in) {
+        int z = getVarint(in);
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static void putVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+}
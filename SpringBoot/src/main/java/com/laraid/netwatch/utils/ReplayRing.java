@@ -0,0 +1,85 @@
+package com.laraid.netwatch.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last {@code capacity} items published on a stream, numbered in publication order, for new
+ * subscribers to catch up from before they get live items.
+ * <p>
+ * Publishers never lock: {@link #append} claims a sequence number with one atomic increment and
+ * stores the item with one volatile write, overwriting the item a full lap older. Readers take
+ * {@link #next} as their bound and {@link #range} returns every item below it still in the ring;
+ * an item claimed but not yet stored is waited for (it is a few instructions away), so a range has
+ * no holes other than items already overwritten.
+ */
+public final class ReplayRing<T> {
+
+    /** 🔹 An item with its position in the stream */
+    public record Entry<T>(long seq, T item) {
+    }
+
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);   // only a dead publisher takes that long
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Entry<T>> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public ReplayRing(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        int slots = Integer.highestOneBit(Math.max(1, this.capacity - 1)) << 1;   // power of two >= capacity
+        this.mask = slots - 1;
+        this.slots = new AtomicReferenceArray<>(slots);
+    }
+
+    /** 🔹 Store {@code item} as the newest one; returns its sequence number */
+    public long append(T item) {
+        long seq = next.getAndIncrement();
+        if (capacity > 0) slots.set((int) (seq & mask), new Entry<>(seq, item));
+        return seq;
+    }
+
+    /** 🔹 Sequence number the next {@link #append} will get, i.e. the end of what was published so far */
+    public long next() {
+        return next.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** 🔹 The items with {@code from <= seq < until} still in the ring, oldest first */
+    public List<Entry<T>> range(long from, long until) {
+        long start = Math.max(Math.max(from, 0), next.get() - capacity);
+        List<Entry<T>> out = new ArrayList<>((int) Math.max(0, until - start));
+        for (long seq = start; seq < until; seq++) {
+            Entry<T> e = await(seq);
+            if (e != null && e.seq() == seq) out.add(e);   // newer seq: overwritten while we read
+        }
+        return out;
+    }
+
+    /** the slot of {@code seq} once it holds that item or a newer one; null if its publisher never got there */
+    private Entry<T> await(long seq) {
+        int slot = (int) (seq & mask);
+        Entry<T> e = slots.get(slot);
+        long deadline = 0;
+        for (int spins = 0; e == null || e.seq() < seq; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else if (deadline == 0) {
+                deadline = System.nanoTime() + MAX_WAIT_NANOS;
+            } else if (System.nanoTime() - deadline > 0) {
+                return null;
+            } else {
+                Thread.yield();   // the publisher was descheduled between claiming and storing
+            }
+            e = slots.get(slot);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,238 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.dto.StreamFilter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Subscribers of one live stream by {@link StreamFilter}, so that routing an event costs a few
+ * hash lookups plus a check of the subscribers it can concern instead of a pass over all of them.
+ * <p>
+ * Each subscriber is filed under one of its conditions, the most selective it has: network
+ * (address or CIDR block), port, agent, packet type, protocol; subscribers without any condition
+ * see every event. An event looks up its own values in each table (source and destination for
+ * addresses and ports, once per prefix length in use for networks) and only the subscribers found
+ * there are checked against their whole filter.
+ * <p>
+ * {@link #add}/{@link #remove} rebuild an immutable snapshot under a lock; {@link #match} reads
+ * the current snapshot without locking, so subscribers coming and going never stall publishers.
+ */
+public final class StreamFilterIndex<S> {
+
+    /** 🔹 The fields of a packet that filters look at */
+    public record Event(String agentId, String srcIp, String dstIp, Integer srcPort, Integer dstPort,
+                        String protocol, String packetType) {
+
+        public static Event of(PacketSummary s) {
+            return new Event(s.agentId(), s.srcIp(), s.dstIp(), s.srcPort(), s.dstPort(), s.protocol(), s.packetType());
+        }
+    }
+
+    private final Map<S, Entry<S>> entries = new LinkedHashMap<>();   // guarded by this
+    private volatile Snapshot<S> snapshot = new Snapshot<>(List.of());
+
+    /** 🔹 Register (or re-register) {@code subscriber}; the filter must be valid */
+    public synchronized void add(S subscriber, StreamFilter filter) {
+        entries.put(subscriber, new Entry<>(subscriber, filter));
+        snapshot = new Snapshot<>(entries.values());
+    }
+
+    public synchronized boolean remove(S subscriber) {
+        if (entries.remove(subscriber) == null) return false;
+        snapshot = new Snapshot<>(entries.values());
+        return true;
+    }
+
+    /** 🔹 Drop every subscriber {@code which} accepts, e.g. all subscriptions of a closed session */
+    public synchronized int removeIf(Predicate<? super S> which) {
+        int before = entries.size();
+        entries.keySet().removeIf(which);
+        if (entries.size() == before) return 0;
+        snapshot = new Snapshot<>(entries.values());
+        return before - entries.size();
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.size == 0;
+    }
+
+    /** 🔹 Every subscriber whose filter accepts {@code e}, each once */
+    public List<S> match(Event e) {
+        return snapshot.match(new Probe(e));
+    }
+
+    /** 🔹 {@code filter} alone, compiled once, for checking events one at a time (e.g. a replay); must be valid */
+    public static Predicate<Event> matcher(StreamFilter filter) {
+        Entry<Object> entry = new Entry<>(null, filter);
+        return e -> entry.matches(new Probe(e));
+    }
+
+    /** An event with its addresses and protocol parsed once for all the filters it is checked against */
+    private static final class Probe {
+        final Event event;
+        final byte[] src;
+        final byte[] dst;
+        final Short protocol;
+
+        Probe(Event e) {
+            this.event = e;
+            this.src = PacketColumns.inet(e.srcIp());
+            this.dst = PacketColumns.inet(e.dstIp());
+            this.protocol = PacketColumns.protocol(e.protocol());
+        }
+    }
+
+    /** A compiled filter; -1 / null = no condition */
+    private static final class Entry<S> {
+        final S subscriber;
+        final String agentId;
+        final byte[] network;
+        final int prefix;
+        final int port;
+        final short protocol;
+        final String packetType;
+
+        Entry(S subscriber, StreamFilter f) {
+            this.subscriber = subscriber;
+            this.agentId = f.getAgentId();
+            if (f.getIp() != null) {
+                int slash = f.getIp().indexOf('/');
+                byte[] address = PacketColumns.inet(slash < 0 ? f.getIp() : f.getIp().substring(0, slash));
+                if (address == null) throw new IllegalArgumentException("ip: expected an IP address or CIDR block");
+                this.prefix = slash < 0 ? address.length * 8 : Integer.parseInt(f.getIp().substring(slash + 1));
+                this.network = masked(address, prefix);
+            } else {
+                this.network = null;
+                this.prefix = 0;
+            }
+            this.port = f.getPort() != null ? f.getPort() : -1;
+            Short protocol = PacketColumns.protocol(f.getProtocol());
+            this.protocol = protocol != null ? protocol : -1;
+            this.packetType = f.getPacketType() != null ? f.getPacketType().toLowerCase(Locale.ROOT) : null;
+        }
+
+        boolean matches(Probe p) {
+            Event e = p.event;
+            if (agentId != null && !agentId.equals(e.agentId())) return false;
+            if (network != null && !inNetwork(p.src) && !inNetwork(p.dst)) return false;
+            if (port >= 0 && !Objects.equals(port, e.srcPort()) && !Objects.equals(port, e.dstPort())) return false;
+            if (protocol >= 0 && (p.protocol == null || p.protocol != protocol)) return false;
+            return packetType == null || packetType.equalsIgnoreCase(e.packetType());
+        }
+
+        boolean inNetwork(byte[] address) {
+            if (address == null || address.length != network.length) return false;
+            int full = prefix / 8;
+            for (int i = 0; i < full; i++) {
+                if (address[i] != network[i]) return false;
+            }
+            int rest = prefix % 8;
+            return rest == 0 || ((address[full] ^ network[full]) & 0xFF & (0xFF00 >> rest)) == 0;
+        }
+    }
+
+    private static final class Snapshot<S> {
+        final int size;
+        final List<Entry<S>> everything = new ArrayList<>();
+        final Map<ByteBuffer, List<Entry<S>>> byNetwork = new HashMap<>();
+        final int[] prefixes4;
+        final int[] prefixes6;
+        final Map<Integer, List<Entry<S>>> byPort = new HashMap<>();
+        final Map<String, List<Entry<S>>> byAgent = new HashMap<>();
+        final Map<String, List<Entry<S>>> byPacketType = new HashMap<>();
+        final Map<Short, List<Entry<S>>> byProtocol = new HashMap<>();
+
+        Snapshot(Collection<Entry<S>> entries) {
+            this.size = entries.size();
+            TreeSet<Integer> v4 = new TreeSet<>(), v6 = new TreeSet<>();
+            for (Entry<S> e : entries) {
+                if (e.network != null) {
+                    byNetwork.computeIfAbsent(networkKey(e.network, e.prefix), k -> new ArrayList<>()).add(e);
+                    (e.network.length == 4 ? v4 : v6).add(e.prefix);
+                } else if (e.port >= 0) {
+                    byPort.computeIfAbsent(e.port, k -> new ArrayList<>()).add(e);
+                } else if (e.agentId != null) {
+                    byAgent.computeIfAbsent(e.agentId, k -> new ArrayList<>()).add(e);
+                } else if (e.packetType != null) {
+                    byPacketType.computeIfAbsent(e.packetType, k -> new ArrayList<>()).add(e);
+                } else if (e.protocol >= 0) {
+                    byProtocol.computeIfAbsent(e.protocol, k -> new ArrayList<>()).add(e);
+                } else {
+                    everything.add(e);
+                }
+            }
+            this.prefixes4 = v4.stream().mapToInt(Integer::intValue).toArray();
+            this.prefixes6 = v6.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        List<S> match(Probe p) {
+            if (size == 0) return List.of();
+            List<S> out = new ArrayList<>();
+            Event e = p.event;
+            collect(everything, p, out);
+            if (!byNetwork.isEmpty()) {
+                networks(p.src, p, null, out);
+                networks(p.dst, p, p.src, out);
+            }
+            if (!byPort.isEmpty()) {
+                if (e.srcPort() != null) collect(byPort.get(e.srcPort()), p, out);
+                if (e.dstPort() != null && !e.dstPort().equals(e.srcPort())) collect(byPort.get(e.dstPort()), p, out);
+            }
+            if (e.agentId() != null) collect(byAgent.get(e.agentId()), p, out);
+            if (e.packetType() != null && !byPacketType.isEmpty()) {
+                collect(byPacketType.get(e.packetType().toLowerCase(Locale.ROOT)), p, out);
+            }
+            if (p.protocol != null) collect(byProtocol.get(p.protocol), p, out);
+            return out;
+        }
+
+        /** subscribers filed under a network containing {@code address}, minus those already found via {@code seen} */
+        private void networks(byte[] address, Probe p, byte[] seen, List<S> out) {
+            if (address == null) return;
+            for (int prefix : address.length == 4 ? prefixes4 : prefixes6) {
+                List<Entry<S>> found = byNetwork.get(networkKey(masked(address, prefix), prefix));
+                if (found == null) continue;
+                for (Entry<S> e : found) {
+                    if ((seen == null || !e.inNetwork(seen)) && e.matches(p)) out.add(e.subscriber);
+                }
+            }
+        }
+
+        private static <S> void collect(List<Entry<S>> found, Probe p, List<S> out) {
+            if (found == null) return;
+            for (Entry<S> e : found) {
+                if (e.matches(p)) out.add(e.subscriber);
+            }
+        }
+    }
+
+    private static byte[] masked(byte[] address, int prefix) {
+        byte[] out = new byte[address.length];
+        int full = prefix / 8;
+        System.arraycopy(address, 0, out, 0, full);
+        if (prefix % 8 != 0) out[full] = (byte) (address[full] & (0xFF00 >> (prefix % 8)));
+        return out;
+    }
+
+    private static ByteBuffer networkKey(byte[] network, int prefix) {
+        byte[] key = new byte[network.length + 1];
+        key[0] = (byte) prefix;
+        System.arraycopy(network, 0, key, 1, network.length);
+        return ByteBuffer.wrap(key);
+    }
+}
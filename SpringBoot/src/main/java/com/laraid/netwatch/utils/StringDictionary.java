@@ -0,0 +1,58 @@
+package com.laraid.netwatch.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free interning table for low-cardinality strings (agent ids, MACs, flags...).
+ * <p>
+ * Direct-mapped: each string hashes to one slot, a hit returns the canonical instance already
+ * stored there and a miss overwrites the slot. Memory is fixed at {@code capacity} references,
+ * never grows with input, and a collision only costs a lost hit, never a wrong value.
+ */
+public class StringDictionary {
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** @param capacity slot count, rounded up to a power of two */
+    public StringDictionary(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public String intern(String s) {
+        if (s == null) return null;
+        int h = s.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        String cached = slots.get(i);
+        if (cached != null && (cached == s || cached.equals(s))) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        slots.set(i, s);
+        return s;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,16 @@
+package com.laraid.netwatch.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown while reading a compressed request body that turns out to be corrupt or truncated part
+ * way through. The client's fault, so a 400 rather than the 500 a bare IOException would give.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class MalformedRequestBodyException extends RuntimeException {
+
+    public MalformedRequestBodyException(String encoding, Throwable cause) {
+        super("Invalid " + encoding + " body: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.laraid.netwatch.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown while reading a compressed request body once its inflated size passes the configured cap.
+ * Unchecked so it is not swallowed as a JSON parse error on the way out of Jackson.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class RequestBodyTooLargeException extends RuntimeException {
+
+    public RequestBodyTooLargeException(long limit) {
+        super("Decompressed request body exceeds " + limit + " bytes");
+    }
+}
@@ -0,0 +1,224 @@
+package com.laraid.netwatch.web;
+
+import com.github.luben.zstd.ZstdIOException;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.laraid.netwatch.config.IngestProperties;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Transparently inflates {@code Content-Encoding: gzip|zstd} bodies on the packet ingestion endpoints.
+ * <p>
+ * The body is decompressed as it is read, so the streaming batch decoder pulls straight from
+ * the inflater and the full inflated body is never buffered. Reading past
+ * {@code netwatch.ingest.max-decompressed-bytes} fails the request with 413, a body that is
+ * corrupt or truncated part way through with 400. Reads are blocking only: the inflater cannot
+ * tell whether the next inflated byte is available without blocking, so async is refused.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> PATHS = Set.of("/api/v1/packets", "/api/v1/packets/batch");
+
+    private final IngestProperties props;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase();
+        InputStream inflated;
+        try {
+            switch (encoding) {
+                case "identity" -> {
+                    chain.doFilter(request, response);
+                    return;
+                }
+                case "gzip", "x-gzip" -> inflated = new GZIPInputStream(request.getInputStream(), 8192);
+                case "zstd" -> inflated = new ZstdInputStreamNoFinalizer(request.getInputStream());
+                default -> {
+                    response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                            "Unsupported Content-Encoding: " + encoding);
+                    return;
+                }
+            }
+        } catch (ZipException | EOFException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid gzip body");
+            return;
+        }
+        try (InputStream body = new LimitedInputStream(inflated, props.getMaxDecompressedBytes())) {
+            chain.doFilter(new DecompressedRequest(request, body, encoding), response);
+        }
+    }
+
+    /** 🔹 Request view with the inflated body and without the encoding/length headers */
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+
+        DecompressedRequest(HttpServletRequest request, InputStream body, String encoding) {
+            super(request);
+            this.body = new BodyStream(body, encoding);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return false;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            throw new IllegalStateException("Compressed request bodies are read blocking; async is not supported");
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            return startAsync();
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(h -> !isHidden(h))
+                    .toList());
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class BodyStream extends ServletInputStream {
+
+        private final InputStream in;
+        private final String encoding;
+        private boolean finished;
+
+        BodyStream(InputStream in, String encoding) {
+            this.in = in;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = in.read();
+                finished = b < 0;
+                return b;
+            } catch (ZipException | ZstdIOException | EOFException e) {
+                throw new MalformedRequestBodyException(encoding, e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            try {
+                int n = in.read(buf, off, len);
+                finished = n < 0;
+                return n;
+            } catch (ZipException | ZstdIOException | EOFException e) {
+                throw new MalformedRequestBodyException(encoding, e);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // never legal here: startAsync is refused (see DecompressedRequest)
+        @Override
+        public void setReadListener(ReadListener listener) {
+            throw new IllegalStateException("Compressed request bodies are read blocking; async is not supported");
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) throw new RequestBodyTooLargeException(limit);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.laraid.netwatch.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Counts WebSocket sessions by whether permessage-deflate was negotiated. The container (Tomcat)
+ * accepts the extension whenever the client offers it; this shows how many clients actually do.
+ */
+@Component
+public class DeflateSessionMetrics implements WebSocketHandlerDecoratorFactory {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final Counter deflated;
+    private final Counter plain;
+
+    public DeflateSessionMetrics(MeterRegistry registry) {
+        this.deflated = Counter.builder("netwatch.stream.ws.sessions").tag("deflate", "true")
+                .description("WebSocket sessions opened, by negotiated compression").register(registry);
+        this.plain = Counter.builder("netwatch.stream.ws.sessions").tag("deflate", "false")
+                .description("WebSocket sessions opened, by negotiated compression").register(registry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                boolean deflate = session.getExtensions().stream().anyMatch(e -> PERMESSAGE_DEFLATE.equals(e.getName()));
+                (deflate ? deflated : plain).increment();
+                super.afterConnectionEstablished(session);
+            }
+        };
+    }
+}
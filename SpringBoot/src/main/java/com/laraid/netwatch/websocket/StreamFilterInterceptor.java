@@ -0,0 +1,42 @@
+package com.laraid.netwatch.websocket;
+
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.service.LiveStreamService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects a SUBSCRIBE to the filtered raw-packet stream whose filter headers cannot match
+ * anything, or to either raw-packet stream with an unusable {@code replay} count, so the client
+ * gets an ERROR frame instead of a silent, empty subscription.
+ */
+@Component
+public class StreamFilterInterceptor implements ChannelInterceptor {
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+
+        if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand())) return message;
+        String destination = accessor.getDestination();
+        if (LiveStreamService.RAW_PACKETS_DESTINATION.equals(destination)) {
+            try {
+                StreamFilter.of(accessor::getFirstNativeHeader).validate();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid stream filter: " + e.getMessage());
+            }
+        }
+        if (LiveStreamService.RAW_PACKETS_DESTINATION.equals(destination)
+                || LiveStreamService.RAW_PACKETS_TOPIC.equals(destination)) {
+            String replay = accessor.getFirstNativeHeader(LiveStreamService.REPLAY);
+            if (replay != null && !replay.isBlank() && !replay.trim().matches("\\d{1,9}")) {
+                throw new IllegalArgumentException("Invalid replay: expected a count of packets");
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,89 @@
+package com.laraid.netwatch.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read-only transactions (JPA and plain JDBC) run on the read pool, everything else on the write
+ * pool, and a transaction that issues no statement borrows no connection at all.
+ * Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataSourceConfig.class, ReadDataSourceProperties.class, PersistenceProperties.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class DataSourceRoutingTest {
+
+    private static final String POOL_OF_SESSION = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void readOnlyTransactionsUseTheReadPool() {
+        assertEquals(DataSourceConfig.WRITE_POOL, tx(false).execute(s -> jdbcTemplate.queryForObject(POOL_OF_SESSION, String.class)));
+        assertEquals(DataSourceConfig.READ_POOL, tx(true).execute(s -> jdbcTemplate.queryForObject(POOL_OF_SESSION, String.class)));
+        assertEquals(DataSourceConfig.READ_POOL, tx(true).execute(s ->
+                entityManager.createNativeQuery(POOL_OF_SESSION).getSingleResult()));
+        assertEquals(DataSourceConfig.WRITE_POOL, jdbcTemplate.queryForObject(POOL_OF_SESSION, String.class));
+    }
+
+    @Test
+    void readPoolRefusesWrites() {
+        assertThrows(RuntimeException.class, () -> tx(true).executeWithoutResult(s ->
+                jdbcTemplate.execute("CREATE TEMP TABLE read_pool_probe (x int)")));
+    }
+
+    @Test
+    void aTransactionWithoutStatementsBorrowsNothing() {
+        tx(true).execute(s -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));   // pools started, metrics registered
+        long reads = acquired(DataSourceConfig.READ_POOL);
+        long writes = acquired(DataSourceConfig.WRITE_POOL);
+
+        tx(true).executeWithoutResult(s -> { });
+        tx(false).executeWithoutResult(s -> { });
+        assertEquals(reads, acquired(DataSourceConfig.READ_POOL));
+        assertEquals(writes, acquired(DataSourceConfig.WRITE_POOL));
+
+        tx(true).execute(s -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+        assertEquals(reads + 1, acquired(DataSourceConfig.READ_POOL));
+        assertEquals(writes, acquired(DataSourceConfig.WRITE_POOL));
+        assertTrue(registry.find("hikaricp.connections.max").tag("pool", DataSourceConfig.READ_POOL).gauge() != null);
+    }
+
+    private TransactionTemplate tx(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private long acquired(String pool) {
+        return registry.get("hikaricp.connections.acquire").tag("pool", pool).timer().count();
+    }
+}
@@ -0,0 +1,33 @@
+package com.laraid.netwatch.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacketCursorTest {
+
+    @Test
+    void roundTripsAtMicrosecondPrecision() {
+        PacketCursor cursor = new PacketCursor(LocalDateTime.of(2026, 10, 18, 9, 30, 15, 123_456_000), 987_654_321L);
+        String token = cursor.encode();
+
+        assertEquals(cursor, PacketCursor.decode(token));
+        assertFalse(token.contains("=") || token.contains("+") || token.contains("/"), "must be URL safe: " + token);
+    }
+
+    @Test
+    void roundTripsBeforeTheEpoch() {
+        PacketCursor cursor = new PacketCursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), 1);
+        assertEquals(cursor, PacketCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void rejectsForeignTokens() {
+        assertThrows(IllegalArgumentException.class, () -> PacketCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PacketCursor.decode("AAAA"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.laraid.netwatch.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Query parameters bound the way {@code @ModelAttribute} binds them on {@code /api/v1/packets/search} */
+class PacketSearchCriteriaTest {
+
+    @Test
+    void bindsWithinInSimpleDurationStyle() {
+        PacketSearchCriteria criteria = new PacketSearchCriteria();
+        BindingResult result = bind(criteria, Map.of("within", "15m", "from", "2026-10-18T09:00:00"));
+
+        assertFalse(result.hasErrors(), () -> result.getAllErrors().toString());
+        assertEquals(Duration.ofMinutes(15), criteria.getWithin());
+        assertEquals(LocalDateTime.of(2026, 10, 18, 9, 45), criteria.effectiveFrom(LocalDateTime.of(2026, 10, 18, 10, 0)));
+    }
+
+    @Test
+    void rejectsAMalformedWithin() {
+        BindingResult result = bind(new PacketSearchCriteria(), Map.of("within", "15 minutes"));
+
+        assertTrue(result.hasFieldErrors("within"));   // a BindException, answered 400
+    }
+
+    private static BindingResult bind(PacketSearchCriteria criteria, Map<String, String> params) {
+        WebDataBinder binder = new WebDataBinder(criteria);
+        binder.setConversionService(new DefaultFormattingConversionService());
+        binder.bind(new MutablePropertyValues(params));
+        return binder.getBindingResult();
+    }
+}
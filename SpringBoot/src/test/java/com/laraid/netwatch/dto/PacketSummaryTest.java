@@ -0,0 +1,61 @@
+package com.laraid.netwatch.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.laraid.netwatch.entity.Packet;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketSummaryTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void keepsTableFieldsUnderTheEntityNames() throws Exception {
+        Packet packet = packet();
+        JsonNode full = mapper.valueToTree(packet);
+        JsonNode summary = mapper.valueToTree(PacketSummary.of(packet));
+
+        summary.fieldNames().forEachRemaining(name -> assertEquals(full.get(name), summary.get(name), name));
+        assertFalse(summary.has("payload"));
+        assertFalse(summary.has("tlsInfo"));
+    }
+
+    @Test
+    void isAFractionOfTheEntityOnTheWire() throws Exception {
+        Packet packet = packet();
+        int full = mapper.writeValueAsBytes(packet).length;
+        int summary = mapper.writeValueAsBytes(PacketSummary.of(packet)).length;
+
+        assertTrue(summary * 3 < full, "JSON bytes/row: entity=" + full + " summary=" + summary);
+    }
+
+    private static Packet packet() {
+        Packet p = new Packet();
+        p.setId(42L);
+        p.setTimestamp("2026-10-18T10:00:00.123456");
+        p.setReceivedAt(LocalDateTime.of(2026, 10, 18, 10, 0, 1));
+        p.setAgentId("agent-laptop-01");
+        p.setHostName("laptop-01");
+        p.setInterfaceName("Wi-Fi");
+        p.setSrcMAC("3c:52:82:1a:0b:10");
+        p.setDstMAC("f4:8e:38:aa:10:01");
+        p.setSrcIp("10.0.0.5");
+        p.setDstIp("142.250.183.4");
+        p.setSrcPort(51_234);
+        p.setDstPort(443);
+        p.setProtocol("6");
+        p.setPacketType("TCP");
+        p.setTcpFlags("PA");
+        p.setLength(1_400);
+        p.setPayload("17 03 03 05 6b ".repeat(80));   // hex dump as the agents send it
+        p.setTlsInfo("{\"version\":\"TLS 1.3\",\"sni\":\"www.google.com\",\"cipher\":\"TLS_AES_128_GCM_SHA256\"}");
+        return p;
+    }
+}
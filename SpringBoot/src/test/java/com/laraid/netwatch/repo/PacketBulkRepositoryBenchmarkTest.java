@@ -0,0 +1,100 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Rows/sec of saveAll vs JDBC batch vs binary COPY against the configured PostgreSQL.
+ * Needs a running database, so it only runs with {@code -Dnetwatch.bench=true}.
+ * Every test rolls back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PersistenceProperties.class)
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketBulkRepositoryBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private PersistenceProperties props;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void saveAll() {
+        List<Packet> packets = packets();
+        long start = System.nanoTime();
+        packetRepository.saveAll(packets);
+        entityManager.flush();
+        report("saveAll", start);
+    }
+
+    @Test
+    void jdbcBatch() {
+        props.setMode(PersistenceProperties.Mode.JDBC);
+        List<Packet> packets = packets();
+        long start = System.nanoTime();
+        packetRepository.bulkInsert(packets);
+        report("jdbc batch", start);
+        assertNotNull(packets.get(ROWS - 1).getId());
+    }
+
+    @Test
+    void copyBinary() {
+        props.setMode(PersistenceProperties.Mode.COPY);
+        List<Packet> packets = packets();
+        long start = System.nanoTime();
+        packetRepository.bulkInsert(packets);
+        report("copy binary", start);
+
+        Packet stored = packetRepository.findById(packets.get(0).getId()).orElseThrow();
+        assertEquals(packets.get(0).getSrcIp(), stored.getSrcIp());
+        assertEquals(packets.get(0).getReceivedAt(), stored.getReceivedAt());
+    }
+
+    private static void report(String name, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%-12s %,d rows in %.2fs = %,.0f rows/sec%n", name, ROWS, seconds, ROWS / seconds);
+    }
+
+    private static List<Packet> packets() {
+        List<Packet> packets = new ArrayList<>(ROWS);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < ROWS; i++) {
+            Packet p = new Packet();
+            p.setTimestamp(now.toString());
+            p.setReceivedAt(now);
+            p.setAgentId("bench-agent");
+            p.setHostName("bench-host");
+            p.setSrcIp("10.0.0." + (i % 250));
+            p.setDstIp("192.168.1." + (i % 50));
+            p.setProtocol("6");
+            p.setSrcPort(40000 + (i % 1000));
+            p.setDstPort(443);
+            p.setTcpFlags("PA");
+            p.setLength(60 + (i % 1400));
+            p.setPayload("GET / HTTP/1.1");
+            packets.add(p);
+        }
+        return packets;
+    }
+}
@@ -0,0 +1,81 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Failure handling of the COPY writer against the configured PostgreSQL. Commits for real (the
+ * failing insert rolls itself back) and cleans up. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PacketBulkRepositoryTest {
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private PersistenceProperties props;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aRowFailingMidCopyCancelsItAndLeavesTheConnectionUsable() {
+        String agent = "copy-" + UUID.randomUUID();
+        PersistenceProperties.Mode before = props.getMode();
+        props.setMode(PersistenceProperties.Mode.COPY);
+        Packet broken = new Packet() {
+            @Override
+            public String getSrcIp() {
+                throw new IllegalStateException("broken packet");
+            }
+        };
+        broken.setAgentId(agent);
+        broken.setReceivedAt(LocalDateTime.now());
+        try {
+            assertThrows(RuntimeException.class, () -> packetRepository.bulkInsert(List.of(packet(agent), broken)));
+
+            assertEquals(0, rows(agent));
+            packetRepository.bulkInsert(List.of(packet(agent), packet(agent)));
+            assertEquals(2, rows(agent));
+        } finally {
+            props.setMode(before);
+            jdbcTemplate.update("DELETE FROM packets WHERE agent_id = ?", agent);
+        }
+    }
+
+    private long rows(String agent) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM packets WHERE agent_id = ?", Long.class, agent);
+    }
+
+    private static Packet packet(String agent) {
+        Packet p = new Packet();
+        p.setSrcIp("10.0.0.7");
+        p.setDstIp("10.0.0.1");
+        p.setProtocol("6");
+        p.setAgentId(agent);
+        p.setReceivedAt(LocalDateTime.now());
+        return p;
+    }
+}
@@ -0,0 +1,128 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes per row and index size of the old all-text layout vs the typed columns, on the same
+ * synthetic packets, plus a JPA and COPY round trip through the converters.
+ * Runs only with {@code -Dnetwatch.bench=true}; everything rolls back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class, PacketSchemaMigrator.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketColumnSizeBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+
+    // what ddl-auto produced before: varchar(255) everywhere
+    private static final String TEXT_LAYOUT = """
+            CREATE TEMP TABLE bench_text (id bigint, "timestamp" varchar(255), srcmac varchar(255), dstmac varchar(255),
+              src_ip varchar(255), dst_ip varchar(255), protocol varchar(255), ttl int, src_port int, dst_port int,
+              seq bigint, tcp_flags varchar(255), length int, agent_id varchar(255), received_at timestamp(6))""";
+    private static final String TYPED_LAYOUT = """
+            CREATE TEMP TABLE bench_typed (id bigint, captured_at timestamptz, srcmac macaddr, dstmac macaddr,
+              src_ip inet, dst_ip inet, protocol smallint, ttl int, src_port int, dst_port int,
+              seq bigint, tcp_flags smallint, length int, agent_id varchar(255), received_at timestamp(6))""";
+    private static final String SAMPLE = """
+            SELECT g, '2026-10-18T10:00:00.' || lpad((g % 1000000)::text, 6, '0'),
+              '3c:52:82:1a:0b:' || lpad(to_hex(g % 8), 2, '0'), 'f4:8e:38:aa:10:01',
+              '10.0.' || (g % 4) || '.' || (g % 250), '142.250.183.' || (g % 16), '6', 64, 40000 + g % 2000, 443,
+              1000000 + g * 1460, CASE WHEN g % 3 = 0 THEN 'A' ELSE 'PA' END, 60 + g % 1400, 'agent-laptop-01',
+              now()::timestamp FROM generate_series(1, """ + ROWS + ") g";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private PersistenceProperties props;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void typedRowsAndIndexesAreSmaller() {
+        jdbcTemplate.execute(TEXT_LAYOUT);
+        jdbcTemplate.execute(TYPED_LAYOUT);
+        jdbcTemplate.execute("INSERT INTO bench_text " + SAMPLE);
+        jdbcTemplate.execute("INSERT INTO bench_typed SELECT s.g, s.ts::timestamptz, s.sm::macaddr, s.dm::macaddr, "
+                + "s.si::inet, s.di::inet, s.p::smallint, s.ttl, s.sp, s.dp, s.seq, "
+                + "CASE s.f WHEN 'A' THEN 16 ELSE 24 END, s.len, s.a, s.r "
+                + "FROM (" + SAMPLE + ") s(g, ts, sm, dm, si, di, p, ttl, sp, dp, seq, f, len, a, r)");
+        for (String t : List.of("bench_text", "bench_typed")) {
+            String time = t.equals("bench_text") ? "\"timestamp\"" : "captured_at";
+            jdbcTemplate.execute("CREATE INDEX " + t + "_ip ON " + t + " (src_ip, dst_ip)");
+            jdbcTemplate.execute("CREATE INDEX " + t + "_time ON " + t + " (" + time + ")");
+        }
+        long[] text = sizes("bench_text");
+        long[] typed = sizes("bench_typed");
+        System.out.printf("bytes/row  text=%d typed=%d | ip index text=%d KiB typed=%d KiB | time index text=%d KiB typed=%d KiB%n",
+                text[0] / ROWS, typed[0] / ROWS, text[1] / 1024, typed[1] / 1024, text[2] / 1024, typed[2] / 1024);
+        assertTrue(typed[0] < text[0]);
+        assertTrue(typed[1] < text[1]);
+        assertTrue(typed[2] < text[2]);
+    }
+
+    @Test
+    void typedColumnsRoundTripThroughJpaAndCopy() {
+        Packet jpa = packetRepository.saveAndFlush(packet("10.0.0.9"));
+        props.setMode(PersistenceProperties.Mode.COPY);
+        List<Packet> copied = new ArrayList<>(List.of(packet("fe80::2"), packet("10.0.0.10")));
+        packetRepository.bulkInsert(copied);
+        props.setMode(PersistenceProperties.Mode.JDBC);
+        List<Packet> batched = new ArrayList<>(List.of(packet("10.0.0.11")));
+        packetRepository.bulkInsert(batched);
+        entityManager.clear();
+
+        for (Packet expected : List.of(jpa, copied.get(0), copied.get(1), batched.get(0))) {
+            Packet stored = packetRepository.findById(expected.getId()).orElseThrow();
+            assertEquals(expected.getSrcIp(), stored.getSrcIp());
+            assertEquals("3c:52:82:1a:0b:10", stored.getSrcMAC());
+            assertEquals("6", stored.getProtocol());
+            assertEquals("PA", stored.getTcpFlags());
+            assertEquals("2026-10-18T10:00:00.123456", stored.getTimestamp());
+        }
+        assertEquals("inet", jdbcTemplate.queryForObject(
+                "SELECT pg_typeof(src_ip)::text FROM packets WHERE id = ?", String.class, jpa.getId()));
+    }
+
+    private long[] sizes(String table) {
+        return new long[]{
+                jdbcTemplate.queryForObject("SELECT pg_table_size('" + table + "')", Long.class),
+                jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_ip')", Long.class),
+                jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_time')", Long.class)};
+    }
+
+    private static Packet packet(String srcIp) {
+        Packet p = new Packet();
+        p.setTimestamp("2026-10-18T10:00:00.123456");
+        p.setSrcMAC("3c:52:82:1a:0b:10");
+        p.setSrcIp(srcIp);
+        p.setDstIp("142.250.183.4");
+        p.setProtocol("6");
+        p.setTcpFlags("PA");
+        p.setAgentId("agent-bench");
+        p.setReceivedAt(LocalDateTime.now());
+        return p;
+    }
+}
@@ -0,0 +1,130 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.HotTierProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.dto.PacketSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketHotTierTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void servesNewestFirstAndOnlyWhenItHoldsEnough() {
+        PacketHotTier tier = tier(1 << 20, 1 << 30);
+        tier.append(packets(1, 10, LocalDateTime.now()));
+
+        List<PacketSummary> latest = tier.latest(4).orElseThrow();
+        assertEquals(List.of(10L, 9L, 8L, 7L), latest.stream().map(PacketSummary::id).toList());
+        assertEquals("10.0.0.10", latest.get(0).srcIp());
+        assertTrue(tier.latest(11).isEmpty(), "short tier falls back to the database");
+    }
+
+    @Test
+    void rollsOverAndEvictsOldestSegmentsBeyondTheBudget() {
+        PacketHotTier tier = tier(4096, 3 * 4096);
+        tier.append(packets(1, 1_000, LocalDateTime.now()));
+
+        assertEquals(3, tier.segments().size());
+        assertEquals(List.of(1_000L, 999L), tier.latest(2).orElseThrow().stream().map(PacketSummary::id).toList());
+        int held = tier.segments().stream().mapToInt(PacketHotTier.Segment::count).sum();
+        assertTrue(tier.latest(held).isPresent());
+        assertTrue(tier.latest(held + 1).isEmpty());
+    }
+
+    @Test
+    void packetsOutsideTheWindowAreNotServed() {
+        PacketHotTier tier = tier(1 << 20, 1 << 30);
+        tier.append(packets(1, 5, LocalDateTime.now().minusHours(1)));
+        tier.append(packets(6, 8, LocalDateTime.now()));
+
+        assertEquals(3, tier.latest(3).orElseThrow().size());
+        assertTrue(tier.latest(4).isEmpty());
+    }
+
+    @Test
+    void survivesRestartAndDropsATornTail() throws IOException {
+        PacketHotTier first = tier(8192, 1 << 30);
+        first.append(packets(1, 300, LocalDateTime.now()));
+        first.close();
+        PacketHotTier.Segment last = first.segments().get(first.segments().size() - 1);
+        int records = last.count();
+
+        // length of a record that was never completed: garbage after the last good record
+        try (RandomAccessFile f = new RandomAccessFile(last.file.toFile(), "rw")) {
+            long end = PacketHotTier.SEGMENT_HEADER;
+            for (int i = 0; i < records; i++) {
+                f.seek(end);
+                end += 8 + f.readInt();
+            }
+            f.seek(end);
+            f.writeInt(50);
+            f.writeInt(12345);
+        }
+
+        PacketHotTier reopened = tier(8192, 1 << 30);
+        assertEquals(first.segments().size(), reopened.segments().size());
+        assertEquals(first.latest(250), reopened.latest(250));
+
+        reopened.append(packets(301, 301, LocalDateTime.now()));
+        assertEquals(records + 1, reopened.segments().get(reopened.segments().size() - 1).count());
+        assertEquals(301L, reopened.latest(1).orElseThrow().get(0).id());
+    }
+
+    @Test
+    void deletesSegmentsOfAnotherFormatAndIgnoresStrayFiles() throws IOException {
+        PacketHotTier first = tier(8192, 1 << 30);
+        first.append(packets(1, 300, LocalDateTime.now()));
+        first.close();
+        int segments = first.segments().size();
+        Path old = first.segments().get(0).file;
+        try (RandomAccessFile f = new RandomAccessFile(old.toFile(), "rw")) {
+            f.seek(4);
+            f.writeInt(PacketHotTier.FORMAT_VERSION + 1);
+        }
+        Path stray = Files.writeString(dir.resolve("notes" + PacketHotTier.SUFFIX), "not a segment");
+        Path empty = Files.createFile(dir.resolve(String.format("%020d%s", 99, PacketHotTier.SUFFIX)));
+
+        PacketHotTier reopened = tier(8192, 1 << 30);
+
+        assertEquals(segments - 1, reopened.segments().size());
+        assertFalse(Files.exists(old));
+        assertFalse(Files.exists(empty));
+        assertTrue(Files.exists(stray), "files the tier did not write are left alone");
+        assertEquals(300L, reopened.latest(1).orElseThrow().get(0).id());
+    }
+
+    private PacketHotTier tier(long segmentBytes, long maxBytes) {
+        HotTierProperties props = new HotTierProperties();
+        props.setDirectory(dir.toString());
+        props.setSegmentBytes(segmentBytes);
+        props.setMaxBytes(maxBytes);
+        props.setWindow(Duration.ofMinutes(15));
+        return new PacketHotTier(props, new PersistenceProperties(), new SimpleMeterRegistry());
+    }
+
+    private static List<PacketSummary> packets(long from, long to, LocalDateTime receivedAt) {
+        List<PacketSummary> list = new ArrayList<>();
+        LongStream.rangeClosed(from, to).forEach(id -> list.add(new PacketSummary(id, "2026-10-18T10:00:00",
+                receivedAt.plusNanos(id * 1_000), "agent-1", "host-1", "eth0", "3c:52:82:1a:0b:10", null,
+                "10.0.0." + (id % 256), "142.250.183.4", 51_000, 443, "6", "TCP", "PA", 60, null, null)));
+        return list;
+    }
+}
@@ -0,0 +1,276 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.KafkaTopicProperties;
+import com.laraid.netwatch.config.OutboxProperties;
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.config.PublishProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.service.PacketOutboxRelay;
+import com.laraid.netwatch.service.PacketPublisher;
+import com.laraid.netwatch.service.PacketWriter;
+import com.laraid.netwatch.utils.PacketBinarySerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox rows and the relay against the configured PostgreSQL, with a mock producer standing in
+ * for the broker. Tests marked {@link Propagation#NOT_SUPPORTED} commit for real (as ingestion and
+ * the relay do) and clean up after themselves; the rest roll back. Runs only with
+ * {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class,
+        PacketSchemaMigrator.class, PacketOutbox.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketOutboxTest {
+
+    @Autowired
+    private PacketOutbox outbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private PersistenceProperties persistenceProperties;
+
+    // KafkaTemplate closes its producer after each send; MockProducer would not survive that
+    private final MockProducer<String, Packet> producer =
+            new MockProducer<>(true, new StringSerializer(), new PacketBinarySerializer()) {
+                @Override
+                public void close(Duration timeout) {
+                }
+            };
+    private final OutboxProperties props = new OutboxProperties();
+    private final String topic = "packet-events-" + UUID.randomUUID();
+    private long mark;
+
+    @BeforeEach
+    void emptyOutbox() {
+        if (TestTransaction.isActive()) {
+            jdbcTemplate.update("DELETE FROM " + PacketOutbox.TABLE);   // rolled back with the test
+        }
+        mark = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM " + PacketOutbox.TABLE, Long.class);
+    }
+
+    @Test
+    void relaysChunksInIdOrderAndRecordsProgress() {
+        List<Packet> packets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            packets.add(packet(100 + i, "10.0.0." + i));
+        }
+        outbox.append(packets);
+        props.setChunkSize(3);
+        PacketOutboxRelay relay = relay();
+
+        assertEquals(3, relay.relayChunk());
+        assertEquals(2, relay.relayChunk());
+        assertEquals(0, relay.relayChunk());
+
+        assertEquals(List.of(100L, 101L, 102L, 103L, 104L), producer.history().stream().map(r -> r.value().getId()).toList());
+        assertEquals("10.0.0.3", producer.history().get(3).key());
+        assertEquals(packets.get(4), producer.history().get(4).value());
+        assertEquals(0, outbox.backlog());
+        assertEquals(5, relayed());
+    }
+
+    @Test
+    void keepsRowsWhenPublishingFails() {
+        outbox.append(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2")));
+        producer.sendException = new RecordTooLargeException("too big");
+
+        assertThrows(IllegalStateException.class, relay()::relayChunk);
+        assertEquals(2, outbox.backlog());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void failedPublishLeavesCommittedRowsAndProgress() {
+        try {
+            outbox.append(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2")));
+            producer.sendException = new RecordTooLargeException("too big");
+
+            assertThrows(IllegalStateException.class, relay()::relayChunk);
+
+            assertEquals(2, outboxRows());
+            assertEquals(0, relayed());
+        } finally {
+            cleanUp(null);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void leaseKeepsASecondRelayOut() {
+        try {
+            assertTrue(outbox.lock(topic, "a", 60_000).isPresent());
+            assertTrue(outbox.lock(topic, "a", 60_000).isPresent());   // renewed by its owner
+            assertTrue(outbox.lock(topic, "b", 60_000).isEmpty());
+
+            outbox.append(List.of(packet(1, "10.0.0.1")));
+            assertEquals(0, relay().relayChunk());
+            assertTrue(producer.history().isEmpty());
+            assertEquals(1, outboxRows());
+
+            outbox.unlock(topic, "a");
+            assertTrue(outbox.lock(topic, "b", -1).isPresent());   // already expired
+            assertTrue(outbox.lock(topic, "a", 60_000).isPresent());
+        } finally {
+            cleanUp(null);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PersistenceProperties.Mode.class, names = {"JPA", "JDBC", "COPY"})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void packetsAndOutboxRowsCommitTogether(PersistenceProperties.Mode mode) {
+        String agent = "outbox-" + UUID.randomUUID();
+        PersistenceProperties.Mode before = persistenceProperties.getMode();
+        persistenceProperties.setMode(mode);
+        try {
+            writer(outbox).write(List.of(packet(null, "10.0.0.1", agent), packet(null, "10.0.0.2", agent)));
+
+            assertEquals(2, packetRows(agent));
+            assertEquals(2, outboxRows());
+        } finally {
+            persistenceProperties.setMode(before);
+            cleanUp(agent);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PersistenceProperties.Mode.class, names = {"JPA", "JDBC", "COPY"})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void failedOutboxAppendRollsThePacketsBack(PersistenceProperties.Mode mode) {
+        String agent = "outbox-" + UUID.randomUUID();
+        PersistenceProperties.Mode before = persistenceProperties.getMode();
+        persistenceProperties.setMode(mode);
+        PacketOutbox failing = new PacketOutbox(jdbcTemplate, persistenceProperties) {
+            @Override
+            public void append(List<Packet> packets) {
+                super.append(packets);
+                throw new IllegalStateException("outbox down");
+            }
+        };
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> writer(failing).write(List.of(packet(null, "10.0.0.1", agent))));
+
+            assertEquals(0, packetRows(agent));
+            assertEquals(0, outboxRows());
+        } finally {
+            persistenceProperties.setMode(before);
+            cleanUp(agent);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PersistenceProperties.Mode.class, names = {"JPA", "JDBC", "COPY"})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void failedPacketInsertLeavesNoOutboxRow(PersistenceProperties.Mode mode) {
+        String agent = "outbox-" + UUID.randomUUID();
+        PersistenceProperties.Mode before = persistenceProperties.getMode();
+        persistenceProperties.setMode(mode);
+        Packet tooLong = packet(null, "10.0.0.2", agent + "x".repeat(255));   // agent_id is varchar(255)
+        try {
+            assertThrows(RuntimeException.class,
+                    () -> writer(outbox).write(List.of(packet(null, "10.0.0.1", agent), tooLong)));
+
+            assertEquals(0, packetRows(agent));
+            assertEquals(0, outboxRows());
+        } finally {
+            persistenceProperties.setMode(before);
+            cleanUp(agent);
+        }
+    }
+
+    private PacketOutboxRelay relay() {
+        KafkaTopicProperties topics = new KafkaTopicProperties();
+        topics.setLivePacketEvents(topic);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PublishProperties publish = new PublishProperties();
+        PacketPublisher publisher = new PacketPublisher(new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)),
+                topics, publish, registry);
+        return new PacketOutboxRelay(outbox, publisher, props, publish, topics, transactionManager, registry);
+    }
+
+    private PacketWriter writer(PacketOutbox packetOutbox) {
+        return new PacketWriter(packetRepository, packetOutbox, persistenceProperties, props,
+                new TransactionTemplate(transactionManager));
+    }
+
+    private long relayed() {
+        return jdbcTemplate.queryForList("SELECT relayed FROM " + PacketOutbox.RELAY_TABLE + " WHERE relay = ?",
+                Long.class, topic).stream().findFirst().orElse(0L);
+    }
+
+    private long outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + PacketOutbox.TABLE + " WHERE id > ?", Long.class, mark);
+    }
+
+    private long packetRows(String agent) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + PacketPartitionManager.TABLE + " WHERE agent_id = ?",
+                Long.class, agent);
+    }
+
+    // committed tests only: remove what they wrote
+    private void cleanUp(String agent) {
+        jdbcTemplate.update("DELETE FROM " + PacketOutbox.TABLE + " WHERE id > ?", mark);
+        jdbcTemplate.update("DELETE FROM " + PacketOutbox.RELAY_TABLE + " WHERE relay = ?", topic);
+        if (agent != null) {
+            jdbcTemplate.update("DELETE FROM " + PacketPartitionManager.TABLE + " WHERE agent_id = ?", agent);
+        }
+    }
+
+    private static Packet packet(long id, String srcIp) {
+        return packet(id, srcIp, "agent-1");
+    }
+
+    private static Packet packet(Long id, String srcIp, String agentId) {
+        Packet p = new Packet();
+        p.setId(id);
+        p.setTimestamp("2026-10-18T10:00:00.123456");
+        p.setSrcIp(srcIp);
+        p.setDstIp("142.250.183.4");
+        p.setDstPort(443);
+        p.setAgentId(agentId);
+        p.setReceivedAt(LocalDateTime.now().withNano(0));
+        return p;
+    }
+}
@@ -0,0 +1,110 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Partition layout, pruning and retention against the configured PostgreSQL.
+ * Context startup converts {@code packets} for real (like the application would); everything
+ * the tests do afterwards rolls back, DDL included. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketPartitionManagerTest {
+
+    private static final ZoneId JDBC_ZONE = ZoneId.of("GMT+05:30");
+
+    @Autowired
+    private PacketPartitionManager manager;
+
+    @Autowired
+    private PartitionProperties props;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void tableIsPartitionedWithPartitionsAhead() {
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind FROM pg_class WHERE oid = 'packets'::regclass", String.class));
+        List<PacketPartitionManager.Partition> partitions = manager.partitions();
+        LocalDateTime horizon = LocalDateTime.now(JDBC_ZONE).plus(props.getPremake(), props.getInterval().unit);
+        assertTrue(partitions.get(partitions.size() - 1).to().isAfter(horizon));
+        for (int i = 1; i < partitions.size(); i++) {
+            assertEquals(partitions.get(i - 1).to(), partitions.get(i).from(), "partitions must be contiguous");
+        }
+    }
+
+    @Test
+    void jpaAndBulkInsertsLandInPartitions() {
+        Packet saved = packetRepository.saveAndFlush(packet());
+        assertNotNull(saved.getId());
+        List<Packet> bulk = List.of(packet(), packet());
+        packetRepository.bulkInsert(bulk);
+        entityManager.clear();
+
+        List<String> landed = jdbcTemplate.queryForList("SELECT tableoid::regclass::text FROM packets WHERE id IN (?, ?, ?)",
+                String.class, saved.getId(), bulk.get(0).getId(), bulk.get(1).getId());
+        assertEquals(3, landed.size());
+        List<String> names = manager.partitions().stream().map(PacketPartitionManager.Partition::name).toList();
+        assertTrue(names.containsAll(landed), "rows in " + landed + ", partitions " + names);
+    }
+
+    @Test
+    void receivedAtBoundIsPrunedToRecentPartitions() {
+        // the bound search pages put on received_at; partitions are all recent or ahead here, so use
+        // a bound a few intervals out to see older ones pruned
+        String since = LocalDateTime.now(JDBC_ZONE).plus(3, props.getInterval().unit).toString();
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM packets WHERE received_at >= '" + since + "' ORDER BY received_at DESC LIMIT 10",
+                String.class);
+        String text = String.join("\n", plan);
+        int total = manager.partitions().size();
+        long scanned = manager.partitions().stream().filter(p -> text.contains(p.name() + " ")).count();
+        assertTrue(scanned < total, "expected pruning, plan scans " + scanned + "/" + total);
+    }
+
+    @Test
+    void retentionDropsWholePartitions() {
+        int before = manager.partitions().size();
+        manager.enforceRetention(LocalDateTime.now(JDBC_ZONE).plus(props.getRetention()).plusDays(2));
+        List<PacketPartitionManager.Partition> after = manager.partitions();
+        assertTrue(after.size() < before);
+        assertFalse(after.stream().anyMatch(p -> p.name().equals(PacketPartitionManager.LEGACY)));
+    }
+
+    private static Packet packet() {
+        Packet p = new Packet();
+        p.setSrcIp("10.0.0.7");
+        p.setDstIp("10.0.0.1");
+        p.setProtocol("6");
+        p.setAgentId("agent-part");
+        p.setReceivedAt(LocalDateTime.now());
+        return p;
+    }
+}
@@ -0,0 +1,131 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload store against the configured PostgreSQL: exact binary round trip, one row per
+ * distinct payload, and packet + payload bytes compared with inline TEXT payloads.
+ * Everything rolls back. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class,
+        PacketSchemaMigrator.class, PacketPayloadStore.class, SimpleMeterRegistry.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketPayloadStoreTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private PacketPayloadStore store;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void binaryPayloadsRoundTripExactlyAndAreStoredOnce() {
+        byte[] tls = {0x16, 0x03, 0x01, 0x00, 0x00, (byte) 0xFF, (byte) 0xC0, 0x2B, 0x00};
+        byte[] banner = "SSH-2.0-OpenSSH_9.6\r\n".repeat(8).getBytes(StandardCharsets.US_ASCII);
+        List<Packet> packets = List.of(packet(tls), packet(tls.clone()), packet(banner));
+
+        store.store(packets);
+        packetRepository.bulkInsert(packets);
+
+        assertArrayEquals(packets.get(0).getPayloadHash(), packets.get(1).getPayloadHash());
+        assertEquals(1, count(packets.get(0).getPayloadHash()));
+        assertArrayEquals(tls, store.load(packets.get(1).getPayloadHash()).orElseThrow());
+        assertArrayEquals(banner, store.load(packets.get(2).getPayloadHash()).orElseThrow());
+        assertEquals(PacketPayloadStore.ZSTD, jdbcTemplate.queryForObject(
+                "SELECT codec FROM packet_payloads WHERE hash = ?", Short.class, (Object) packets.get(2).getPayloadHash()));
+    }
+
+    @Test
+    void hashedPayloadsTakeAFractionOfInlineText() {
+        // mostly repeats (keepalives, banners, retransmits) plus some one-off payloads
+        Random random = new Random(7);
+        List<byte[]> common = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            common.add(("HTTP/1.1 200 OK\r\nServer: nginx\r\nContent-Length: " + (100 + i) + "\r\n\r\n" + "x".repeat(120))
+                    .getBytes(StandardCharsets.US_ASCII));
+        }
+        List<Packet> packets = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            byte[] raw;
+            if (i % 10 == 0) {
+                raw = new byte[200];
+                random.nextBytes(raw);
+            } else {
+                raw = common.get(i % common.size());
+            }
+            packets.add(packet(raw));
+        }
+        jdbcTemplate.execute("CREATE TEMP TABLE bench_inline (id bigint, payload text)");
+        jdbcTemplate.batchUpdate("INSERT INTO bench_inline VALUES (?, ?)", packets, 1000,
+                (ps, p) -> {
+                    ps.setLong(1, 0);
+                    ps.setString(2, new String(p.getRawPayload(), StandardCharsets.UTF_8).replace("\u0000", ""));
+                });
+        jdbcTemplate.execute("CREATE TEMP TABLE bench_hashed (id bigint, payload_hash bytea, payload_length int)");
+        Long storeBefore = jdbcTemplate.queryForObject("SELECT pg_total_relation_size('packet_payloads')", Long.class);
+        long start = System.nanoTime();
+        store.store(packets);
+        long storeMs = (System.nanoTime() - start) / 1_000_000;
+        jdbcTemplate.batchUpdate("INSERT INTO bench_hashed VALUES (?, ?, ?)", packets, 1000,
+                (ps, p) -> {
+                    ps.setLong(1, 0);
+                    ps.setBytes(2, p.getPayloadHash());
+                    ps.setInt(3, p.getRawPayload().length);
+                });
+        jdbcTemplate.execute("ANALYZE bench_inline");
+
+        long inline = size("bench_inline");
+        long hashed = size("bench_hashed");
+        long payloads = size("packet_payloads") - storeBefore;
+        System.out.printf("payload bytes/row: inline=%d hashed=%d + store=%d (store() %d ms for %d packets)%n",
+                inline / ROWS, hashed / ROWS, payloads / ROWS, storeMs, ROWS);
+        assertTrue(hashed + payloads < inline / 2, "inline=" + inline + " hashed=" + hashed + " store=" + payloads);
+    }
+
+    private long count(byte[] hash) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM packet_payloads WHERE hash = ?", Long.class, (Object) hash);
+    }
+
+    private long size(String table) {
+        return jdbcTemplate.queryForObject("SELECT pg_total_relation_size(?::regclass)", Long.class, table);
+    }
+
+    private static Packet packet(byte[] raw) {
+        Packet p = new Packet();
+        p.setSrcIp("10.0.0.8");
+        p.setDstIp("10.0.0.1");
+        p.setProtocol("6");
+        p.setAgentId("agent-payload");
+        p.setRawPayload(raw);
+        p.setPayloadLength(raw.length);
+        p.setReceivedAt(LocalDateTime.now());
+        return p;
+    }
+}
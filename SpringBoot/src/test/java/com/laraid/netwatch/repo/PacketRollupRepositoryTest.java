@@ -0,0 +1,77 @@
+package com.laraid.netwatch.repo;
+
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.dto.RollupPoint;
+import com.laraid.netwatch.dto.RollupTotal;
+import com.laraid.netwatch.repo.PacketRollupRepository.Dimension;
+import com.laraid.netwatch.repo.PacketRollupRepository.Key;
+import com.laraid.netwatch.repo.PacketRollupRepository.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Additive minute upserts, idempotent hour/day compaction and the dashboard queries against the
+ * configured PostgreSQL. Everything rolls back. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PersistenceProperties.class, PacketRollupRepository.class})
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketRollupRepositoryTest {
+
+    // buckets are hours of hibernate.jdbc.time_zone, which need not be whole hours of the JVM zone
+    private static final LocalDateTime HOUR = LocalDateTime.now(ZoneId.of("GMT+05:30")).minusDays(1)
+            .truncatedTo(ChronoUnit.HOURS).atZone(ZoneId.of("GMT+05:30"))
+            .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+
+    @Autowired
+    private PacketRollupRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void empty() {
+        for (Level level : Level.values()) jdbcTemplate.update("DELETE FROM " + level.table());
+    }
+
+    @Test
+    void minuteUpsertsAddUpAndCompactIntoHoursAndDays() {
+        Key https = new Key(HOUR.plusMinutes(5), "agent-1", (short) 6, "10.0.0.5", 443);
+        Key dns = new Key(HOUR.plusMinutes(5), "agent-1", (short) 17, "10.0.0.5", 53);
+        Key unknown = new Key(HOUR.plusMinutes(59), "", (short) -1, "0.0.0.0/0", -1);
+        repository.addMinutes(Map.of(https, new long[]{10, 15_000}, dns, new long[]{2, 200}));
+        repository.addMinutes(Map.of(https, new long[]{5, 500}, unknown, new long[]{1, 60}));
+        repository.addMinutes(Map.of(new Key(HOUR.plusMinutes(61), "agent-2", (short) 6, "fe80::1", 443), new long[]{4, 400}));
+
+        assertEquals(List.of(new RollupTotal("443", 19, 15_900), new RollupTotal("53", 2, 200), new RollupTotal(null, 1, 60)),
+                repository.top(Level.MINUTE, Dimension.DST_PORT, HOUR, HOUR.plusHours(2), false, 10));
+
+        repository.compact();
+        repository.compact();   // recomputes, never double counts
+        assertEquals(List.of(
+                        new RollupPoint(HOUR, "6", 15, 15_500), new RollupPoint(HOUR, "17", 2, 200),
+                        new RollupPoint(HOUR, null, 1, 60), new RollupPoint(HOUR.plusHours(1), "6", 4, 400)),
+                repository.series(Level.HOUR, Dimension.PROTOCOL, HOUR, HOUR.plusHours(2)));
+        assertEquals(List.of(new RollupTotal("agent-1", 17, 15_700), new RollupTotal("agent-2", 4, 400), new RollupTotal(null, 1, 60)),
+                repository.top(Level.DAY, Dimension.AGENT, HOUR.minusDays(1), HOUR.plusDays(1), true, 10));
+        assertEquals(List.of(new RollupTotal("10.0.0.5", 17, 15_700), new RollupTotal("fe80::1", 4, 400)),
+                repository.top(Level.HOUR, Dimension.SRC_IP, HOUR, HOUR.plusHours(2), false, 2));
+
+        assertEquals(3, repository.purge(Level.MINUTE, HOUR.plusHours(1)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.AlertProperties;
+import com.laraid.netwatch.config.KafkaConsumerConfig;
+import com.laraid.netwatch.config.KafkaProperties;
+import com.laraid.netwatch.config.KafkaTopicProperties;
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records/sec through the alert detectors from an embedded 3-partition packet-events topic: the
+ * former single-record listener with one consumer vs the batch listener with one consumer per
+ * partition ({@link KafkaConsumerConfig#packetKafkaListenerContainerFactory}), plus the batch
+ * listener alone to tell the two effects apart. The broker shares the machine, so the per-partition
+ * gain needs spare cores to show. Starts a broker, so it only runs with {@code -Dnetwatch.bench=true}.
+ */
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AlertConsumerBenchmarkTest {
+
+    private static final String TOPIC = "packet-events";
+    private static final int RECORDS = 200_000;
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() throws InterruptedException {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        broker.afterPropertiesSet();
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.BATCH_SIZE_CONFIG, 65_536);
+        try (KafkaProducer<String, Packet> producer = new KafkaProducer<>(props, new StringSerializer(), new JsonSerializer<>())) {
+            for (int i = 0; i < RECORDS; i++) {
+                Packet p = packet(i);
+                producer.send(new ProducerRecord<>(TOPIC, p.getSrcIp(), p));
+            }
+        }
+        batch("warm-up", 1);   // JIT and the group coordinator, so the first measured run is not penalized
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    @Order(1)
+    void recordListenerOneConsumer() throws Exception {
+        ConcurrentKafkaListenerContainerFactory<String, Packet> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(config().packetConsumerFactory());
+        AlertDetector detector = new AlertDetector(new AlertProperties());
+        AtomicInteger consumed = new AtomicInteger();
+        run("record x1", factory, (MessageListener<String, Packet>) r -> {
+            detector.detect(List.of(r));
+            consumed.incrementAndGet();
+        }, consumed);
+    }
+
+    @Test
+    @Order(2)
+    void batchListenerOneConsumer() throws Exception {
+        batch("batch x1", 1);
+    }
+
+    @Test
+    @Order(3)
+    void batchListenerPerPartition() throws Exception {
+        batch("batch x3", 0);
+    }
+
+    /** the production factory; concurrency 0 = as configured (one consumer per partition) */
+    private static void batch(String name, int concurrency) throws InterruptedException {
+        ConcurrentKafkaListenerContainerFactory<String, Packet> factory = config().packetKafkaListenerContainerFactory();
+        if (concurrency > 0) factory.setConcurrency(concurrency);
+        AlertDetector detector = new AlertDetector(new AlertProperties());
+        AtomicInteger consumed = new AtomicInteger();
+        run(name, factory, (BatchMessageListener<String, Packet>) records -> {
+            detector.detect(records);
+            consumed.addAndGet(records.size());
+        }, consumed);
+    }
+
+    private static void run(String name, ConcurrentKafkaListenerContainerFactory<String, Packet> factory, Object listener,
+                            AtomicInteger consumed) throws InterruptedException {
+        ConcurrentMessageListenerContainer<String, Packet> container = factory.createContainer(TOPIC);
+        container.getContainerProperties().setGroupId("bench-" + name.replace(' ', '-'));
+        container.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        container.setupMessageListener(listener);
+        long start = System.nanoTime();
+        long first = 0;
+        container.start();
+        try {
+            long deadline = start + 120_000_000_000L;
+            while (consumed.get() < RECORDS && System.nanoTime() < deadline) {
+                if (first == 0 && consumed.get() > 0) first = System.nanoTime();
+                Thread.sleep(1);
+            }
+        } finally {
+            long end = System.nanoTime();
+            container.stop();
+            // group join is reported apart: it is a one-off cost that dwarfs the difference otherwise
+            double seconds = (end - first) / 1e9;
+            System.out.printf("%-10s %,d records in %.2fs = %,.0f records/sec after %.2fs joining (consumers: %d)%n",
+                    name, consumed.get(), seconds, consumed.get() / seconds, (first - start) / 1e9, container.getConcurrency());
+        }
+        assertEquals(RECORDS, consumed.get());
+    }
+
+    private static KafkaConsumerConfig config() {
+        KafkaProperties kafka = new KafkaProperties();
+        kafka.setBootstrapServers(broker.getBrokersAsString());
+        return new KafkaConsumerConfig(kafka, new KafkaTopicProperties(), new AlertProperties());
+    }
+
+    private static Packet packet(int i) {
+        Packet p = new Packet();
+        p.setAgentId("agent-" + (i % 4));
+        p.setSrcIp("10.0." + (i % 1_000) / 250 + "." + (i % 250));
+        p.setDstIp("142.250.183.4");
+        p.setSrcPort(40_000 + i % 20_000);
+        p.setDstPort(i % 7 == 0 ? 53 : 443);
+        p.setProtocol("6");
+        p.setPacketType("TCP");
+        p.setLength(60 + i % 1_400);
+        p.setReceivedAt(LocalDateTime.now());
+        return p;
+    }
+}
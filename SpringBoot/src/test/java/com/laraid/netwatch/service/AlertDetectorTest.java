@@ -0,0 +1,86 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.AlertProperties;
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlertDetectorTest {
+
+    private final AlertDetector detector = new AlertDetector(new AlertProperties());
+
+    @Test
+    void portScanAfterThirtyDistinctPorts() {
+        List<ConsumerRecord<String, Packet>> batch = new ArrayList<>();
+        for (int port = 1; port <= 40; port++) {
+            batch.add(record("10.0.0.9", port, 1_000));
+            batch.add(record("10.0.0.9", 1, 1_000));   // repeats don't count
+        }
+        batch.add(record("10.0.0.10", 80, 1_000));
+
+        List<Map<String, Object>> alerts = detector.detect(batch);
+        assertEquals(1, alerts.size());
+        assertEquals(AlertDetector.PORT_SCAN, alerts.get(0).get("type"));
+        assertEquals("10.0.0.9", alerts.get(0).get("srcIp"));
+        assertEquals(30, alerts.get(0).get("uniquePortsCount"));
+    }
+
+    @Test
+    void trafficSpikeCountsPacketsWithinTheWindowByRecordTime() {
+        List<ConsumerRecord<String, Packet>> slow = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            slow.add(record("10.0.0.9", null, 1_000_000 + i * 100L));   // 10/s: never 500 within 10s
+        }
+        assertEquals(List.of(), detector.detect(slow));
+
+        List<ConsumerRecord<String, Packet>> burst = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            burst.add(record("10.0.0.9", null, 1_200_000 + i));
+        }
+        List<Map<String, Object>> alerts = detector.detect(burst);
+        assertEquals(1, alerts.size());
+        assertEquals(AlertDetector.TRAFFIC_SPIKE, alerts.get(0).get("type"));
+        assertEquals(501, alerts.get(0).get("packetCountLast10s"));
+    }
+
+    /** consumers sharing a source (while partitions move) must not lose or double count its packets */
+    @Test
+    void concurrentBatchesForOneSourceCountEveryPacketOnce() throws Exception {
+        AtomicInteger alerts = new AtomicInteger();
+        List<Thread> consumers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            consumers.add(new Thread(() -> {
+                for (int b = 0; b < 100; b++) {
+                    List<ConsumerRecord<String, Packet>> batch = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        batch.add(record("10.0.0.9", null, 5_000));
+                    }
+                    alerts.addAndGet(detector.detect(batch).size());
+                }
+            }));
+        }
+        consumers.forEach(Thread::start);
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+
+        assertEquals(30_000 / 501, alerts.get());
+    }
+
+    private static ConsumerRecord<String, Packet> record(String srcIp, Integer dstPort, long timestamp) {
+        Packet p = new Packet();
+        p.setSrcIp(srcIp);
+        p.setDstPort(dstPort);
+        return new ConsumerRecord<>("packet-events", 0, 0, timestamp, TimestampType.CREATE_TIME, 0, 0, srcIp, p,
+                new org.apache.kafka.common.header.internals.RecordHeaders(), Optional.empty());
+    }
+}
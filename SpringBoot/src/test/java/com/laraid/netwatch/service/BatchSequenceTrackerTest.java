@@ -0,0 +1,126 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSequenceTrackerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BatchSequenceTracker tracker = new BatchSequenceTracker(props(), registry);
+
+    @Test
+    void resendIsRejectedOutOfOrderIsAccepted() {
+        assertTrue(tracker.claim(batch("a", 1, 5)));
+        assertTrue(tracker.claim(batch("a", 1, 3)));
+        assertFalse(tracker.claim(batch("a", 1, 5)));
+        assertFalse(tracker.claim(batch("a", 1, 3)));
+        assertTrue(tracker.claim(batch("b", 1, 5)));
+        assertEquals(2, registry.get("netwatch.ingest.batches.replayed").counter().count());
+    }
+
+    @Test
+    void sequencesOlderThanWindowAreReplays() {
+        assertTrue(tracker.claim(batch("a", 1, 1000)));
+        assertTrue(tracker.claim(batch("a", 1, 1000 - 63)));
+        assertFalse(tracker.claim(batch("a", 1, 1000 - 64)));
+        // a big jump clears the slots it skips over, so reused bit positions are fresh again
+        assertTrue(tracker.claim(batch("a", 1, 1064)));
+        assertTrue(tracker.claim(batch("a", 1, 1010)));
+    }
+
+    @Test
+    void newEpochResetsWindowAndOldEpochIsReplay() {
+        assertTrue(tracker.claim(batch("a", 1, 7)));
+        assertTrue(tracker.claim(batch("a", 2, 7)));
+        assertFalse(tracker.claim(batch("a", 1, 8)));
+    }
+
+    @Test
+    void releasedClaimCanBeRetriedAndUnsequencedBatchesPass() {
+        assertTrue(tracker.claim(batch("a", 1, 9)));
+        tracker.release(batch("a", 1, 9));
+        assertTrue(tracker.claim(batch("a", 1, 9)));
+        PacketBatchDTO legacy = new PacketBatchDTO("a", null, null, List.of());
+        assertTrue(tracker.claim(legacy));
+        assertTrue(tracker.claim(legacy));
+    }
+
+    @Test
+    void readerSkipsPacketsOfReplayedBatch() throws IOException {
+        PacketBatchReader reader = new PacketBatchReader(new ObjectMapper(), new PacketMapper());
+        byte[] body = """
+                {"agentId":"a","epoch":1,"batchSeq":42,"packets":[{"srcIp":"10.0.0.1"},{"srcIp":"10.0.0.2"}]}
+                """.getBytes(StandardCharsets.UTF_8);
+        List<Packet> out = new ArrayList<>();
+        PacketBatchReader.ChunkSink sink = new PacketBatchReader.ChunkSink() {
+            @Override
+            public boolean accept(List<Packet> chunk) {
+                return out.addAll(chunk);
+            }
+
+            @Override
+            public boolean begin(PacketBatchDTO header) {
+                return tracker.claim(header);
+            }
+        };
+
+        PacketBatchReader.Result first = reader.read(new ByteArrayInputStream(body), 10, sink);
+        PacketBatchReader.Result resend = reader.read(new ByteArrayInputStream(body), 10, sink);
+
+        assertFalse(first.skipped());
+        assertTrue(resend.skipped());
+        assertEquals(2, out.size());
+        assertEquals(42L, resend.header().getBatchSeq());
+    }
+
+    /** byte for byte what server/agent.py and stage2.py post (json.dumps of sequenced()), not a hand-ordered body */
+    @Test
+    void agentsKeyOrderCarriesTheSequenceIntoBegin() throws IOException {
+        PacketBatchReader reader = new PacketBatchReader(new ObjectMapper(), new PacketMapper());
+        byte[] body = ("{\"agentId\": \"agent-1\", \"hostName\": \"laptop-01\", \"interfaceName\": \"eth0\", "
+                + "\"epoch\": 1760000000000, \"batchSeq\": 7, \"packets\": [{\"srcIp\": \"10.0.0.1\"}]}")
+                .getBytes(StandardCharsets.UTF_8);
+        List<PacketBatchDTO> begun = new ArrayList<>();
+        PacketBatchReader.ChunkSink sink = new PacketBatchReader.ChunkSink() {
+            @Override
+            public boolean accept(List<Packet> chunk) {
+                return true;
+            }
+
+            @Override
+            public boolean begin(PacketBatchDTO header) {
+                begun.add(new PacketBatchDTO(header.getAgentId(), null, null, header.getEpoch(), header.getBatchSeq(), List.of()));
+                return tracker.claim(header);
+            }
+        };
+
+        assertFalse(reader.read(new ByteArrayInputStream(body), 10, sink).skipped());
+        assertTrue(reader.read(new ByteArrayInputStream(body), 10, sink).skipped());
+        assertEquals(1760000000000L, begun.get(0).getEpoch());
+        assertEquals(7L, begun.get(0).getBatchSeq());
+    }
+
+    private static PacketBatchDTO batch(String agent, long epoch, long seq) {
+        return new PacketBatchDTO(agent, null, null, epoch, seq, List.of());
+    }
+
+    private static IngestProperties props() {
+        IngestProperties props = new IngestProperties();
+        props.setSequenceWindow(64);
+        return props;
+    }
+}
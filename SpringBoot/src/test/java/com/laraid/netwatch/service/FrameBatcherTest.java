@@ -0,0 +1,96 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.utils.StreamFilterIndex.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameBatcherTest {
+
+    private static final Event EVENT = new Event("agent-1", "10.0.0.1", "10.0.0.2", 40000, 443, "6", "TCP");
+
+    @Test
+    void flushWhileAFullFrameIsBeingSentKeepsFramesInOrder() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        FrameBatcher<String> batcher = new FrameBatcher<>("test", 2, Duration.ofMillis(100), (member, frame) -> {
+            if (sent.isEmpty()) {
+                sending.countDown();
+                await(release);
+            }
+            sent.add(frame.text());
+        }, new SimpleMeterRegistry());
+        batcher.join("m", new StreamFilter());
+
+        // the publisher fills frame [0,1] and is stuck sending it ...
+        Thread publisher = new Thread(() -> {
+            batcher.offer(EVENT, 0, () -> event(0));
+            batcher.offer(EVENT, 1, () -> event(1));
+        });
+        publisher.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // ... while the next event arrives and the scheduled flush cuts frame [2]
+        batcher.offer(EVENT, 2, () -> event(2));
+        batcher.flush();
+        release.countDown();
+        publisher.join(5_000);
+
+        assertEquals(List.of("[0,1]", "[2]"), sent);
+    }
+
+    @Test
+    void framesOfEveryPublisherArriveInCutOrder() throws Exception {
+        List<Long> lastSeqs = new CopyOnWriteArrayList<>();
+        FrameBatcher<String> batcher = new FrameBatcher<>("test", 4, Duration.ofMillis(100),
+                (member, frame) -> lastSeqs.add(frame.lastSeq()), new SimpleMeterRegistry());
+        batcher.join("m", new StreamFilter());
+
+        Object order = new Object();
+        long[] next = {0};
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    synchronized (order) {   // events enter the group in sequence order, frames may be cut anywhere
+                        long seq = next[0]++;
+                        batcher.offer(EVENT, seq, () -> event(seq));
+                    }
+                    if (i % 50 == 0) batcher.flush();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join(10_000);
+        batcher.flush();
+
+        for (int i = 1; i < lastSeqs.size(); i++) {
+            assertTrue(lastSeqs.get(i - 1) < lastSeqs.get(i), "frame " + i + " after " + lastSeqs.get(i - 1));
+        }
+        assertEquals(7_999L, lastSeqs.get(lastSeqs.size() - 1));
+    }
+
+    private static byte[] event(long seq) {
+        return Long.toString(seq).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
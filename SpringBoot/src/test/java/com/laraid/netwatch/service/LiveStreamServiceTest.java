@@ -0,0 +1,264 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.config.StreamProperties;
+import com.laraid.netwatch.dto.PacketSummary;
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveStreamServiceTest {
+
+    private final List<Message<?>> sent = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final LiveStreamService service = new LiveStreamService((m, timeout) -> sent.add(m), objectMapper,
+            properties(3), registry);
+
+    @Test
+    void sseSubscribersReceiveOnlyWhatTheirFilterAccepts() {
+        StreamFilter https = new StreamFilter();
+        https.setPort(443);
+        StreamFilter agent2 = new StreamFilter();
+        agent2.setAgentId("agent-2");
+        List<PacketSummary> a = new ArrayList<>(), b = new ArrayList<>();
+        Disposable first = service.subscribe(https, null, null).subscribe(a::add);
+        Disposable second = service.subscribe(agent2, null, null).subscribe(b::add);
+
+        service.publish(List.of(packet(1, "agent-1", 443), packet(2, "agent-2", 53), packet(3, "agent-2", 443)));
+
+        assertEquals(List.of(1L, 3L), a.stream().map(PacketSummary::id).toList());
+        assertEquals(List.of(2L, 3L), b.stream().map(PacketSummary::id).toList());
+        assertEquals(4.0, registry.get("netwatch.stream.delivered").tag("stream", "sse").counter().count());
+
+        first.dispose();
+        second.dispose();
+        assertEquals(0.0, registry.get("netwatch.stream.subscribers").tag("stream", "sse").gauge().value());
+    }
+
+    @Test
+    void stompSubscriptionsGetMatchingRawPacketsUntilTheyLeave() {
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-0", Map.of("ip", "10.0.0.0/24"))));
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-1", Map.of("port", "53"))));
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s2", "sub-0", Map.of())));
+
+        service.publishRaw(Map.of("agentId", "agent-1", "srcIp", "10.0.0.7", "dstIp", "8.8.8.8",
+                "srcPort", 40_000, "dstPort", 53, "protocol", "17"));
+        assertEquals(List.of("s2/sub-0", "s1/sub-0", "s1/sub-1"), targets());
+        String body = new String((byte[]) sent.get(0).getPayload(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("\"srcIp\":\"10.0.0.7\""), body);
+        assertEquals(LiveStreamService.RAW_PACKETS_DESTINATION, SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()));
+
+        sent.clear();
+        service.onUnsubscribe(new SessionUnsubscribeEvent(this, unsubscribe("s1", "sub-1")));
+        service.onDisconnect(new SessionDisconnectEvent(this, unsubscribe("s2", null), "s2", CloseStatus.NORMAL));
+        service.publishRaw(Map.of("srcIp", "10.0.0.7", "dstIp", "8.8.8.8", "dstPort", 53));
+        assertEquals(List.of("s1/sub-0"), targets());
+    }
+
+    @Test
+    void framedSubscribersShareOneFramePerFilter() throws Exception {
+        StreamFilter https = new StreamFilter();
+        https.setPort(443);
+        StreamFilter sameFilter = new StreamFilter();
+        sameFilter.setPort(443);
+        List<String> a = new ArrayList<>(), b = new ArrayList<>(), all = new ArrayList<>();
+        service.subscribeFrames(https, null, null).subscribe(a::add);
+        service.subscribeFrames(sameFilter, null, null).subscribe(b::add);
+        service.subscribeFrames(new StreamFilter(), null, null).subscribe(all::add);
+
+        // 4 matching packets with frames of at most 3: one full frame at once, the rest on the next flush
+        service.publish(List.of(packet(1, "a", 443), packet(2, "a", 53), packet(3, "a", 443), packet(4, "a", 443)));
+        assertEquals(1, a.size());
+        assertEquals(List.of(1L, 3L, 4L), ids(a.get(0)));
+        assertEquals(List.of(1L, 2L, 3L), ids(all.get(0)));
+        service.publish(List.of(packet(5, "a", 443)));
+        service.flushFrames();
+
+        assertEquals(List.of(5L), ids(a.get(1)));
+        assertEquals(List.of(4L, 5L), ids(all.get(1)));
+        assertEquals(a, b);
+        assertTrue(a.get(0) == b.get(0), "same frame instance for subscribers with equal filters");
+        assertEquals(13.0, registry.get("netwatch.stream.delivered").tag("stream", "sse").counter().count());   // packets, not frames
+        assertEquals(4, registry.get("netwatch.stream.frame.events").tag("stream", "sse").summary().count());
+        assertEquals(9.0, registry.get("netwatch.stream.frame.events").tag("stream", "sse").summary().totalAmount());
+        assertEquals(4, registry.get("netwatch.stream.frame.latency").tag("stream", "sse").timer().count());
+    }
+
+    @Test
+    void framedStompSubscriptionsGetJsonArrays() throws Exception {
+        Map<String, String> headers = Map.of("frames", "true", "protocol", "udp");
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-0", headers)));
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s2", "sub-0", headers)));
+
+        service.publishRaw(Map.of("srcIp", "10.0.0.7", "protocol", "17", "dstPort", 53));
+        service.publishRaw(Map.of("srcIp", "10.0.0.7", "protocol", "6", "dstPort", 443));
+        service.publishRaw(Map.of("srcIp", "10.0.0.8", "protocol", "17", "dstPort", 53));
+        assertTrue(sent.isEmpty());
+        service.flushFrames();
+
+        assertEquals(List.of("s1/sub-0", "s2/sub-0"), targets().stream().sorted().toList());
+        assertTrue(sent.get(0).getPayload() == sent.get(1).getPayload(), "one payload for the whole group");
+        JsonNode frame = objectMapper.readTree((byte[]) sent.get(0).getPayload());
+        assertEquals(2, frame.size());
+        assertEquals("10.0.0.8", frame.get(1).get("srcIp").asText());
+    }
+
+    @Test
+    void newSseSubscribersStartWithTheReplay() {
+        service.publish(List.of(packet(1, "a", 443), packet(2, "a", 53), packet(3, "a", 443), packet(4, "a", 443)));
+        StreamFilter https = new StreamFilter();
+        https.setPort(443);
+        List<PacketSummary> all = new ArrayList<>(), lastTwo = new ArrayList<>(), none = new ArrayList<>();
+        List<String> frames = new ArrayList<>();
+        service.subscribe(https, null, null).subscribe(all::add);
+        service.subscribe(https, null, 2).subscribe(lastTwo::add);
+        service.subscribe(https, null, 0).subscribe(none::add);
+        service.subscribeFrames(https, null, null).subscribe(frames::add);
+
+        service.publish(List.of(packet(5, "a", 443)));
+        service.flushFrames();
+
+        assertEquals(List.of(1L, 3L, 4L, 5L), all.stream().map(PacketSummary::id).toList());
+        assertEquals(List.of(3L, 4L, 5L), lastTwo.stream().map(PacketSummary::id).toList());
+        assertEquals(List.of(5L), none.stream().map(PacketSummary::id).toList());
+        assertEquals(List.of(List.of(1L, 3L, 4L), List.of(5L)), frames.stream().map(this::ids).toList());
+        assertEquals(8.0, registry.get("netwatch.stream.replayed").tag("stream", "sse").counter().count());
+    }
+
+    /** a subscriber joining mid-stream sees one unbroken run of packets: the replay, then live, none twice */
+    @Test
+    void replayAndLivePacketsMeetWithoutGapOrRepeat() throws Exception {
+        int total = 20_000;
+        AtomicLong published = new AtomicLong();
+        Thread publisher = new Thread(() -> {
+            for (long id = 1; id <= total; id++) {
+                service.publish(List.of(packet(id, "a", 443)));
+                published.set(id);
+            }
+        });
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        publisher.start();
+        while (published.get() < total / 2) {
+            Thread.onSpinWait();
+        }
+        service.subscribe(new StreamFilter(), null, null).subscribe(p -> received.add(p.id()));
+        publisher.join();
+
+        assertEquals(total, received.get(received.size() - 1));
+        for (int i = 1; i < received.size(); i++) {
+            assertEquals(received.get(i - 1) + 1, received.get(i), "at " + i);
+        }
+    }
+
+    @Test
+    void stompSubscriptionsStartWithTheReplay() throws Exception {
+        service.publishRaw(Map.of("srcIp", "10.0.0.7", "dstPort", 53, "seq", 1));
+        service.publishRaw(Map.of("srcIp", "10.0.0.7", "dstPort", 443, "seq", 2));
+        service.publishRaw(Map.of("srcIp", "10.0.0.8", "dstPort", 53, "seq", 3));
+
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-0", Map.of("port", "53"))));
+        service.onSubscribe(new SessionSubscribeEvent(this,
+                subscribe("s2", "sub-0", LiveStreamService.RAW_PACKETS_TOPIC, Map.of("replay", "1"))));
+        service.onSubscribe(new SessionSubscribeEvent(this, subscribe("s3", "sub-0", Map.of("port", "53", "frames", "true"))));
+        assertEquals(List.of("s1/sub-0:1", "s1/sub-0:3", "s2/sub-0:3", "s3/sub-0:[1, 3]"), received());
+        assertEquals(LiveStreamService.RAW_PACKETS_TOPIC, SimpMessageHeaderAccessor.getDestination(sent.get(2).getHeaders()));
+
+        sent.clear();
+        service.publishRaw(Map.of("srcIp", "10.0.0.9", "dstPort", 53, "seq", 4));
+        service.flushFrames();
+        assertEquals(List.of("s1/sub-0:4", "s2/sub-0:4", "s3/sub-0:[4]"), received().stream().sorted().toList());
+        assertEquals(5.0, registry.get("netwatch.stream.replayed").tag("stream", "ws").counter().count());
+    }
+
+    /** session/subscription:seq of every message sent, frames as a list of seqs */
+    private List<String> received() throws Exception {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < sent.size(); i++) {
+            JsonNode body = objectMapper.readTree((byte[]) sent.get(i).getPayload());
+            List<Integer> seqs = new ArrayList<>();
+            (body.isArray() ? body : List.of(body)).forEach(n -> seqs.add(n.get("seq").asInt()));
+            out.add(targets().get(i) + ":" + (body.isArray() ? seqs.toString() : seqs.get(0).toString()));
+        }
+        return out;
+    }
+
+    private List<Long> ids(String frame) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            objectMapper.readTree(frame).forEach(n -> ids.add(n.get("id").asLong()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    private static StreamProperties properties(int frameMaxEvents) {
+        StreamProperties props = new StreamProperties();
+        props.setFrameMaxEvents(frameMaxEvents);
+        return props;
+    }
+
+    private List<String> targets() {
+        return sent.stream().map(m -> SimpMessageHeaderAccessor.getSessionId(m.getHeaders()) + "/"
+                + SimpMessageHeaderAccessor.getSubscriptionId(m.getHeaders())).toList();
+    }
+
+    private static Message<byte[]> subscribe(String session, String subscription, Map<String, String> filter) {
+        return subscribe(session, subscription, LiveStreamService.RAW_PACKETS_DESTINATION, filter);
+    }
+
+    private static Message<byte[]> subscribe(String session, String subscription, String destination,
+                                             Map<String, String> filter) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(session);
+        headers.setSubscriptionId(subscription);
+        headers.setDestination(destination);
+        filter.forEach(headers::setNativeHeader);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String session, String subscription) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(session);
+        if (subscription != null) headers.setSubscriptionId(subscription);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Packet packet(long id, String agentId, int dstPort) {
+        Packet p = new Packet();
+        p.setId(id);
+        p.setAgentId(agentId);
+        p.setSrcIp("10.0.0.5");
+        p.setDstIp("142.250.183.4");
+        p.setSrcPort(51_000);
+        p.setDstPort(dstPort);
+        p.setProtocol("6");
+        return p;
+    }
+}
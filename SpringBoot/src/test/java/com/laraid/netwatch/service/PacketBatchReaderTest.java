@@ -0,0 +1,149 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.entity.Packet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketBatchReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PacketMapper packetMapper = new PacketMapper();
+    private final PacketBatchReader reader = new PacketBatchReader(objectMapper, packetMapper);
+
+    @Test
+    void mapsFieldsAndAppliesBatchDefaults() throws IOException {
+        String json = """
+                {"agentId":"agent-1","hostName":"host-1","interfaceName":"eth0","ignored":{"a":[1,2]},
+                 "packets":[
+                   {"timestamp":"2026-10-18T10:00:00","srcIp":"10.0.0.5","dstIp":"10.0.0.9","protocol":"6",
+                    "srcPort":51000,"dstPort":443,"seq":4294967296,"tcpFlags":"PA","length":"60",
+                    "payload":"a\\u0000b","extra":[1]},
+                   {"agentId":"agent-2","srcIp":"10.0.0.6","ttl":null,"dnsAnswer":{"nested":true},
+                    "rawPayload":"AAH/","payloadLength":1500}
+                 ]}""";
+
+        List<Packet> out = new ArrayList<>();
+        PacketBatchReader.Result result = reader.read(stream(json), 10, out::addAll);
+
+        assertTrue(result.completed());
+        assertEquals(2, result.packets());
+        Packet first = out.get(0);
+        assertEquals("agent-1", first.getAgentId());
+        assertEquals("host-1", first.getHostName());
+        assertEquals("eth0", first.getInterfaceName());
+        assertEquals(443, first.getDstPort());
+        assertEquals(4294967296L, first.getSeq());
+        assertEquals(60, first.getLength());
+        assertArrayEquals(new byte[]{'a', 0, 'b'}, first.getRawPayload(), "payload bytes are kept, NUL included");
+
+        Packet second = out.get(1);
+        assertEquals("agent-2", second.getAgentId());
+        assertEquals("host-1", second.getHostName());
+        assertNull(second.getDstPort(), "scratch DTO must be reset between packets");
+        assertNull(second.getDnsAnswer());
+        assertArrayEquals(new byte[]{0, 1, (byte) 0xff}, second.getRawPayload());
+        assertEquals(1500, second.getPayloadLength());
+    }
+
+    @Test
+    void handsOffInChunksAndStopsWhenSinkRefuses() throws IOException {
+        String json = batchJson(25);
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        PacketBatchReader.Result all = reader.read(stream(json), 10, chunk -> chunkSizes.add(chunk.size()));
+        assertEquals(List.of(10, 10, 5), chunkSizes);
+        assertEquals(25, all.packets());
+
+        int[] calls = {0};
+        PacketBatchReader.Result stopped = reader.read(stream(json), 10, chunk -> ++calls[0] < 2);
+        assertFalse(stopped.completed());
+        assertEquals(10, stopped.packets());
+    }
+
+    @Test
+    void rejectsMalformedNumbersInsteadOfReadingZero() {
+        // JsonProcessingException is what PacketController answers with 400
+        for (String bad : List.of("\"dstPort\":\"https\"", "\"ttl\":true", "\"srcPort\":4294967296", "\"seq\":\"1e3x\"")) {
+            String json = "{\"agentId\":\"agent-1\",\"packets\":[{\"srcIp\":\"10.0.0.5\"," + bad + "}]}";
+            assertThrows(JsonProcessingException.class, () -> reader.read(stream(json), 10, chunk -> true), bad);
+        }
+        String notABatch = "[{\"srcIp\":\"10.0.0.5\"}]";
+        assertThrows(JsonProcessingException.class, () -> reader.read(stream(notABatch), 10, chunk -> true));
+    }
+
+    @Test
+    void acceptsNumericStringsLikeDatabind() throws IOException {
+        String json = "{\"agentId\":\"agent-1\",\"packets\":[{\"dstPort\":\" 443 \",\"ttl\":\"\",\"seq\":\"4294967296\"}]}";
+        List<Packet> out = new ArrayList<>();
+        reader.read(stream(json), 10, out::addAll);
+
+        assertEquals(443, out.get(0).getDstPort());
+        assertNull(out.get(0).getTtl());
+        assertEquals(4294967296L, out.get(0).getSeq());
+    }
+
+    @Test
+    void allocatesLessThanMaterializingTheBatch() throws IOException {
+        int packets = 5_000;
+        byte[] body = batchJson(packets).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 5; i++) {   // warm up both paths
+            materialize(body);
+            reader.read(new ByteArrayInputStream(body), 500, chunk -> true);
+        }
+
+        long materialized = allocatedBytes(() -> materialize(body));
+        long streamed = allocatedBytes(() -> reader.read(new ByteArrayInputStream(body), 500, chunk -> true));
+
+        assertTrue(streamed < materialized, "allocated bytes/packet: materialized=" + materialized / packets
+                + " streamed=" + streamed / packets);
+    }
+
+    private void materialize(byte[] body) throws IOException {
+        PacketBatchDTO batch = objectMapper.readValue(body, PacketBatchDTO.class);
+        batch.getPackets().forEach(d -> packetMapper.map(d, batch));
+    }
+
+    private interface IoRunnable {
+        void run() throws IOException;
+    }
+
+    private static long allocatedBytes(IoRunnable r) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = mx.getCurrentThreadAllocatedBytes();
+        r.run();
+        return mx.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    static String batchJson(int packets) {
+        StringBuilder sb = new StringBuilder("{\"agentId\":\"agent-1\",\"hostName\":\"host-1\",\"packets\":[");
+        for (int i = 0; i < packets; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"timestamp\":\"2026-10-18T10:00:00.").append(100000 + i).append("\",")
+                    .append("\"srcIp\":\"10.0.0.").append(i % 250).append("\",\"dstIp\":\"192.168.1.10\",")
+                    .append("\"protocol\":\"6\",\"srcPort\":").append(40000 + i % 1000)
+                    .append(",\"dstPort\":443,\"tcpFlags\":\"PA\",\"length\":").append(60 + i % 1400)
+                    .append(",\"payload\":\"GET /index.html HTTP/1.1\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,139 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.dto.PacketBatchDTO;
+import com.laraid.netwatch.dto.PacketDTO;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketBatchSmileEncoderTest {
+
+    // agents drop absent keys, so compare against JSON without nulls
+    private final ObjectMapper json = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final PacketBatchReader reader = new PacketBatchReader(json, new PacketMapper());
+    private final PacketBatchSmileEncoder encoder = new PacketBatchSmileEncoder();
+
+    @Test
+    void smileBatchDecodesToSamePacketsAsJson() throws IOException {
+        PacketBatchDTO batch = batch(300);
+        batch.setEpoch(1760000000000L);
+        batch.setBatchSeq(42L);
+        byte[] smileBody = encoder.encode(batch);
+
+        List<Packet> fromJson = new ArrayList<>();
+        List<Packet> fromSmile = new ArrayList<>();
+        reader.read(new ByteArrayInputStream(json.writeValueAsBytes(batch)), 100, fromJson::addAll);
+        PacketBatchReader.ChunkSink sink = claiming(fromSmile);
+        PacketBatchReader.Result result = reader.read(new ByteArrayInputStream(smileBody), PacketBatchReader.SMILE, 100, sink);
+        PacketBatchReader.Result replay = reader.read(new ByteArrayInputStream(smileBody), PacketBatchReader.SMILE, 100, sink);
+
+        assertTrue(result.completed());
+        assertFalse(result.skipped());
+        assertEquals("agent-laptop-01", result.header().getAgentId());
+        assertEquals(1760000000000L, result.header().getEpoch());
+        assertEquals(42L, result.header().getBatchSeq());
+        assertTrue(replay.skipped());
+        assertEquals(300, fromSmile.size());
+        for (int i = 0; i < fromJson.size(); i++) {
+            fromJson.get(i).setReceivedAt(null);
+            fromSmile.get(i).setReceivedAt(null);
+            assertEquals(fromJson.get(i), fromSmile.get(i));
+        }
+        assertArrayEquals(batch.getPackets().get(10).getRawPayload(), fromSmile.get(10).getRawPayload());
+        assertEquals(1460, fromSmile.get(10).getPayloadLength());
+    }
+
+    @Test
+    void smileIsSmallerThanJson() throws IOException {
+        int packets = 2_000;
+        PacketBatchDTO batch = batch(packets);
+        int jsonBytes = json.writeValueAsBytes(batch).length;
+        int smileBytes = encoder.encode(batch).length;
+
+        assertTrue(smileBytes < jsonBytes,
+                "bytes/packet: json=" + jsonBytes / packets + " smile=" + smileBytes / packets);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+    void decodeSpeedJsonVsSmile() throws IOException {
+        int packets = 2_000;
+        PacketBatchDTO batch = batch(packets);
+        double jsonNs = decodeNanos(json.writeValueAsBytes(batch), null) / packets;
+        double smileNs = decodeNanos(encoder.encode(batch), PacketBatchReader.SMILE) / packets;
+
+        System.out.printf("decode ns/packet: json=%.0f smile=%.0f%n", jsonNs, smileNs);
+    }
+
+    /** collects packets, declining batches the sequence tracker has already seen */
+    private PacketBatchReader.ChunkSink claiming(List<Packet> out) {
+        BatchSequenceTracker tracker = new BatchSequenceTracker(new IngestProperties(), new SimpleMeterRegistry());
+        return new PacketBatchReader.ChunkSink() {
+            @Override
+            public boolean accept(List<Packet> chunk) {
+                return out.addAll(chunk);
+            }
+
+            @Override
+            public boolean begin(PacketBatchDTO header) {
+                return tracker.claim(header);
+            }
+        };
+    }
+
+    private double decodeNanos(byte[] body, org.springframework.http.MediaType type) throws IOException {
+        for (int i = 0; i < 50; i++) {
+            reader.read(new ByteArrayInputStream(body), type, 500, chunk -> true);
+        }
+        int rounds = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            reader.read(new ByteArrayInputStream(body), type, 500, chunk -> true);
+        }
+        return (System.nanoTime() - start) / (double) rounds;
+    }
+
+    private static PacketBatchDTO batch(int packets) {
+        List<PacketDTO> list = new ArrayList<>(packets);
+        for (int i = 0; i < packets; i++) {
+            PacketDTO d = new PacketDTO();
+            d.setTimestamp("2026-10-18T10:00:00." + (100000 + i));
+            d.setSrcMAC("3c:52:82:1a:0b:" + String.format("%02x", i % 8));
+            d.setDstMAC("f4:8e:38:aa:10:01");
+            d.setSrcIp("10.0.0." + (i % 16));
+            d.setDstIp("142.250.183." + (i % 4));
+            d.setProtocol("6");
+            d.setTtl(64);
+            d.setSrcPort(40000 + i % 200);
+            d.setDstPort(443);
+            d.setSeq(1_000_000L + i * 1460L);
+            d.setTcpFlags(i % 3 == 0 ? "A" : "PA");
+            d.setLength(60 + i % 1400);
+            if (i % 10 == 0) {
+                // not valid UTF-8: only rawPayload keeps these bytes
+                d.setRawPayload(new byte[]{0x16, 0x03, 0x01, (byte) 0xff, (byte) 0xc3, 0x00, (byte) i});
+                d.setPayloadLength(1460);
+            }
+            d.setPacketType("TCP");
+            d.setAgentId("agent-laptop-01");
+            d.setHostName("laptop-01");
+            d.setInterfaceName("Wi-Fi");
+            list.add(d);
+        }
+        return new PacketBatchDTO("agent-laptop-01", "laptop-01", "Wi-Fi", list);
+    }
+}
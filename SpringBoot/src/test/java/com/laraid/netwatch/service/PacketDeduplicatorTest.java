@@ -0,0 +1,73 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.DedupProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PacketDeduplicatorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PacketDeduplicator dedup = new PacketDeduplicator(props(), registry, now::get);
+
+    @Test
+    void dropsCopyReportedByAnotherAgent() {
+        List<Packet> first = List.of(packet("a", 1, "2026-10-18T10:00:00.100"), packet("a", 2, "2026-10-18T10:00:00.200"));
+        assertSame(first, dedup.filter(first));
+
+        // sensor b saw the same two packets (its clock differs below the second) plus one of its own
+        List<Packet> kept = dedup.filter(List.of(
+                packet("b", 1, "2026-10-18T10:00:00.130"),
+                packet("b", 2, "2026-10-18T10:00:00.230"),
+                packet("b", 3, "2026-10-18T10:00:00.300")));
+
+        assertEquals(1, kept.size());
+        assertEquals(3L, kept.get(0).getSeq());
+        assertEquals(2, registry.get("netwatch.dedup.packets.suppressed").counter().count());
+    }
+
+    @Test
+    void keepsSameAgentRepeatsAndDifferentTuples() {
+        dedup.filter(List.of(packet("a", 1, "2026-10-18T10:00:00.100")));
+        assertEquals(1, dedup.filter(List.of(packet("a", 1, "2026-10-18T10:00:00.100"))).size());
+        assertEquals(1, dedup.filter(List.of(packet("b", 1, "2026-10-18T10:00:01.100"))).size());
+    }
+
+    @Test
+    void forgetsFingerprintsAfterTwoWindows() {
+        dedup.filter(List.of(packet("a", 1, "2026-10-18T10:00:00.100")));
+        now.addAndGet(1_500);
+        assertEquals(0, dedup.filter(List.of(packet("b", 1, "2026-10-18T10:00:00.100"))).size());
+        now.addAndGet(2_500);
+        assertEquals(1, dedup.filter(List.of(packet("c", 1, "2026-10-18T10:00:00.100"))).size());
+    }
+
+    private static Packet packet(String agent, long seq, String timestamp) {
+        Packet p = new Packet();
+        p.setAgentId(agent);
+        p.setSrcIp("10.0.0.5");
+        p.setDstIp("142.250.183.4");
+        p.setSrcPort(40123);
+        p.setDstPort(443);
+        p.setProtocol("6");
+        p.setSeq(seq);
+        p.setLength(60);
+        p.setTimestamp(timestamp);
+        return p;
+    }
+
+    private static DedupProperties props() {
+        DedupProperties props = new DedupProperties();
+        props.setEnabled(true);
+        props.setWindowMs(1_000);
+        props.setSlots(1024);
+        return props;
+    }
+}
@@ -0,0 +1,163 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketIngestionQueueTest {
+
+    private final IngestProperties props = new IngestProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Packet> written = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PacketIngestionQueue queue;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        if (queue != null) queue.stop();
+    }
+
+    @Test
+    void refusesWhatDoesNotFitSoTheAgentGets429() {
+        props.setQueueCapacity(10);
+        props.setWorkers(1);
+        queue = start(this::blockedWrite);
+
+        assertTrue(queue.offer(packets(6)));
+        assertFalse(queue.offer(packets(5)));
+        assertTrue(queue.offer(packets(4)));
+        assertFalse(queue.offer(packets(1)));
+
+        assertEquals(10, queue.depth());
+        assertEquals(10, count("netwatch.ingest.packets.accepted"));
+        assertEquals(6, count("netwatch.ingest.packets.rejected"));
+    }
+
+    @Test
+    void releasesCapacityOnceWritten() throws InterruptedException {
+        props.setQueueCapacity(10);
+        props.setWorkers(1);
+        queue = start(this::blockedWrite);
+        assertTrue(queue.offer(packets(25)));   // an oversized chunk takes the whole queue, never more
+        assertFalse(queue.offer(packets(1)));
+
+        release.countDown();
+
+        assertTrue(queue.offer(packets(10), 5_000));
+        awaitWritten(35);
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void releasesCapacityAndCountsPacketsWhenAWriteFails() throws InterruptedException {
+        props.setQueueCapacity(10);
+        props.setWorkers(1);
+        queue = start(rows -> {
+            throw new IllegalStateException("database down");
+        });
+
+        assertTrue(queue.offer(packets(10)));
+        assertTrue(queue.offer(packets(10), 5_000));   // room again once the failed write gave it back
+        queue.stop();
+
+        assertEquals(20, count("netwatch.ingest.packets.failed"));
+        assertEquals(0, count("netwatch.ingest.packets.drained"));
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void drainsWhatWasAcceptedOnShutdown() throws InterruptedException {
+        props.setQueueCapacity(1_000);
+        props.setWorkers(2);
+        props.setMaxRowsPerWrite(10);
+        queue = start(rows -> {
+            sleep(5);
+            written.addAll(rows);
+        });
+        for (int i = 0; i < 20; i++) {
+            assertTrue(queue.offer(packets(10)));
+        }
+
+        queue.stop();
+
+        assertEquals(200, written.size());
+        assertEquals(200, count("netwatch.ingest.packets.drained"));
+        assertFalse(queue.offer(packets(1)));   // stopped: refused, not silently lost
+    }
+
+    @Test
+    void countsWhatAShutdownTimeoutDrops() throws InterruptedException {
+        props.setQueueCapacity(100);
+        props.setWorkers(1);
+        props.setMaxRowsPerWrite(10);
+        props.setShutdownTimeoutMs(100);
+        queue = start(this::blockedWrite);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(packets(10)));
+        }
+        sleep(props.getPollTimeoutMs() * 4);   // the worker has taken one chunk and is stuck writing it
+
+        queue.stop();
+
+        // the four chunks still queued; the interrupted write adds its own 10 as it fails
+        assertTrue(count("netwatch.ingest.packets.failed") >= 40);
+    }
+
+    private PacketIngestionQueue start(Consumer<List<Packet>> writer) {
+        PacketIngestionQueue q = new PacketIngestionQueue(writer, props, registry);
+        q.start();
+        return q;
+    }
+
+    private void blockedWrite(List<Packet> rows) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+        written.addAll(rows);
+    }
+
+    private void awaitWritten(int rows) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.size() < rows && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(rows, written.size());
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Packet> packets(int n) {
+        List<Packet> packets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            packets.add(new Packet());
+        }
+        return packets;
+    }
+}
@@ -0,0 +1,130 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.IngestProperties;
+import com.laraid.netwatch.dto.PacketDTO;
+import com.laraid.netwatch.entity.Packet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketMapperTest {
+
+    @Test
+    void cleanReturnsSameInstanceWithoutNulBytes() {
+        String plain = "GET / HTTP/1.1";
+        assertSame(plain, PacketMapper.clean(plain));
+        assertEquals("ab", PacketMapper.clean("a\u0000b\u0000"));
+    }
+
+    @Test
+    void sharesInstancesAcrossPacketsAndReportsHitRatio() {
+        PacketMapper mapper = new PacketMapper();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        mapper.bindTo(registry);
+
+        Packet a = mapper.map(dto(1));
+        Packet b = mapper.map(dto(1));
+
+        assertSame(a.getAgentId(), b.getAgentId());
+        assertSame(a.getSrcMAC(), b.getSrcMAC());
+        assertSame(a.getSrcIp(), b.getSrcIp());
+        assertSame(a.getTcpFlags(), b.getTcpFlags());
+        assertTrue(registry.get("netwatch.mapper.dictionary.hit.ratio").tag("dictionary", "macs").gauge().value() > 0);
+    }
+
+    @Test
+    void payloadBytesAreKeptExactlyUpToTheLimit() {
+        IngestProperties props = new IngestProperties();
+        props.setMaxPayloadBytes(4);
+        PacketMapper mapper = new PacketMapper(props);
+
+        PacketDTO binary = dto(1);
+        binary.setRawPayload(new byte[]{0x16, 0x00, (byte) 0xFF, 0x03, 0x01, 0x02});
+        binary.setPayloadLength(1400);
+        Packet p = mapper.map(binary);
+        assertArrayEquals(new byte[]{0x16, 0x00, (byte) 0xFF, 0x03}, p.getRawPayload());
+        assertEquals(1400, p.getPayloadLength());
+
+        PacketDTO legacy = dto(2);
+        legacy.setPayload("GET /");
+        Packet q = mapper.map(legacy);
+        assertArrayEquals("GET ".getBytes(StandardCharsets.UTF_8), q.getRawPayload());
+        assertEquals(5, q.getPayloadLength());
+    }
+
+    @Test
+    void internsOnlyWhenEnabled() {
+        PacketMapper interning = new PacketMapper(props(true));
+        Packet a = interning.map(dto(1));
+        Packet b = interning.map(dto(1));
+        assertSame(a.getHostName(), b.getHostName());
+        assertSame(a.getDstMAC(), b.getDstMAC());
+        assertSame(a.getPacketType(), b.getPacketType());
+
+        PacketMapper plain = new PacketMapper(props(false));
+        Packet c = plain.map(dto(1));
+        Packet d = plain.map(dto(1));
+        assertEquals(c.getHostName(), d.getHostName());
+        assertNotSame(c.getHostName(), d.getHostName());
+        assertNotSame(c.getDstMAC(), d.getDstMAC());
+    }
+
+    // heap measured through System.gc(): a rough number for comparing layouts, not a default-run check
+    @Test
+    @EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+    void internedPacketsRetainLessHeap() {
+        int packets = 50_000;
+        long plain = retainedBytes(new PacketMapper(props(false)), packets);
+        long interned = retainedBytes(new PacketMapper(props(true)), packets);
+
+        System.out.printf("retained bytes/packet: plain=%d interned=%d%n", plain / packets, interned / packets);
+        assertTrue(interned < plain);
+    }
+
+    private static long retainedBytes(PacketMapper mapper, int packets) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        List<Packet> retained = new ArrayList<>(packets);
+        for (int i = 0; i < packets; i++) {
+            retained.add(mapper.map(dto(i)));
+        }
+        System.gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+        assertEquals(packets, retained.size());
+        return after - before;
+    }
+
+    private static IngestProperties props(boolean intern) {
+        IngestProperties props = new IngestProperties();
+        props.setInternStrings(intern);
+        return props;
+    }
+
+    /** fresh String instances per call, like a JSON parser produces */
+    private static PacketDTO dto(int i) {
+        PacketDTO d = new PacketDTO();
+        d.setAgentId(new String("agent-laptop-01"));
+        d.setHostName(new String("laptop-01"));
+        d.setInterfaceName(new String("Wi-Fi"));
+        d.setSrcMAC(new String("3c:52:82:1a:0b:" + (10 + i % 8)));
+        d.setDstMAC(new String("f4:8e:38:aa:10:01"));
+        d.setSrcIp("10.0.0." + (i % 32));
+        d.setDstIp("142.250.183." + (i % 8));
+        d.setProtocol(new String("6"));
+        d.setTcpFlags(new String("PA"));
+        d.setPacketType(new String("TCP"));
+        d.setDstPort(443);
+        return d;
+    }
+}
@@ -0,0 +1,159 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.KafkaTopicProperties;
+import com.laraid.netwatch.config.PublishProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.utils.PacketBinarySerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketPublisherTest {
+
+    // KafkaTemplate closes its producer after each send; a real (cached) one survives that, MockProducer does not
+    private final MockProducer<String, Packet> producer =
+            new MockProducer<>(false, new StringSerializer(), new PacketBinarySerializer()) {
+                @Override
+                public void close(Duration timeout) {
+                }
+
+                @Override
+                public synchronized Future<RecordMetadata> send(ProducerRecord<String, Packet> record, Callback callback) {
+                    sends.incrementAndGet();
+                    return super.send(record, callback);
+                }
+            };
+    private final AtomicInteger sends = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PublishProperties props = new PublishProperties();
+
+    private PacketPublisher publisher() {
+        KafkaTopicProperties topics = new KafkaTopicProperties();
+        topics.setLivePacketEvents("packet-events");
+        props.setRetryBackoffMs(0);
+        return new PacketPublisher(new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)), topics, props, registry);
+    }
+
+    @Test
+    void sendsTheBatchAndTracksAcknowledgements() {
+        PacketPublisher publisher = publisher();
+
+        assertTrue(publisher.publish(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2"), packet(3, "10.0.0.1"))));
+        assertEquals(3, producer.history().size());
+        assertEquals("10.0.0.1", producer.history().get(0).key());
+        assertEquals(3, publisher.inflight());
+
+        while (producer.completeNext()) {
+            // acknowledge everything
+        }
+        assertEquals(0, publisher.inflight());
+        assertEquals(3, registry.get("netwatch.publish.records").counter().count());
+        assertEquals(3, registry.get("netwatch.publish.latency").timer().count());
+        assertEquals(3, registry.get("netwatch.publish.bytes").summary().count());
+    }
+
+    @Test
+    void retriesRetriableErrorsAndCountsTheRest() throws Exception {
+        PacketPublisher publisher = publisher();
+        publisher.publish(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2")));
+
+        producer.errorNext(new TimeoutException("expired"));          // packet 1: sent again
+        producer.errorNext(new RecordTooLargeException("too big"));   // packet 2: given up at once
+        await(() -> producer.history().size() == 3);
+        assertEquals(1L, producer.history().get(2).value().getId());
+        assertTrue(producer.completeNext());
+
+        assertEquals(0, publisher.inflight());
+        assertEquals(1, registry.get("netwatch.publish.retries").counter().count());
+        assertEquals(1, registry.get("netwatch.publish.records").counter().count());
+        assertEquals(1, registry.get("netwatch.publish.errors").tag("exception", "RecordTooLargeException").counter().count());
+    }
+
+    @Test
+    void dropsBatchesBeyondTheUnacknowledgedLimit() {
+        props.setMaxPendingRecords(2);
+        props.setOverflow(PublishProperties.Overflow.DROP);
+        PacketPublisher publisher = publisher();
+
+        assertTrue(publisher.publish(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2"))));
+        assertFalse(publisher.publish(List.of(packet(3, "10.0.0.3"))));
+        assertEquals(1, registry.get("netwatch.publish.dropped").counter().count());
+
+        producer.completeNext();
+        producer.completeNext();
+        assertTrue(publisher.publish(List.of(packet(4, "10.0.0.4"))));
+        assertEquals(3, producer.history().size());
+    }
+
+    @Test
+    void sendCompletesOnceEveryRecordIsAcknowledged() throws Exception {
+        PacketPublisher publisher = publisher();
+
+        CompletableFuture<Void> ok = publisher.send(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2")));
+        producer.completeNext();
+        assertFalse(ok.isDone());
+        producer.completeNext();
+        assertTrue(ok.isDone() && !ok.isCompletedExceptionally());
+
+        CompletableFuture<Void> failed = publisher.send(List.of(packet(3, "10.0.0.3"), packet(4, "10.0.0.4")));
+        producer.errorNext(new RecordTooLargeException("too big"));
+        producer.completeNext();
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(RecordTooLargeException.class, e.getCause());
+        assertEquals(0, publisher.inflight());
+    }
+
+    /** with no broker each send() blocks max.block.ms; a batch must not pay that once per record */
+    @Test
+    void failsTheRestOfABatchAfterABlockedSend() {
+        props.setRetries(0);
+        PacketPublisher publisher = publisher();
+        producer.sendException = new TimeoutException("Topic packet-events not present in metadata after 1000 ms.");
+
+        assertTrue(publisher.publish(List.of(packet(1, "10.0.0.1"), packet(2, "10.0.0.2"), packet(3, "10.0.0.3"))));
+
+        assertEquals(1, sends.get());
+        assertEquals(0, publisher.inflight());
+        assertEquals(3, registry.get("netwatch.publish.errors").tag("exception", "TimeoutException").counter().count());
+    }
+
+    private static Packet packet(long id, String srcIp) {
+        Packet p = new Packet();
+        p.setId(id);
+        p.setSrcIp(srcIp);
+        p.setDstIp("142.250.183.4");
+        p.setDstPort(443);
+        p.setAgentId("agent-1");
+        return p;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,101 @@
+package com.laraid.netwatch.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laraid.netwatch.config.HotTierProperties;
+import com.laraid.netwatch.config.PartitionProperties;
+import com.laraid.netwatch.config.PersistenceProperties;
+import com.laraid.netwatch.dto.PacketCursor;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketHotTier;
+import com.laraid.netwatch.repo.PacketPartitionManager;
+import com.laraid.netwatch.repo.PacketPayloadStore;
+import com.laraid.netwatch.repo.PacketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Keyset pages against the configured PostgreSQL: walking the cursors visits every row once,
+ * newest first, even when rows arrive between pages. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PartitionProperties.class, PersistenceProperties.class, PacketPartitionManager.class,
+        PacketPayloadStore.class, HotTierProperties.class, PacketHotTier.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class, PacketQueryService.class})
+@TestPropertySource(properties = "netwatch.hot-tier.enabled=false")
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketQueryServiceTest {
+
+    @Autowired
+    private PacketQueryService queryService;
+
+    @Autowired
+    private PacketRepository packetRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cursorsWalkHistoryWithoutGapsOrRepeats() throws IOException {
+        // same receivedAt for several rows, so the id tiebreak is exercised across page boundaries
+        LocalDateTime base = LocalDateTime.now().plusMinutes(1);
+        List<Packet> packets = new ArrayList<>();
+        for (int i = 0; i < 25; i++) packets.add(packet(base.plusNanos((i / 4) * 1_000L)));
+        packetRepository.bulkInsert(packets);
+        List<Long> expected = packets.stream().map(Packet::getId)
+                .sorted((a, b) -> {
+                    Packet pa = byId(packets, a), pb = byId(packets, b);
+                    int c = pb.getReceivedAt().compareTo(pa.getReceivedAt());
+                    return c != 0 ? c : Long.compare(b, a);
+                }).toList();
+
+        List<Long> seen = new ArrayList<>();
+        PacketCursor cursor = null;
+        for (int page = 0; page < 3; page++) {
+            AtomicReference<PacketCursor> next = new AtomicReference<>();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            queryService.writePage(null, cursor, 10, n -> {
+                next.set(n);
+                return body;
+            });
+            for (JsonNode node : objectMapper.readTree(body.toByteArray())) seen.add(node.get("id").asLong());
+            if (page == 0) packetRepository.bulkInsert(List.of(packet(base.plusSeconds(5))));   // newer: must not shift later pages
+            cursor = next.get();
+            if (page < 2) assertNotNull(cursor);
+        }
+
+        assertEquals(expected, seen.subList(0, 25));
+    }
+
+    private static Packet byId(List<Packet> packets, long id) {
+        return packets.stream().filter(p -> p.getId() == id).findFirst().orElseThrow();
+    }
+
+    private static Packet packet(LocalDateTime receivedAt) {
+        Packet p = new Packet();
+        p.setSrcIp("10.0.0.9");
+        p.setDstIp("10.0.0.1");
+        p.setProtocol("6");
+        p.setAgentId("agent-page");
+        p.setReceivedAt(receivedAt);
+        return p;
+    }
+}
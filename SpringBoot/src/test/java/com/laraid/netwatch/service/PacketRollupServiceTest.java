@@ -0,0 +1,58 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.RollupProperties;
+import com.laraid.netwatch.entity.Packet;
+import com.laraid.netwatch.repo.PacketRollupRepository.Key;
+import com.laraid.netwatch.repo.PacketRollupRepository.Level;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PacketRollupServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 10, 18, 10, 15, 0);
+
+    private final PacketRollupService service = new PacketRollupService(null, new RollupProperties());
+
+    @Test
+    void countsPacketsAndBytesPerMinuteAndKey() {
+        service.add(List.of(
+                packet(T.plusSeconds(1), "agent-1", "TCP", "10.0.0.5", 443, 60),
+                packet(T.plusSeconds(59), "agent-1", "6", "10.0.0.5", 443, 1_500),
+                packet(T.plusSeconds(61), "agent-1", "6", "10.0.0.5", 443, 40)));
+        service.add(List.of(
+                packet(T.plusSeconds(2), "agent-1", "6", "10.0.0.5", 443, 100),
+                packet(T, null, null, "not-an-ip", null, null)));
+
+        Map<Key, long[]> pending = service.pending();
+        assertEquals(3, pending.size());
+        assertArrayEquals(new long[]{3, 1_660}, pending.get(new Key(T, "agent-1", (short) 6, "10.0.0.5", 443)));
+        assertArrayEquals(new long[]{1, 40}, pending.get(new Key(T.plusMinutes(1), "agent-1", (short) 6, "10.0.0.5", 443)));
+        assertArrayEquals(new long[]{1, 0}, pending.get(new Key(T, "", (short) -1, "0.0.0.0/0", -1)));
+    }
+
+    @Test
+    void levelFollowsTheRangeAndRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(Level.MINUTE, service.level(now.minusHours(1), now));
+        assertEquals(Level.HOUR, service.level(now.minusDays(1), now));
+        assertEquals(Level.HOUR, service.level(now.minusDays(3), now.minusDays(3).plusHours(1)), "minute rows already purged");
+        assertEquals(Level.DAY, service.level(now.minusDays(30), now));
+    }
+
+    private static Packet packet(LocalDateTime receivedAt, String agent, String protocol, String srcIp, Integer dstPort, Integer length) {
+        Packet p = new Packet();
+        p.setReceivedAt(receivedAt);
+        p.setAgentId(agent);
+        p.setProtocol(protocol);
+        p.setSrcIp(srcIp);
+        p.setDstPort(dstPort);
+        p.setLength(length);
+        return p;
+    }
+}
@@ -0,0 +1,130 @@
+package com.laraid.netwatch.service;
+
+import com.laraid.netwatch.config.StreamProperties.Overflow;
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.dto.StreamSubscriberStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriberBufferTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SubscriberBuffer.Meters meters = new SubscriberBuffer.Meters(registry.counter("delivered"),
+            registry.counter("dropped"), registry.counter("disconnects"));
+
+    @Test
+    void aSlowSubscriberLosesItsOldestItemsWithoutHoldingUpTheOthers() {
+        SubscriberBuffer<Integer> slow = new SubscriberBuffer<>(new StreamFilter(), false, 4, Overflow.DROP_OLDEST, 10, meters);
+        SubscriberBuffer<Integer> fast = new SubscriberBuffer<>(new StreamFilter(), false, 4, Overflow.DROP_OLDEST, 10, meters);
+        Reader reader = new Reader(0);
+        List<Integer> all = new ArrayList<>();
+        slow.flux(SubscriberBuffer.Replay::none, () -> { }).subscribe(reader);
+        fast.flux(SubscriberBuffer.Replay::none, () -> { }).subscribe(all::add);
+
+        IntStream.rangeClosed(1, 10).forEach(i -> {
+            slow.offer(i);
+            fast.offer(i);
+        });
+        assertEquals(IntStream.rangeClosed(1, 10).boxed().toList(), all);
+        assertEquals(4, slow.stats().lag());
+        assertEquals(6, slow.stats().dropped());
+
+        reader.take(10);
+        assertEquals(List.of(7, 8, 9, 10), reader.received);
+        StreamSubscriberStats stats = slow.stats();
+        assertEquals(0, stats.lag());
+        assertEquals(4, stats.delivered());
+        assertEquals(6.0, registry.counter("dropped").count());
+    }
+
+    @Test
+    void samplingKeepsEveryNthItemOnceFull() {
+        SubscriberBuffer<Integer> buffer = new SubscriberBuffer<>(new StreamFilter(), false, 2, Overflow.SAMPLE, 3, meters);
+        Reader reader = new Reader(0);
+        buffer.flux(SubscriberBuffer.Replay::none, () -> { }).subscribe(reader);
+
+        IntStream.rangeClosed(1, 11).forEach(buffer::offer);   // 1, 2 fit; of 3..11 only 5, 8, 11 get in
+        reader.take(10);
+        assertEquals(List.of(8, 11), reader.received);
+        assertEquals(9, buffer.stats().dropped());
+    }
+
+    @Test
+    void framesCountAsThePacketsTheyCarry() {
+        // each item stands for a frame of that many packets
+        SubscriberBuffer<Integer> buffer = new SubscriberBuffer<>(new StreamFilter(), true, 2, Overflow.DROP_OLDEST, 10,
+                meters, frame -> frame);
+        Reader reader = new Reader(0);
+        buffer.flux(SubscriberBuffer.Replay::none, () -> { }).subscribe(reader);
+
+        List.of(3, 4, 5).forEach(buffer::offer);   // the 3-packet frame is dropped
+        reader.take(10);
+
+        StreamSubscriberStats stats = buffer.stats();
+        assertEquals(List.of(4, 5), reader.received);
+        assertEquals(3, stats.dropped());
+        assertEquals(9, stats.delivered());
+        assertEquals(9.0, registry.counter("delivered").count());
+    }
+
+    @Test
+    void disconnectEndsOnlyThatSubscriber() {
+        List<String> events = new ArrayList<>();
+        SubscriberBuffer<Integer> buffer = new SubscriberBuffer<>(new StreamFilter(), true, 2, Overflow.DISCONNECT, 10, meters);
+        Reader reader = new Reader(1);
+        buffer.flux(() -> {
+            events.add("open");
+            return SubscriberBuffer.Replay.none();
+        }, () -> events.add("close")).subscribe(reader);
+
+        IntStream.rangeClosed(1, 4).forEach(buffer::offer);   // 1 sent, 2 and 3 buffered, 4 overflows
+        assertEquals(List.of(1), reader.received);
+        assertTrue(reader.completed);
+        assertEquals(List.of("open", "close"), events);
+        assertEquals(1.0, registry.counter("disconnects").count());
+
+        buffer.offer(5);   // publishers may still hold it for a moment: ignored
+        assertEquals(0, buffer.stats().lag());
+        assertFalse(reader.received.contains(5));
+    }
+
+    /** a client that reads only when told to */
+    private static final class Reader extends BaseSubscriber<Integer> {
+        final List<Integer> received = new ArrayList<>();
+        private final int initial;
+        boolean completed;
+
+        Reader(int initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initial > 0) request(initial);
+        }
+
+        @Override
+        protected void hookOnNext(Integer value) {
+            received.add(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+
+        void take(int n) {
+            request(n);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketBinaryCodecTest {
+
+    private final PacketBinarySerializer serializer = new PacketBinarySerializer();
+    private final PacketBinaryDeserializer deserializer = new PacketBinaryDeserializer();
+
+    static Packet tcp(long id) {
+        Packet p = new Packet();
+        p.setId(id);
+        p.setTimestamp("2026-10-18T10:00:00.123456");
+        p.setSrcMAC("3c:52:82:1a:0b:10");
+        p.setDstMAC("f4:8e:38:aa:10:01");
+        p.setSrcIp("192.168.29.10");
+        p.setDstIp("142.250.183.4");
+        p.setProtocol("TCP");
+        p.setTtl(64);
+        p.setIpFlags("DF");
+        p.setSrcPort(51_000);
+        p.setDstPort(443);
+        p.setSeq(3_000_000_000L + id);
+        p.setTcpFlags("PA");
+        p.setPayloadLength(1_408);
+        p.setPayload("GET / HTTP/1.1");
+        p.setTlsInfo("TLSv1.3 SNI=example.com");
+        p.setLength(1_460);
+        p.setPacketType("IPv4");
+        p.setAgentId("agent-laptop-01");
+        p.setHostName("laptop-01");
+        p.setInterfaceName("Wi-Fi");
+        p.setReceivedAt(LocalDateTime.of(2026, 10, 18, 10, 0, 1, 5_000));
+        return p;
+    }
+
+    @Test
+    void roundTripsEveryFieldAndNull() {
+        Packet full = tcp(42);
+        full.setArpOp("REQUEST");
+        full.setArpSrcIp("10.0.0.1");
+        full.setArpDstIp("10.0.0.254");
+        full.setUdpLen(-1);
+        full.setIcmpType(8);
+        full.setIcmpCode(0);
+        full.setDnsQueryName("例え.jp");
+        full.setDnsQueryType("A");
+        full.setDnsAnswer("93.184.216.34");
+        full.setHttpInfo("Host: example.com");
+
+        assertEquals(full, roundTrip(full));
+        assertEquals(new Packet(), roundTrip(new Packet()));
+    }
+
+    /** only exact re-spellings are packed; anything else travels as the text it was */
+    @Test
+    void keepsNonCanonicalValuesAsText() {
+        Packet p = tcp(7);
+        p.setSrcIp("fe80::1");
+        p.setDstIp("010.0.0.1");
+        p.setSrcMAC("3C-52-82-1A-0B-10");
+        p.setDstMAC("F4:8E:38:AA:10:01");
+        p.setTimestamp("2026-10-18T10:00:00.100");   // LocalDateTime prints .100, but this is a 3-digit fraction
+        Packet back = roundTrip(p);
+        assertEquals(p, back);
+
+        for (String time : new String[]{"2026-10-18T10:00:00+05:30", "2026-10-18T10:00:00", "2026-10-18T10:00:00.000",
+                "2026-10-18T10:00:00.120000", "2026-02-30T10:00:01", "2026-10-18T10:00", "2026-10-18T10:00:01.000000001"}) {
+            p.setTimestamp(time);
+            assertEquals(p, roundTrip(p));
+        }
+    }
+
+    @Test
+    void readsJsonAndRejectsUnknownVersions() {
+        Packet p = tcp(9);
+        byte[] json;
+        try (JsonSerializer<Packet> s = new JsonSerializer<>()) {
+            json = s.serialize("packet-events", p);
+        }
+        assertEquals(p, deserializer.deserialize("packet-events", json));
+
+        byte[] binary = serializer.serialize("packet-events", p);
+        assertTrue(binary.length * 3 < json.length);
+        binary[0] = 2;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("packet-events", binary));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("packet-events", Arrays.copyOf(serializer.serialize("packet-events", p), 20)));
+    }
+
+    @Test
+    void growsTheBufferForLargePayloads() {
+        Packet p = tcp(11);
+        p.setPayload("x".repeat(100_000));
+        assertEquals(p, roundTrip(p));
+        assertEquals(tcp(12), roundTrip(tcp(12)));   // same thread, grown buffer reused
+    }
+
+    private Packet roundTrip(Packet p) {
+        return deserializer.deserialize("packet-events", serializer.serialize("packet-events", p));
+    }
+}
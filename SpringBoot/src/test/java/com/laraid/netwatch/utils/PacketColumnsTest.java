@@ -0,0 +1,62 @@
+package com.laraid.netwatch.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketColumnsTest {
+
+    @Test
+    void inetParsesLiteralsOnly() {
+        assertArrayEquals(new byte[]{10, 0, 0, (byte) 255}, PacketColumns.inet("10.0.0.255"));
+        assertEquals(16, PacketColumns.inet("fe80::1").length);
+        assertNull(PacketColumns.inet("256.0.0.1"));
+        assertNull(PacketColumns.inet("10.0.0"));
+        assertNull(PacketColumns.inet("localhost"));
+    }
+
+    @Test
+    void cidrNeedsAPrefixValidForTheFamily() {
+        assertTrue(PacketColumns.isCidr("10.0.0.0/8"));
+        assertTrue(PacketColumns.isCidr("10.0.0.5/32"));
+        assertTrue(PacketColumns.isCidr("fd00::/8"));
+        assertFalse(PacketColumns.isCidr("10.0.0.0/33"));
+        assertFalse(PacketColumns.isCidr("10.0.0.5"));
+        assertFalse(PacketColumns.isCidr("host/8"));
+    }
+
+    @Test
+    void macIsSixBytes() {
+        assertArrayEquals(new byte[]{0x3c, 0x52, (byte) 0x82, 0x1a, 0x0b, 0x10}, PacketColumns.mac("3c:52:82:1a:0b:10"));
+        assertNull(PacketColumns.mac("3c:52:82:1a:0b"));
+        assertNull(PacketColumns.mac("zz:52:82:1a:0b:10"));
+    }
+
+    @Test
+    void protocolAndFlagsRoundTrip() {
+        assertEquals("6", PacketColumns.protocol(PacketColumns.protocol("6")));
+        assertEquals((short) 17, PacketColumns.protocol("udp"));
+        assertNull(PacketColumns.protocol("300"));
+        assertEquals((short) 0x18, PacketColumns.tcpFlags("PA"));
+        assertEquals("SA", PacketColumns.tcpFlags(PacketColumns.tcpFlags("SA")));
+        assertEquals("FSRPAUECN", PacketColumns.tcpFlags((short) 0x1FF));
+        assertEquals((short) 24, PacketColumns.tcpFlags("24"));
+    }
+
+    @Test
+    void captureTimeKeepsAgentWallClock() {
+        ZoneId zone = ZoneOffset.ofHoursMinutes(5, 30);
+        String agent = "2026-10-18T10:00:00.123456";
+        assertEquals(agent, PacketColumns.captureTime(PacketColumns.captureTime(agent, zone).toInstant(), zone));
+        assertEquals("2026-10-18T04:30:00Z", PacketColumns.captureTime("2026-10-18T10:00:00", zone).toInstant().toString());
+        assertEquals("2026-10-18T10:00:00Z", PacketColumns.captureTime("2026-10-18T10:00:00Z", zone).toInstant().toString());
+        assertNull(PacketColumns.captureTime("garbage", zone));
+    }
+}
@@ -0,0 +1,79 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.entity.Packet;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes/record and ns/record of the packet-events value serde: Spring's JsonSerializer /
+ * JsonDeserializer (type headers, as configured before) vs {@link PacketBinarySerializer} /
+ * {@link PacketBinaryDeserializer}, on the same synthetic packets. Runs only with {@code -Dnetwatch.bench=true}.
+ */
+@EnabledIfSystemProperty(named = "netwatch.bench", matches = "true")
+class PacketSerdeBenchmarkTest {
+
+    private static final int PACKETS = 100_000;
+    private static final String TOPIC = "packet-events";
+
+    @Test
+    void binaryIsSmallerAndFasterThanJson() {
+        List<Packet> packets = new ArrayList<>(PACKETS);
+        for (int i = 0; i < PACKETS; i++) {
+            Packet p = PacketBinaryCodecTest.tcp(i);
+            p.setSrcIp("10.0." + (i % 4) + "." + (i % 250));
+            p.setSrcPort(40_000 + i % 2_000);
+            p.setLength(60 + i % 1_400);
+            p.setPayload(i % 3 == 0 ? null : p.getPayload());
+            packets.add(p);
+        }
+        JsonSerializer<Packet> jsonOut = new JsonSerializer<>();
+        JsonDeserializer<Packet> jsonIn = new JsonDeserializer<>(Packet.class, false);
+        jsonIn.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        for (int round = 0; round < 3; round++) {   // first rounds warm up the JIT
+            run("json", packets, jsonOut, jsonIn, round);
+            run("binary", packets, new PacketBinarySerializer(), new PacketBinaryDeserializer(), round);
+        }
+        long[] json = run("json", packets, jsonOut, jsonIn, 3);
+        long[] binary = run("binary", packets, new PacketBinarySerializer(), new PacketBinaryDeserializer(), 3);
+        assertTrue(binary[0] * 3 < json[0]);
+        assertTrue(binary[1] + binary[2] < json[1] + json[2]);
+    }
+
+    /** bytes/record, serialize ns/record, deserialize ns/record */
+    private static long[] run(String name, List<Packet> packets, Serializer<Packet> out, Deserializer<Packet> in, int round) {
+        byte[][] records = new byte[packets.size()][];
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < records.length; i++) {
+            records[i] = out.serialize(TOPIC, packets.get(i));
+        }
+        long serialized = System.nanoTime();
+        for (byte[] r : records) {
+            bytes += r.length;
+        }
+        long matched = 0;
+        long read = System.nanoTime();
+        for (int i = 0; i < records.length; i++) {
+            if (in.deserialize(TOPIC, records[i]).getId() == i) matched++;
+        }
+        long done = System.nanoTime();
+        assertEquals(records.length, matched);
+
+        long[] result = {bytes / records.length, (serialized - start) / records.length, (done - read) / records.length};
+        System.out.printf("round %d %-6s bytes/record=%d serialize ns/record=%d deserialize ns/record=%d%n",
+                round, name, result[0], result[1], result[2]);
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.laraid.netwatch.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.laraid.netwatch.dto.PacketSummary;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketSummaryCodecTest {
+
+    private final PacketSummaryCodec codec = new PacketSummaryCodec(ZoneId.of("Asia/Kolkata"));
+
+    @Test
+    void roundTripsNormalizedLikeTheTypedColumns() {
+        PacketSummary tcp = new PacketSummary(42L, "2026-10-18T10:00:00.123456", LocalDateTime.of(2026, 10, 18, 10, 0, 1, 5_000),
+                "agent-1", "host-1", "eth0", "3C-52-82-1A-0B-10", "f4:8e:38:aa:10:01", "10.0.0.5", "fe80::1",
+                51_000, 443, "TCP", "TCP", "PA", 60, 0, null);
+        PacketSummary empty = new PacketSummary(7L, null, null, null, null, null, null, null, "not-an-ip", null,
+                -1, null, null, null, null, null, null, "example.com");
+
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        codec.write(tcp, buffer);
+        codec.write(empty, buffer);
+        buffer.flip();
+
+        assertEquals(new PacketSummary(42L, "2026-10-18T10:00:00.123456", tcp.receivedAt(), "agent-1", "host-1", "eth0",
+                "3c:52:82:1a:0b:10", "f4:8e:38:aa:10:01", "10.0.0.5", "fe80::1", 51_000, 443, "6", "TCP", "PA", 60, 0, null),
+                codec.read(buffer));
+        assertEquals(new PacketSummary(7L, null, null, null, null, null, null, null, null, null,
+                -1, null, null, null, null, null, null, "example.com"), codec.read(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void isSeveralTimesSmallerThanJson() throws Exception {
+        PacketSummary tcp = new PacketSummary(123_456_789L, "2026-10-18T10:00:00.123456", LocalDateTime.now(),
+                "agent-laptop-01", "laptop-01", "Wi-Fi", "3c:52:82:1a:0b:10", "f4:8e:38:aa:10:01", "192.168.29.10",
+                "142.250.183.4", 51_000, 443, "6", "TCP", "PA", 1_460, 1_408, null);
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        codec.write(tcp, buffer);
+        int json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsBytes(tcp).length;
+        assertTrue(buffer.position() * 3 < json, "summary bytes: binary=" + buffer.position() + " json=" + json);
+    }
+}
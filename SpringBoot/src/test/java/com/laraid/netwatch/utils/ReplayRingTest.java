@@ -0,0 +1,72 @@
+package com.laraid.netwatch.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReplayRingTest {
+
+    @Test
+    void keepsTheLastCapacityItemsInOrder() {
+        ReplayRing<String> ring = new ReplayRing<>(5);   // 8 slots, 5 readable
+        for (int i = 0; i < 13; i++) {
+            assertEquals(i, ring.append("p" + i));
+        }
+
+        assertEquals(13, ring.next());
+        assertEquals(List.of("p8", "p9", "p10", "p11", "p12"), items(ring.range(0, ring.next())));
+        assertEquals(List.of("p11", "p12"), items(ring.range(11, ring.next())));
+        assertEquals(List.of("p8", "p9"), items(ring.range(0, 10)));
+        assertEquals(List.of(), new ReplayRing<String>(0).range(0, 3));
+    }
+
+    /** while publishers append, a range is exactly the items below its bound, none missing */
+    @Test
+    void concurrentPublishersLeaveNoHoles() throws Exception {
+        ReplayRing<String> ring = new ReplayRing<>(200_000);   // never laps here: every hole would be a bug
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            publishers.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ring.append(thread + "/" + i);
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                long until = ring.next();
+                List<ReplayRing.Entry<String>> range = ring.range(until - 5_000, until);
+                if (range.size() != Math.min(until, 5_000)) failure.set(range.size() + " items below " + until);
+                for (int i = 0; i < range.size(); i++) {
+                    if (range.get(i).seq() != until - range.size() + i) failure.set("hole before " + range.get(i));
+                }
+            }
+        });
+        reader.start();
+        publishers.forEach(Thread::start);
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        List<ReplayRing.Entry<String>> all = ring.range(0, ring.next());
+        assertEquals(200_000, all.size());
+        assertEquals(200_000, Set.copyOf(items(all)).size());
+    }
+
+    private static List<String> items(List<ReplayRing.Entry<String>> entries) {
+        return entries.stream().map(ReplayRing.Entry::item).toList();
+    }
+}
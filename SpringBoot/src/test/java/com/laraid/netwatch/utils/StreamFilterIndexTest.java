@@ -0,0 +1,132 @@
+package com.laraid.netwatch.utils;
+
+import com.laraid.netwatch.dto.StreamFilter;
+import com.laraid.netwatch.utils.StreamFilterIndex.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamFilterIndexTest {
+
+    private static final Event HTTPS = new Event("agent-1", "10.0.0.5", "142.250.183.4", 51_000, 443, "6", "TCP");
+
+    @Test
+    void matchesEveryConditionInEitherDirection() {
+        StreamFilterIndex<String> index = new StreamFilterIndex<>();
+        index.add("all", filter(Map.of()));
+        index.add("agent", filter(Map.of("agentId", "agent-1")));
+        index.add("other-agent", filter(Map.of("agentId", "agent-2")));
+        index.add("host", filter(Map.of("ip", "10.0.0.5")));
+        index.add("dst-net", filter(Map.of("ip", "142.250.0.0/15")));
+        index.add("odd-prefix", filter(Map.of("ip", "10.0.0.4/31")));
+        index.add("other-net", filter(Map.of("ip", "192.168.0.0/16")));
+        index.add("v6", filter(Map.of("ip", "fd00::/8")));
+        index.add("https", filter(Map.of("port", "443", "protocol", "tcp")));
+        index.add("https-udp", filter(Map.of("port", "443", "protocol", "udp")));
+        index.add("type", filter(Map.of("packetType", "tcp")));
+        index.add("udp", filter(Map.of("protocol", "17")));
+        index.add("agent-and-net", filter(Map.of("agentId", "agent-1", "ip", "10.0.0.0/8", "port", "443")));
+        index.add("agent-not-net", filter(Map.of("agentId", "agent-2", "ip", "10.0.0.0/8")));
+
+        assertEquals(Set.of("all", "agent", "host", "dst-net", "odd-prefix", "https", "type", "agent-and-net"),
+                Set.copyOf(index.match(HTTPS)));
+    }
+
+    @Test
+    void aSubscriberMatchingBothEndsIsReturnedOnce() {
+        StreamFilterIndex<String> index = new StreamFilterIndex<>();
+        index.add("lan", filter(Map.of("ip", "10.0.0.0/8")));
+        index.add("dns", filter(Map.of("port", "53")));
+
+        assertEquals(List.of("lan", "dns"), index.match(new Event("a", "10.0.0.5", "10.0.0.1", 53, 53, "17", null)));
+    }
+
+    @Test
+    void removedSubscribersStopMatching() {
+        StreamFilterIndex<String> index = new StreamFilterIndex<>();
+        index.add("s1/a", filter(Map.of()));
+        index.add("s1/b", filter(Map.of("port", "443")));
+        index.add("s2/a", filter(Map.of("port", "443")));
+
+        assertEquals(2, index.removeIf(s -> s.startsWith("s1/")));
+        assertEquals(List.of("s2/a"), index.match(HTTPS));
+        assertTrue(index.remove("s2/a"));
+        assertTrue(index.isEmpty());
+        assertEquals(List.of(), index.match(HTTPS));
+    }
+
+    /** the index must agree with checking every filter against every event */
+    @Test
+    void agreesWithALinearScan() {
+        Random random = new Random(7);
+        String[] agents = {null, "agent-1", "agent-2"};
+        String[] ips = {null, "10.0.0.5", "10.0.0.0/24", "10.0.0.0/9", "10.0.3.0/23", "0.0.0.0/0", "fd00::1", "fd00::/16"};
+        Integer[] ports = {null, 53, 443, 51_000};
+        String[] protocols = {null, "tcp", "17"};
+        String[] types = {null, "TCP", "udp"};
+
+        StreamFilterIndex<Integer> index = new StreamFilterIndex<>();
+        StreamFilter[] filters = new StreamFilter[300];
+        for (int i = 0; i < filters.length; i++) {
+            StreamFilter f = new StreamFilter();
+            f.setAgentId(agents[random.nextInt(agents.length)]);
+            f.setIp(ips[random.nextInt(ips.length)]);
+            f.setPort(ports[random.nextInt(ports.length)]);
+            f.setProtocol(protocols[random.nextInt(protocols.length)]);
+            f.setPacketType(types[random.nextInt(types.length)]);
+            filters[i] = f;
+            index.add(i, f);
+        }
+
+        String[] addresses = {"10.0.0.5", "10.0.2.9", "10.100.0.1", "10.200.0.1", "8.8.8.8", "fd00::1", "fd01::1", null};
+        for (int n = 0; n < 2_000; n++) {
+            Event e = new Event(agents[1 + random.nextInt(2)], addresses[random.nextInt(addresses.length)],
+                    addresses[random.nextInt(addresses.length)], ports[1 + random.nextInt(3)], ports[1 + random.nextInt(3)],
+                    random.nextBoolean() ? "6" : "17", random.nextBoolean() ? "TCP" : "UDP");
+            List<Integer> matched = index.match(e);
+            Set<Integer> expected = IntStream.range(0, filters.length).filter(i -> reference(filters[i], e))
+                    .boxed().collect(Collectors.toSet());
+            assertEquals(expected, Set.copyOf(matched), e.toString());
+            assertEquals(expected.size(), matched.size(), "duplicates for " + e);
+        }
+    }
+
+    /** the documented semantics, spelled out */
+    private static boolean reference(StreamFilter f, Event e) {
+        if (f.getAgentId() != null && !f.getAgentId().equals(e.agentId())) return false;
+        if (f.getIp() != null && !contains(f.getIp(), e.srcIp()) && !contains(f.getIp(), e.dstIp())) return false;
+        if (f.getPort() != null && !f.getPort().equals(e.srcPort()) && !f.getPort().equals(e.dstPort())) return false;
+        if (f.getProtocol() != null && !PacketColumns.protocol(f.getProtocol()).equals(PacketColumns.protocol(e.protocol()))) {
+            return false;
+        }
+        return f.getPacketType() == null || f.getPacketType().equalsIgnoreCase(e.packetType());
+    }
+
+    private static boolean contains(String network, String ip) {
+        byte[] address = PacketColumns.inet(ip);
+        if (address == null) return false;
+        int slash = network.indexOf('/');
+        byte[] net = PacketColumns.inet(slash < 0 ? network : network.substring(0, slash));
+        int bits = slash < 0 ? net.length * 8 : Integer.parseInt(network.substring(slash + 1));
+        if (net.length != address.length) return false;
+        for (int i = 0; i < bits; i++) {
+            int bit = 0x80 >> (i % 8);
+            if ((net[i / 8] & bit) != (address[i / 8] & bit)) return false;
+        }
+        return true;
+    }
+
+    private static StreamFilter filter(Map<String, String> values) {
+        StreamFilter f = StreamFilter.of(values::get);
+        f.validate();
+        return f;
+    }
+}
@@ -0,0 +1,122 @@
+package com.laraid.netwatch.web;
+
+import com.github.luben.zstd.Zstd;
+import com.laraid.netwatch.config.IngestProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestDecompressionFilterTest {
+
+    private static final byte[] BODY = "{\"agentId\":\"agent-1\",\"packets\":[]}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    private final IngestProperties props = new IngestProperties();
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter(props);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void inflatesGzip() throws Exception {
+        AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+
+        filter.doFilter(request("gzip", gzip(BODY)), response, reading(seen));
+
+        assertNull(seen.get().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(-1, seen.get().getContentLength());
+        assertFalse(seen.get().isAsyncSupported());
+    }
+
+    @Test
+    void inflatesZstd() throws Exception {
+        AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+
+        filter.doFilter(request("zstd", Zstd.compress(BODY)), response, reading(seen));
+
+        assertNull(seen.get().getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void rejectsUnknownEncodingWith415() throws Exception {
+        filter.doFilter(request("br", BODY), response, (req, res) -> {
+            throw new AssertionError("must not reach the endpoint");
+        });
+
+        assertEquals(415, response.getStatus());
+    }
+
+    @Test
+    void rejectsAnInvalidGzipHeaderWith400() throws Exception {
+        filter.doFilter(request("gzip", BODY), response, (req, res) -> {
+            throw new AssertionError("must not reach the endpoint");
+        });
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void failsPastTheInflatedSizeCap() {
+        props.setMaxDecompressedBytes(BODY.length - 1);
+
+        assertThrows(RequestBodyTooLargeException.class,
+                () -> filter.doFilter(request("gzip", gzip(BODY)), response, reading(new AtomicReference<>())));
+    }
+
+    @Test
+    void failsOnABodyCorruptPartWayThrough() throws Exception {
+        byte[] gzip = gzip(BODY);
+        byte[] zstd = Zstd.compress(BODY);
+        byte[] truncatedGzip = Arrays.copyOf(gzip, gzip.length / 2);
+        byte[] truncatedZstd = Arrays.copyOf(zstd, zstd.length / 2);
+
+        assertThrows(MalformedRequestBodyException.class,
+                () -> filter.doFilter(request("gzip", truncatedGzip), response, reading(new AtomicReference<>())));
+        assertThrows(MalformedRequestBodyException.class,
+                () -> filter.doFilter(request("zstd", truncatedZstd), response, reading(new AtomicReference<>())));
+    }
+
+    @Test
+    void refusesAsyncReads() throws Exception {
+        filter.doFilter(request("gzip", gzip(BODY)), response, (req, res) -> {
+            assertThrows(IllegalStateException.class, req::startAsync);
+            assertThrows(IllegalStateException.class, () -> req.getInputStream().setReadListener(null));
+        });
+    }
+
+    /** a chain that reads the whole body, checks it and keeps the request it was given */
+    private static FilterChain reading(AtomicReference<HttpServletRequest> seen) {
+        return (req, res) -> {
+            seen.set((HttpServletRequest) req);
+            assertArrayEquals(BODY, req.getInputStream().readAllBytes());
+        };
+    }
+
+    private static MockHttpServletRequest request(String encoding, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/packets/batch");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        }
+        return out.toByteArray();
+    }
+}
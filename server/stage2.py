@@ -1,7 +1,7 @@
 import token
 from scapy.all import sniff, IP, TCP, UDP, Raw
 from datetime import datetime
-import json, requests, threading
+import json, requests, threading, gzip, base64
 import os, time, socket
 from collections import Counter
 from kafka import KafkaProducer
@@ -41,6 +41,10 @@ BACKEND_URL = os.getenv("BACKEND_URL", "http://localhost:9394/api/v1/packets/bat
 AGENT_ID = os.getenv("AGENT_ID", socket.gethostname())
 HOST = socket.gethostname()
 IFACE = os.getenv("IFACE", None)  # e.g., "Ethernet" or "Wi-Fi"
+BATCH_ENCODING = os.getenv("BATCH_ENCODING", "gzip")  # "gzip" or "identity"
+PAYLOAD_MAX_BYTES = int(os.getenv("PAYLOAD_MAX_BYTES", "1024"))  # raw payload bytes sent per packet
+SEND_ATTEMPTS = int(os.getenv("SEND_ATTEMPTS", "3"))  # resends reuse batchSeq, so the backend ingests once
+AGENT_EPOCH = int(time.time() * 1000)  # new epoch per run, batchSeq restarts at 1
 
 KAFKA_BROKER = os.getenv("KAFKA_BROKER", "192.168.29.215:39092")
 
@@ -55,6 +59,7 @@ TOPIC_HEARTBEAT = "netwatch.agent-heartbeat"
 # State
 # =======================
 batch = []
+batch_seq = 0
 talker_counter = Counter()
 port_counter = Counter()
 protocol_counter = Counter()
@@ -72,11 +77,47 @@ producer = KafkaProducer(
 # =======================
 # Helpers
 # =======================
-def sanitize_string(s: str, max_len=200):
-    """Remove null bytes and truncate."""
-    if not s:
-        return None
-    return s.replace("\x00", "")[:max_len]
+def encode_batch(payload):
+    """JSON-encode a batch, gzip-compressed unless BATCH_ENCODING=identity."""
+    body = json.dumps(payload).encode("utf-8")
+    headers = {"Content-Type": "application/json"}
+    if BATCH_ENCODING == "gzip":
+        body = gzip.compress(body)
+        headers["Content-Encoding"] = "gzip"
+    return body, headers
+
+def sequenced(payload, seq):
+    """The batch as sent: header fields, then epoch/batchSeq, then the packets array last."""
+    header = {k: v for k, v in payload.items() if k != "packets"}
+    return {**header, "epoch": AGENT_EPOCH, "batchSeq": seq, "packets": payload["packets"]}
+
+def post_batch(payload, extra_headers=None):
+    """POST a batch, resending the identical body on timeout/connection errors.
+    On 429 the accepted prefix is dropped and the rest is sent again under a new batchSeq; likewise
+    on a 413/400 that reports an accepted prefix (body cap or corruption hit part way through)."""
+    global batch_seq
+    while payload["packets"]:
+        batch_seq += 1
+        # header keys first: the server claims (epoch, batchSeq) as soon as it reaches "packets"
+        body, headers = encode_batch(sequenced(payload, batch_seq))
+        headers.update(extra_headers or {})
+        for attempt in range(SEND_ATTEMPTS):
+            try:
+                r = requests.post(BACKEND_URL, data=body, headers=headers, timeout=5)
+                break
+            except (requests.Timeout, requests.ConnectionError) as e:
+                if attempt == SEND_ATTEMPTS - 1:
+                    raise
+                print(f"send_batch retry {attempt + 1} (seq={batch_seq}):", e)
+        accepted = int(r.headers.get("X-Accepted-Packets", 0))
+        if r.status_code in (400, 413) and accepted > 0:
+            payload["packets"] = payload["packets"][accepted:]
+            continue
+        if r.status_code != 429:
+            return r
+        payload["packets"] = payload["packets"][accepted:]
+        time.sleep(int(r.headers.get("Retry-After", 1)))
+    return None
 
 def publish_kafka(topic, data):
     try:
@@ -121,11 +162,10 @@ def process_packet(packet):
             port_counter[packet[UDP].dport] += 1
 
     if Raw in packet:
-        try:
-            raw = packet[Raw].load.decode("utf-8", errors="ignore")
-        except:
-            raw = ""
-        data["payload"] = sanitize_string(raw)
+        # exact bytes (base64 in JSON); the backend dedups and compresses them
+        load = bytes(packet[Raw].load)
+        data["payloadLength"] = len(load)
+        data["rawPayload"] = base64.b64encode(load[:PAYLOAD_MAX_BYTES]).decode("ascii")
 
     with lock:
         batch.append(data)
@@ -156,8 +196,7 @@ def send_batch():
     print(f"Sending batch with {len(payload['packets'])} packets...")
     try:
         token = get_token()
-        headers = {"Authorization": f"Bearer {token}"}
-        requests.post(BACKEND_URL, json=payload, headers=headers, timeout=5)
+        post_batch(payload, {"Authorization": f"Bearer {token}"})
     except Exception as e:
         print("send_batch error:", e)
 